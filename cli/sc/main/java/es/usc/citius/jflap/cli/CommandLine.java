@@ -3,14 +3,22 @@ package es.usc.citius.jflap.cli;
 import com.beust.jcommander.JCommander;
 import com.beust.jcommander.Parameter;
 import com.beust.jcommander.Parameters;
+import edu.duke.cs.jflap.automata.Automaton;
 import edu.duke.cs.jflap.automata.AutomatonSimulator;
 import edu.duke.cs.jflap.automata.SimulatorFactory;
 import edu.duke.cs.jflap.automata.fsa.FSAToRegularExpressionConverter;
 import edu.duke.cs.jflap.automata.fsa.FiniteStateAutomaton;
 import edu.duke.cs.jflap.automata.graph.FSAEqualityChecker;
+import edu.duke.cs.jflap.automata.graph.FSAInclusionChecker;
+import edu.duke.cs.jflap.automata.pda.PDAHeadlessSimulator;
+import edu.duke.cs.jflap.automata.pda.PDASimulationOptions;
+import edu.duke.cs.jflap.automata.pda.PDASimulationResult;
 import edu.duke.cs.jflap.file.xml.AutomatonTransducer;
+import edu.duke.cs.jflap.regular.DerivativeMatcher;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.util.*;
 
 public class CommandLine {
@@ -19,7 +27,9 @@ public class CommandLine {
 
     Cli.include("run", RunInputCommand.class)
         .andInclude("equivalent", EquivalentCommand.class)
+        .andInclude("subset", SubsetCommand.class)
         .andInclude("regular", FiniteAutomatonToRE.class)
+        .andInclude("match", MatchCommand.class)
         .showTraceOnError(false)
         .parseAndRun(args);
   }
@@ -41,27 +51,103 @@ public class CommandLine {
     @Parameter(description = "<file>", required = true, arity = 1)
     private List<String> file = new ArrayList<String>();
 
+    @Parameter(
+      names = "--list-order",
+      description = "Eliminate states in the order they are listed, as the GUI does"
+    )
+    private boolean listOrder = false;
+
     @Override
     public void run() {
       FiniteStateAutomaton a = IO.loadAutomaton(file.get(0));
+      if (!listOrder) {
+        System.out.println(FSAToRegularExpressionConverter.convertToExpression(a));
+        return;
+      }
       FSAToRegularExpressionConverter.convertToSimpleAutomaton(a);
       String re = FSAToRegularExpressionConverter.convertToRegularExpression(a);
       System.out.println(re);
     }
   }
 
+  @Parameters(
+    separators = "=",
+    commandDescription = "Check if strings match a regular expression, given inline or as a JFLAP file"
+  )
+  public static class MatchCommand implements Runnable {
+
+    @Parameter(description = "<expression> [<input>...]", required = true)
+    private List<String> params = new ArrayList<String>();
+
+    @Parameter(names = "--inputs", description = "File with one input per line")
+    private String inputs = null;
+
+    @Override
+    public void run() {
+      DerivativeMatcher matcher = new DerivativeMatcher(IO.loadExpression(params.get(0)));
+      for (String input : params.subList(1, params.size())) {
+        System.out.println(matcher.matches(input));
+      }
+      if (inputs != null) {
+        try {
+          for (String input : Files.readAllLines(checked(new File(inputs)).toPath())) {
+            System.out.println(matcher.matches(input));
+          }
+        } catch (IOException e) {
+          throw new RuntimeException(e);
+        }
+      }
+    }
+  }
+
   @Parameters(separators = "=", commandDescription = "Check if two FSA accept the same language")
   public static class EquivalentCommand implements Runnable {
 
     @Parameter(description = "<file1> <file2>", arity = 2, required = true)
     private List<String> files = new ArrayList<String>();
 
+    @Parameter(
+      names = "--counterexample",
+      description = "If not equivalent, also print a shortest string accepted by only one of them"
+    )
+    private boolean counterexample = false;
+
     @Override
     public void run() {
       FiniteStateAutomaton a1 = IO.loadAutomaton(files.get(0));
       FiniteStateAutomaton a2 = IO.loadAutomaton(files.get(1));
-      boolean equal = new FSAEqualityChecker().equals(a1, a2);
-      System.out.println(equal);
+      String witness = new FSAEqualityChecker().getCounterexample(a1, a2);
+      System.out.println(witness == null);
+      if (counterexample && witness != null) {
+        System.out.println(witness);
+      }
+    }
+  }
+
+  @Parameters(
+    separators = "=",
+    commandDescription = "Check if the language of the first FSA is a subset of that of the second"
+  )
+  public static class SubsetCommand implements Runnable {
+
+    @Parameter(description = "<file1> <file2>", arity = 2, required = true)
+    private List<String> files = new ArrayList<String>();
+
+    @Parameter(
+      names = "--counterexample",
+      description = "If not a subset, also print a string accepted by the first FSA only"
+    )
+    private boolean counterexample = false;
+
+    @Override
+    public void run() {
+      FiniteStateAutomaton a1 = IO.loadAutomaton(files.get(0));
+      FiniteStateAutomaton a2 = IO.loadAutomaton(files.get(1));
+      String witness = new FSAInclusionChecker().getCounterexample(a1, a2);
+      System.out.println(witness == null);
+      if (counterexample && witness != null) {
+        System.out.println(witness);
+      }
     }
   }
 
@@ -74,22 +160,75 @@ public class CommandLine {
     @Parameter(description = "<file> <input>", arity = 2, required = true)
     private List<String> params = new ArrayList<String>();
 
+    @Parameter(
+      names = "--accept-by",
+      description = "PDA acceptance mode: final (final state) or empty (empty stack)"
+    )
+    private String acceptBy = "final";
+
+    @Parameter(
+      names = "--max-configurations",
+      description = "PDA limit on explored configurations, 0 for no limit"
+    )
+    private int maxConfigurations = PDASimulationOptions.DEFAULT_MAX_CONFIGURATIONS;
+
+    @Parameter(names = "--max-stack", description = "PDA limit on stack height, 0 for no limit")
+    private int maxStack = 0;
+
+    @Parameter(names = "--time-limit", description = "PDA time limit in milliseconds, 0 for no limit")
+    private long timeLimit = 0;
+
+    @Parameter(
+      names = "--deduplicate",
+      description = "PDA search explores each (state, input position, stack) only once"
+    )
+    private boolean deduplicate = false;
+
+    @Parameter(
+      names = "--max-lambda-growth",
+      description = "PDA limit on stack growth without reading input, 0 for no limit"
+    )
+    private int maxLambdaGrowth = 0;
+
     @Override
     public void run() {
       if (params.size() != 2)
         throw new RuntimeException("Incorrect arguments. Please provide <file> <input>");
       File file = checked(new File(params.get(0)));
       String input = params.get(1);
-      FiniteStateAutomaton automaton = IO.loadAutomaton(file);
+      Automaton automaton = IO.loadAnyAutomaton(file);
       // Load a simulator to test the automaton
-      AutomatonSimulator sim = SimulatorFactory.getSimulator(automaton);
+      AutomatonSimulator sim = SimulatorFactory.getHeadlessSimulator(automaton, pdaOptions());
       if (sim == null)
         throw new RuntimeException(
             "Cannot load an automaton simulator for " + automaton.getClass());
       // Test the automaton with an input
+      if (sim instanceof PDAHeadlessSimulator) {
+        PDASimulationResult result = ((PDAHeadlessSimulator) sim).simulate(input);
+        System.out.println(
+            result == PDASimulationResult.LIMIT_EXCEEDED
+                ? "limit_exceeded"
+                : String.valueOf(result == PDASimulationResult.ACCEPT));
+        return;
+      }
       boolean accept = sim.simulateInput(input);
       System.out.println(accept);
     }
+
+    private PDASimulationOptions pdaOptions() {
+      PDASimulationOptions options = new PDASimulationOptions();
+      if (acceptBy.equals("empty")) {
+        options.setAcceptance(PDASimulationOptions.Acceptance.EMPTY_STACK);
+      } else if (!acceptBy.equals("final")) {
+        throw new RuntimeException("Unknown acceptance mode: " + acceptBy);
+      }
+      options.setMaxConfigurations(maxConfigurations);
+      options.setMaxStackHeight(maxStack);
+      options.setTimeLimit(timeLimit);
+      options.setDeduplicating(deduplicate);
+      options.setMaxLambdaStackGrowth(maxLambdaGrowth);
+      return options;
+    }
   }
 
   private static class Cli {
@@ -1,7 +1,9 @@
 package es.usc.citius.jflap.cli;
 
+import edu.duke.cs.jflap.automata.Automaton;
 import edu.duke.cs.jflap.automata.fsa.FiniteStateAutomaton;
 import edu.duke.cs.jflap.file.XMLCodec;
+import edu.duke.cs.jflap.regular.RegularExpression;
 
 import java.io.File;
 import java.io.IOException;
@@ -14,14 +16,22 @@ public final class IO {
   private IO() {}
 
   public static FiniteStateAutomaton loadAutomaton(String location) {
+    return finite(loadAnyAutomaton(location));
+  }
+
+  public static FiniteStateAutomaton loadAutomaton(File file) {
+    return finite(loadAnyAutomaton(file));
+  }
+
+  public static Automaton loadAnyAutomaton(String location) {
     // Check if the location is a file
     File f = new File(location);
     if (f.isFile()) {
-      return loadAutomaton(f);
+      return loadAnyAutomaton(f);
     }
     // Check if it is a valid URL
     try {
-      return (FiniteStateAutomaton) new XMLCodec().decode(new URL(location).openStream());
+      return (Automaton) new XMLCodec().decode(new URL(location).openStream());
     } catch (MalformedURLException e) {
       throw new RuntimeException(e);
     } catch (IOException e) {
@@ -29,8 +39,29 @@ public final class IO {
     }
   }
 
-  public static FiniteStateAutomaton loadAutomaton(File file) {
+  public static Automaton loadAnyAutomaton(File file) {
     if (!file.isFile()) throw new RuntimeException(file.getAbsolutePath() + " does not exist");
-    return (FiniteStateAutomaton) new XMLCodec().decode(file, null);
+    return (Automaton) new XMLCodec().decode(file, null);
+  }
+
+  /**
+   * Loads a regular expression from a JFLAP file, or takes the location itself as the expression
+   * if no such file exists.
+   */
+  public static RegularExpression loadExpression(String location) {
+    File f = new File(location);
+    if (!f.isFile()) {
+      return new RegularExpression(location);
+    }
+    Object structure = new XMLCodec().decode(f, null);
+    if (!(structure instanceof RegularExpression))
+      throw new RuntimeException("Expected a regular expression, found " + structure.getClass());
+    return (RegularExpression) structure;
+  }
+
+  private static FiniteStateAutomaton finite(Automaton automaton) {
+    if (!(automaton instanceof FiniteStateAutomaton))
+      throw new RuntimeException("Expected a finite state automaton, found " + automaton.getClass());
+    return (FiniteStateAutomaton) automaton;
   }
 }
@@ -23,6 +23,7 @@ import java.awt.Point;
 import java.awt.Rectangle;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -30,6 +31,7 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Predicate;
 import java.util.stream.IntStream;
 
 import org.slf4j.Logger;
@@ -179,6 +181,15 @@ public class Automaton implements Serializable, Cloneable {
 	 */
 	private HashMap<State, List<Transition>> transitionArrayToStateMap = new HashMap<>();
 
+	/**
+	 * A mapping from states to the transitions from those states, grouped by
+	 * the first symbol each transition reads.
+	 */
+	private HashMap<State, HashMap<Integer, List<Transition>>> transitionSymbolMap = new HashMap<>();
+
+	/** A mapping from state IDs to the states with those IDs. */
+	private HashMap<Integer, State> stateIdMap = new HashMap<>();
+
 	private final ArrayList<Note> myNotes = new ArrayList<>();
 
 	public Color myColor = new Color(255, 255, 150);
@@ -245,6 +256,8 @@ public class Automaton implements Serializable, Cloneable {
 		states.add(state);
 		transitionFromStateMap.put(state, new LinkedList<Transition>());
 		transitionToStateMap.put(state, new LinkedList<Transition>());
+		transitionSymbolMap.put(state, new HashMap<Integer, List<Transition>>());
+		stateIdMap.put(state.getID(), state);
 		cachedStates = null;
 		distributeStateEvent(new AutomataStateEvent(this, state, true, false, false));
 	}
@@ -287,6 +300,7 @@ public class Automaton implements Serializable, Cloneable {
 		}
 		list = transitionToStateMap.get(trans.getToState());
 		list.add(trans);
+		indexTransition(trans);
 		transitionArrayFromStateMap.remove(trans.getFromState());
 		transitionArrayToStateMap.remove(trans.getToState());
 		cachedTransitions = null;
@@ -338,6 +352,9 @@ public class Automaton implements Serializable, Cloneable {
 
 		transitionArrayToStateMap = new HashMap<>();
 
+		transitionSymbolMap = new HashMap<>();
+		stateIdMap = new HashMap<>();
+
 		while (myNotes.size() != 0) {
 			final AutomatonPane ap = myNotes.get(0).getView();
 			ap.remove(myNotes.get(0));
@@ -354,6 +371,21 @@ public class Automaton implements Serializable, Cloneable {
 	 */
 	@Override
 	public Automaton clone() {
+		return clone(state -> true);
+	}
+
+	/**
+	 * Creates a clone of this automaton that has only the states accepted by
+	 * <CODE>keep</CODE> and the transitions between them, built in one pass
+	 * rather than by removing states from a full clone. Subclasses that
+	 * override {@link #clone()} are not copied correctly by this method.
+	 *
+	 * @param keep
+	 *            accepts the states to copy
+	 * @return the restricted clone of this automaton, or <CODE>null</CODE> if
+	 *         the clone failed
+	 */
+	Automaton clone(final Predicate<State> keep) {
 		Automaton a;
 		// Try to create a new object.
 		try {
@@ -368,7 +400,7 @@ public class Automaton implements Serializable, Cloneable {
 		// Copy over the states.
 		final HashMap<State, State> map = new HashMap<>(); // Old states to new
 		// states.
-		states.forEach(state -> {
+		states.stream().filter(keep).forEach(state -> {
 			final State newState = new State(state.getID(), new Point(state.getPoint()), a);
 			newState.setLabel(state.getLabel());
 			newState.setName(state.getName());
@@ -379,7 +411,7 @@ public class Automaton implements Serializable, Cloneable {
 			}
 		});
 
-		finalStates.forEach(state -> {
+		finalStates.stream().filter(keep).forEach(state -> {
 			a.addFinalState(map.get(state));
 		});
 
@@ -387,17 +419,16 @@ public class Automaton implements Serializable, Cloneable {
 
 		// Copy over the transitions.
 
-		states.forEach(state -> {
+		states.stream().filter(keep).forEach(state -> {
 			final State from = map.get(state);
 			getTransitionsFromState(state).forEach(transition -> {
 				final State to = map.get(transition.getToState());
-				System.err.println("Transition name: " + transition.toString());
+				if (to == null) {
+					return;
+				}
 				final Transition toBeAdded = transition.clone();
 				toBeAdded.setFromState(from);
 				toBeAdded.setToState(to);
-				System.err.println("toBeAdded is null: " + (toBeAdded == null));
-				System.err.println("toBeAdded.from is null: " + (toBeAdded.getFromState() == null));
-				System.err.println("toBeAdded.to is null: " + (toBeAdded.getToState() == null));
 				a.addTransition(toBeAdded);
 			});
 		});
@@ -591,14 +622,7 @@ public class Automaton implements Serializable, Cloneable {
 	 *         ID, or <CODE>null</CODE> if no such state exists
 	 */
 	public State getStateWithID(final int id) {
-		final Iterator<State> it = states.iterator();
-		while (it.hasNext()) {
-			final State state = it.next();
-			if (state.getID() == id) {
-				return state;
-			}
-		}
-		return null;
+		return stateIdMap.get(id);
 	}
 
 	/**
@@ -648,6 +672,30 @@ public class Automaton implements Serializable, Cloneable {
 		return toReturn;
 	}
 
+	/**
+	 * Retrieves the transitions from a state whose first input symbol is the
+	 * given symbol, as returned by <CODE>Transition.getFirstSymbol</CODE>.
+	 * Asking for <CODE>Transition.NO_SYMBOL</CODE> returns every transition
+	 * that reads no input or whose first symbol is not known from its label,
+	 * which includes all lambda transitions. The index is kept up to date as
+	 * transitions are added, removed and replaced, so this takes constant
+	 * time.
+	 *
+	 * @param from
+	 *            the <CODE>State</CODE> from which returned transitions should
+	 *            come from
+	 * @param symbol
+	 *            the first input symbol, or <CODE>Transition.NO_SYMBOL</CODE>
+	 * @return the transitions from this state on this first symbol, which
+	 *         should not be modified
+	 * @see edu.duke.cs.jflap.automata.Transition#getFirstSymbol
+	 */
+	public List<Transition> getTransitionsFromState(final State from, final int symbol) {
+		final HashMap<Integer, List<Transition>> bySymbol = transitionSymbolMap.get(from);
+		final List<Transition> list = bySymbol == null ? null : bySymbol.get(symbol);
+		return list == null ? Collections.<Transition> emptyList() : list;
+	}
+
 	/**
 	 * Retrieves all transitions going from one given state to another given
 	 * state.
@@ -661,11 +709,22 @@ public class Automaton implements Serializable, Cloneable {
 	 */
 	public List<Transition> getTransitionsFromStateToState(final State from, final State to) {
 		final List<Transition> list = new ArrayList<>();
-		getTransitionsFromState(from).stream().forEach(transition -> {
-			if (transition.getToState() == to) {
-				list.add(transition);
+		final List<Transition> out = getTransitionsFromState(from);
+		final List<Transition> in = getTransitionsToState(to);
+		// Either list holds every match, so walk the shorter one.
+		if (out != null && (in == null || out.size() <= in.size())) {
+			for (final Transition transition : out) {
+				if (transition.getToState() == to) {
+					list.add(transition);
+				}
 			}
-		});
+		} else if (in != null) {
+			for (final Transition transition : in) {
+				if (transition.getFromState() == from) {
+					list.add(transition);
+				}
+			}
+		}
 		return list;
 	}
 
@@ -708,6 +767,26 @@ public class Automaton implements Serializable, Cloneable {
 		return ret;
 	}
 
+	/**
+	 * Adds a transition to the index of transitions by first symbol.
+	 *
+	 * @param trans
+	 *            the transition to index
+	 */
+	private void indexTransition(final Transition trans) {
+		HashMap<Integer, List<Transition>> bySymbol = transitionSymbolMap.get(trans.getFromState());
+		if (bySymbol == null) {
+			bySymbol = new HashMap<>();
+			transitionSymbolMap.put(trans.getFromState(), bySymbol);
+		}
+		List<Transition> list = bySymbol.get(trans.getFirstSymbol());
+		if (list == null) {
+			list = new ArrayList<>();
+			bySymbol.put(trans.getFirstSymbol(), list);
+		}
+		list.add(trans);
+	}
+
 	/**
 	 * Determines if the state passed in is in the set of final states.
 	 *
@@ -774,6 +853,26 @@ public class Automaton implements Serializable, Cloneable {
 		 */
 	}
 
+	/**
+	 * Moves a state to its new ID in the index of states by ID. This is
+	 * called by the state when its ID changes.
+	 *
+	 * @param state
+	 *            the state whose ID changed
+	 * @param oldID
+	 *            the ID the state had before
+	 */
+	void reindexState(final State state, final int oldID) {
+		if (!states.contains(state)) {
+			return;
+		}
+		if (stateIdMap.get(oldID) == state) {
+			stateIdMap.remove(oldID);
+		}
+		stateIdMap.put(state.getID(), state);
+		cachedStates = null;
+	}
+
 	/**
 	 * Removes a state from the set of final states. This will not remove a
 	 * state from the list of states; it shall merely make it nonfinal.
@@ -805,8 +904,9 @@ public class Automaton implements Serializable, Cloneable {
 	 *            the state to remove
 	 */
 	public void removeState(final State state) {
-		getTransitionsFromState(state).forEach(x -> removeTransition(x));
-		getTransitionsToState(state).forEach(x -> removeTransition(x));
+		// Copy the lists first, since removing a transition edits them.
+		Lists.newArrayList(getTransitionsFromState(state)).forEach(x -> removeTransition(x));
+		Lists.newArrayList(getTransitionsToState(state)).forEach(x -> removeTransition(x));
 		
 		distributeStateEvent(new AutomataStateEvent(this, state, false, false, false));
 		states.remove(state);
@@ -817,11 +917,16 @@ public class Automaton implements Serializable, Cloneable {
 
 		transitionFromStateMap.remove(state);
 		transitionToStateMap.remove(state);
+		transitionSymbolMap.remove(state);
+		if (stateIdMap.get(state.getID()) == state) {
+			stateIdMap.remove(state.getID());
+		}
 
 		transitionArrayFromStateMap.remove(state);
 		transitionArrayToStateMap.remove(state);
 
 		cachedStates = null;
+		cachedFinalStates = null;
 	}
 
 	/**
@@ -846,6 +951,7 @@ public class Automaton implements Serializable, Cloneable {
 		l.remove(trans);
 		l = transitionToStateMap.get(trans.getToState());
 		l.remove(trans);
+		unindexTransition(trans);
 		// Remove cached arrays.
 		transitionArrayFromStateMap.remove(trans.getFromState());
 		transitionArrayToStateMap.remove(trans.getToState());
@@ -893,6 +999,8 @@ public class Automaton implements Serializable, Cloneable {
 		list.set(list.indexOf(oldTrans), newTrans);
 		list = transitionToStateMap.get(oldTrans.getToState());
 		list.set(list.indexOf(oldTrans), newTrans);
+		unindexTransition(oldTrans);
+		indexTransition(newTrans);
 		transitionArrayFromStateMap.remove(oldTrans.getFromState());
 		transitionArrayToStateMap.remove(oldTrans.getToState());
 		cachedTransitions = null;
@@ -945,6 +1053,17 @@ public class Automaton implements Serializable, Cloneable {
 		return oldInitialState;
 	}
 
+	/**
+	 * Takes a read-only, fully indexed snapshot of this automaton that may be
+	 * shared between threads. The snapshot does not follow later edits to
+	 * this automaton.
+	 *
+	 * @return a snapshot of this automaton
+	 */
+	public AutomatonSnapshot snapshot() {
+		return new AutomatonSnapshot(this);
+	}
+
 	/**
 	 * Returns a string representation of this <CODE>Automaton</CODE>.
 	 */
@@ -972,6 +1091,23 @@ public class Automaton implements Serializable, Cloneable {
 		return buffer.toString();
 	}
 
+	/**
+	 * Removes a transition from the index of transitions by first symbol.
+	 *
+	 * @param trans
+	 *            the transition to remove from the index
+	 */
+	private void unindexTransition(final Transition trans) {
+		final HashMap<Integer, List<Transition>> bySymbol = transitionSymbolMap.get(trans.getFromState());
+		if (bySymbol == null) {
+			return;
+		}
+		final List<Transition> list = bySymbol.get(trans.getFirstSymbol());
+		if (list != null && list.remove(trans) && list.isEmpty()) {
+			bySymbol.remove(trans.getFirstSymbol());
+		}
+	}
+
 	/**
 	 * This handles serialization. No longer used.
 	 */
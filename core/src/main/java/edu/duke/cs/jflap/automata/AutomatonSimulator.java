@@ -16,6 +16,7 @@
 
 package edu.duke.cs.jflap.automata;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -61,6 +62,41 @@ public abstract class AutomatonSimulator {
 	 */
 	public abstract List<Configuration> getInitialConfigurations(String input);
 
+	/**
+	 * Returns the transitions from a state that could read the input at a
+	 * position: those whose first symbol is the next input character, followed
+	 * by those that read no input or have no known first symbol. Any other
+	 * transition from the state cannot match, so simulators need only check
+	 * these.
+	 *
+	 * @param state
+	 *            the current state
+	 * @param input
+	 *            the whole input string
+	 * @param position
+	 *            the position of the next character to read
+	 * @return the transitions that may apply, which should not be modified
+	 * @see edu.duke.cs.jflap.automata.Automaton#getTransitionsFromState(State,
+	 *      int)
+	 */
+	protected List<Transition> getTransitionsFromState(final State state, final String input, final int position) {
+		final List<Transition> unknown = myAutomaton.getTransitionsFromState(state, Transition.NO_SYMBOL);
+		if (position >= input.length()) {
+			return unknown;
+		}
+		final List<Transition> reading = myAutomaton.getTransitionsFromState(state, input.charAt(position));
+		if (unknown.isEmpty()) {
+			return reading;
+		}
+		if (reading.isEmpty()) {
+			return unknown;
+		}
+		final List<Transition> both = new ArrayList<>(reading.size() + unknown.size());
+		both.addAll(reading);
+		both.addAll(unknown);
+		return both;
+	}
+
 	/**
 	 * Returns true if the simulation of the input string on the automaton left
 	 * the machine in an accept state (the criteria for "accept" is defined
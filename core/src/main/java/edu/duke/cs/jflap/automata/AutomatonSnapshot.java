@@ -0,0 +1,256 @@
+/*
+*  JFLAP - Formal Languages and Automata Package
+*
+*
+*  Susan H. Rodger
+*  Computer Science Department
+*  Duke University
+*  August 27, 2009
+
+*  Copyright (c) 2002-2009
+*  All rights reserved.
+
+*  JFLAP is open source software. Please see the LICENSE for terms.
+*
+*/
+
+package edu.duke.cs.jflap.automata;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * An <CODE>AutomatonSnapshot</CODE> is a read-only copy of an automaton with
+ * every index the <CODE>Automaton</CODE> class keeps built up front: the
+ * states in order of ascending IDs, the final states, the transitions, and the
+ * transitions from and to each state, both in full and grouped by first
+ * symbol. Nothing is computed lazily, every collection is unmodifiable, and
+ * the snapshot owns a private copy of the automaton's states and transitions,
+ * so a snapshot may be shared freely between threads. It does not follow
+ * later edits to the automaton it was taken from.
+ *
+ * The states and transitions handed out belong to the snapshot and must not
+ * be modified. Code that needs an <CODE>Automaton</CODE> to work on can get a
+ * fresh one from {@link #toAutomaton}.
+ *
+ * @see edu.duke.cs.jflap.automata.Automaton#snapshot
+ */
+public final class AutomatonSnapshot {
+	/** The private copy of the automaton, which is never handed out. */
+	private final Automaton myAutomaton;
+
+	/** The states, in order of ascending IDs. */
+	private final List<State> myStates;
+
+	/** Maps each state to its position in <CODE>myStates</CODE>. */
+	private final HashMap<State, Integer> myIndex = new HashMap<>();
+
+	/** Maps each state ID to its state. */
+	private final HashMap<Integer, State> myStatesByID = new HashMap<>();
+
+	/** The initial state, or <CODE>null</CODE> if there is none. */
+	private final State myInitialState;
+
+	/** The final states. */
+	private final List<State> myFinalStates;
+
+	/** The final states, for membership tests. */
+	private final Set<State> myFinalStateSet;
+
+	/** All transitions. */
+	private final List<Transition> myTransitions;
+
+	/** The transitions from each state. */
+	private final HashMap<State, List<Transition>> myTransitionsFrom = new HashMap<>();
+
+	/** The transitions to each state. */
+	private final HashMap<State, List<Transition>> myTransitionsTo = new HashMap<>();
+
+	/** The transitions from each state, grouped by first symbol. */
+	private final HashMap<State, HashMap<Integer, List<Transition>>> myTransitionsOnSymbol = new HashMap<>();
+
+	/**
+	 * Takes a snapshot of an automaton.
+	 *
+	 * @param automaton
+	 *            the automaton to take a snapshot of
+	 */
+	AutomatonSnapshot(final Automaton automaton) {
+		myAutomaton = automaton.clone();
+		myAutomaton.setEnvironmentFrame(null);
+		final List<State> states = myAutomaton.getStates();
+		for (int i = 0; i < states.size(); i++) {
+			final State state = states.get(i);
+			// Settle the lazily chosen default name now, so that no reader
+			// ever writes to a state.
+			state.getName();
+			myIndex.put(state, i);
+			myStatesByID.put(state.getID(), state);
+			myTransitionsFrom.put(state, Collections.unmodifiableList(
+					new ArrayList<>(myAutomaton.getTransitionsFromState(state))));
+			myTransitionsTo.put(state, Collections.unmodifiableList(
+					new ArrayList<>(myAutomaton.getTransitionsToState(state))));
+			final HashMap<Integer, List<Transition>> bySymbol = new HashMap<>();
+			for (final Transition transition : myAutomaton.getTransitionsFromState(state)) {
+				List<Transition> list = bySymbol.get(transition.getFirstSymbol());
+				if (list == null) {
+					list = new ArrayList<>();
+					bySymbol.put(transition.getFirstSymbol(), list);
+				}
+				list.add(transition);
+			}
+			for (final Integer symbol : new ArrayList<>(bySymbol.keySet())) {
+				bySymbol.put(symbol, Collections.unmodifiableList(bySymbol.get(symbol)));
+			}
+			myTransitionsOnSymbol.put(state, bySymbol);
+		}
+		myStates = Collections.unmodifiableList(new ArrayList<>(states));
+		myInitialState = myAutomaton.getInitialState();
+		myFinalStates = Collections.unmodifiableList(new ArrayList<>(myAutomaton.getFinalStates()));
+		myFinalStateSet = Collections.unmodifiableSet(new HashSet<>(myFinalStates));
+		myTransitions = Collections.unmodifiableList(new ArrayList<>(myAutomaton.getTransitions()));
+	}
+
+	/**
+	 * Returns the class of the automaton this snapshot was taken of.
+	 *
+	 * @return the class of the original automaton
+	 */
+	public Class<? extends Automaton> getAutomatonClass() {
+		return myAutomaton.getClass();
+	}
+
+	/**
+	 * Returns the final states.
+	 *
+	 * @return the final states, in no particular order
+	 */
+	public List<State> getFinalStates() {
+		return myFinalStates;
+	}
+
+	/**
+	 * Returns the position of a state in {@link #getStates}.
+	 *
+	 * @param state
+	 *            the state
+	 * @return the position of the state, or -1 if it is not a state of this
+	 *         snapshot
+	 */
+	public int getIndex(final State state) {
+		final Integer index = myIndex.get(state);
+		return index == null ? -1 : index;
+	}
+
+	/**
+	 * Returns the initial state.
+	 *
+	 * @return the initial state, or <CODE>null</CODE> if there is none
+	 */
+	public State getInitialState() {
+		return myInitialState;
+	}
+
+	/**
+	 * Returns the states.
+	 *
+	 * @return the states, in order of ascending state IDs
+	 */
+	public List<State> getStates() {
+		return myStates;
+	}
+
+	/**
+	 * Returns the state with this ID.
+	 *
+	 * @param id
+	 *            the ID to look for
+	 * @return the state with this ID, or <CODE>null</CODE> if there is none
+	 */
+	public State getStateWithID(final int id) {
+		return myStatesByID.get(id);
+	}
+
+	/**
+	 * Returns all transitions.
+	 *
+	 * @return the transitions, in no particular order
+	 */
+	public List<Transition> getTransitions() {
+		return myTransitions;
+	}
+
+	/**
+	 * Returns the transitions from a state.
+	 *
+	 * @param from
+	 *            the state
+	 * @return the transitions from the state, or an empty list if it is not a
+	 *         state of this snapshot
+	 */
+	public List<Transition> getTransitionsFromState(final State from) {
+		final List<Transition> list = myTransitionsFrom.get(from);
+		return list == null ? Collections.<Transition> emptyList() : list;
+	}
+
+	/**
+	 * Returns the transitions from a state whose first input symbol is the
+	 * given symbol.
+	 *
+	 * @param from
+	 *            the state
+	 * @param symbol
+	 *            the first input symbol, or <CODE>Transition.NO_SYMBOL</CODE>
+	 * @return the transitions from the state on this first symbol
+	 * @see edu.duke.cs.jflap.automata.Automaton#getTransitionsFromState(State,
+	 *      int)
+	 */
+	public List<Transition> getTransitionsFromState(final State from, final int symbol) {
+		final HashMap<Integer, List<Transition>> bySymbol = myTransitionsOnSymbol.get(from);
+		final List<Transition> list = bySymbol == null ? null : bySymbol.get(symbol);
+		return list == null ? Collections.<Transition> emptyList() : list;
+	}
+
+	/**
+	 * Returns the transitions to a state.
+	 *
+	 * @param to
+	 *            the state
+	 * @return the transitions to the state, or an empty list if it is not a
+	 *         state of this snapshot
+	 */
+	public List<Transition> getTransitionsToState(final State to) {
+		final List<Transition> list = myTransitionsTo.get(to);
+		return list == null ? Collections.<Transition> emptyList() : list;
+	}
+
+	/**
+	 * Returns if a state is final.
+	 *
+	 * @param state
+	 *            the state
+	 * @return <CODE>true</CODE> if the state is a final state of this snapshot
+	 */
+	public boolean isFinalState(final State state) {
+		return myFinalStateSet.contains(state);
+	}
+
+	/**
+	 * Returns a new automaton of the same type with the same states and
+	 * transitions as this snapshot. Every call returns an independent copy,
+	 * which the caller may change as it likes.
+	 *
+	 * @return a new copy of the automaton
+	 */
+	public Automaton toAutomaton() {
+		// Cloning fills in the lazy caches of the private copy, so only one
+		// thread may clone it at a time.
+		synchronized (myAutomaton) {
+			return myAutomaton.clone();
+		}
+	}
+}
@@ -0,0 +1,268 @@
+/*
+*  JFLAP - Formal Languages and Automata Package
+*
+*
+*  Susan H. Rodger
+*  Computer Science Department
+*  Duke University
+*  August 27, 2009
+
+*  Copyright (c) 2002-2009
+*  All rights reserved.
+
+*  JFLAP is open source software. Please see the LICENSE for terms.
+*
+*/
+
+package edu.duke.cs.jflap.automata;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import edu.duke.cs.jflap.automata.fsa.CompiledDFA;
+import edu.duke.cs.jflap.automata.fsa.CompiledNFA;
+import edu.duke.cs.jflap.automata.fsa.FiniteStateAutomaton;
+
+/**
+ * The batch simulator runs many inputs against one automaton in parallel. The
+ * automaton is compiled once into an immutable form (a
+ * <CODE>CompiledDFA</CODE> if it is deterministic, a <CODE>CompiledNFA</CODE>
+ * otherwise) which every worker thread then reads without locking. Only finite
+ * state automata are supported.
+ *
+ * @see edu.duke.cs.jflap.automata.fsa.CompiledDFA
+ * @see edu.duke.cs.jflap.automata.fsa.CompiledNFA
+ */
+public class BatchSimulator {
+	/**
+	 * The outcome of running one input.
+	 */
+	public static final class Result {
+		private final String input;
+
+		private final boolean accepted;
+
+		private final int steps;
+
+		private Result(final String input, final boolean accepted, final int steps) {
+			this.input = input;
+			this.accepted = accepted;
+			this.steps = steps;
+		}
+
+		/**
+		 * Returns the input that was run.
+		 *
+		 * @return the input string
+		 */
+		public String getInput() {
+			return input;
+		}
+
+		/**
+		 * Returns the number of input symbols read before the simulation
+		 * finished, which is less than the input length if the automaton got
+		 * stuck.
+		 *
+		 * @return the number of steps taken
+		 */
+		public int getSteps() {
+			return steps;
+		}
+
+		/**
+		 * Returns if the automaton accepted the input.
+		 *
+		 * @return <CODE>true</CODE> if the input was accepted
+		 */
+		public boolean isAccepted() {
+			return accepted;
+		}
+
+		@Override
+		public String toString() {
+			return input + ": " + (accepted ? "accept" : "reject") + " (" + steps + " steps)";
+		}
+	}
+
+	/** The number of chunks each worker thread gets, to even out the load. */
+	private static final int CHUNKS_PER_THREAD = 4;
+
+	/**
+	 * Runs a deterministic automaton on an input.
+	 */
+	private static Result run(final CompiledDFA dfa, final String input) {
+		int state = dfa.getInitialState();
+		for (int i = 0; i < input.length(); i++) {
+			final int symbol = dfa.getSymbol(input.charAt(i));
+			if (symbol < 0) {
+				return new Result(input, false, i);
+			}
+			state = dfa.next(state, symbol);
+			if (state == CompiledDFA.NO_STATE) {
+				return new Result(input, false, i);
+			}
+		}
+		return new Result(input, dfa.isFinalState(state), input.length());
+	}
+
+	/**
+	 * Runs a nondeterministic automaton on an input.
+	 */
+	private static Result run(final CompiledNFA nfa, final String input) {
+		long[] current = nfa.getInitialSet();
+		long[] next = new long[nfa.getWordCount()];
+		for (int i = 0; i < input.length(); i++) {
+			final int symbol = nfa.getSymbol(input.charAt(i));
+			if (symbol < 0) {
+				return new Result(input, false, i);
+			}
+			if (!nfa.step(current, symbol, next)) {
+				return new Result(input, false, i);
+			}
+			final long[] swap = current;
+			current = next;
+			next = swap;
+		}
+		return new Result(input, nfa.isAccepting(current), input.length());
+	}
+
+	/**
+	 * Runs every input against the automaton on the common fork-join pool.
+	 *
+	 * @param automaton
+	 *            the automaton to run
+	 * @param inputs
+	 *            the input strings
+	 * @return the results, in the same order as the inputs
+	 * @throws InterruptedException
+	 *             if interrupted while waiting for the results
+	 * @see #run(Automaton, List, ExecutorService)
+	 */
+	public static List<Result> run(final Automaton automaton, final List<String> inputs)
+			throws InterruptedException {
+		return run(automaton, inputs, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Runs every input against the automaton, splitting the inputs into
+	 * chunks that are run on the given executor. The automaton is compiled
+	 * once before any input runs, so it must not be changed until this method
+	 * returns. An automaton without an initial state rejects every input.
+	 *
+	 * @param automaton
+	 *            the automaton to run
+	 * @param inputs
+	 *            the input strings
+	 * @param executor
+	 *            the executor to run the chunks on
+	 * @return the results, in the same order as the inputs
+	 * @throws IllegalArgumentException
+	 *             if the automaton is not a finite state automaton
+	 * @throws InterruptedException
+	 *             if interrupted while waiting for the results
+	 */
+	public static List<Result> run(final Automaton automaton, final List<String> inputs,
+			final ExecutorService executor) throws InterruptedException {
+		if (!(automaton instanceof FiniteStateAutomaton)) {
+			throw new IllegalArgumentException("Batch simulation only supports finite state automata, not "
+					+ automaton.getClass().getSimpleName());
+		}
+		final CompiledDFA dfa = CompiledDFA.compile((FiniteStateAutomaton) automaton);
+		final CompiledNFA nfa = dfa == null ? CompiledNFA.compile((FiniteStateAutomaton) automaton) : null;
+		return run(dfa, nfa, inputs, executor);
+	}
+
+	/**
+	 * Runs every input against a snapshot of an automaton on the common
+	 * fork-join pool.
+	 *
+	 * @param snapshot
+	 *            the snapshot of the automaton to run
+	 * @param inputs
+	 *            the input strings
+	 * @return the results, in the same order as the inputs
+	 * @throws InterruptedException
+	 *             if interrupted while waiting for the results
+	 * @see #run(AutomatonSnapshot, List, ExecutorService)
+	 */
+	public static List<Result> run(final AutomatonSnapshot snapshot, final List<String> inputs)
+			throws InterruptedException {
+		return run(snapshot, inputs, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Runs every input against a snapshot of an automaton, splitting the
+	 * inputs into chunks that are run on the given executor. Since a snapshot
+	 * never changes, any number of batches may run against it at once.
+	 *
+	 * @param snapshot
+	 *            the snapshot of the automaton to run
+	 * @param inputs
+	 *            the input strings
+	 * @param executor
+	 *            the executor to run the chunks on
+	 * @return the results, in the same order as the inputs
+	 * @throws IllegalArgumentException
+	 *             if the snapshot is not of a finite state automaton
+	 * @throws InterruptedException
+	 *             if interrupted while waiting for the results
+	 */
+	public static List<Result> run(final AutomatonSnapshot snapshot, final List<String> inputs,
+			final ExecutorService executor) throws InterruptedException {
+		final CompiledDFA dfa = CompiledDFA.compile(snapshot);
+		final CompiledNFA nfa = dfa == null ? CompiledNFA.compile(snapshot) : null;
+		return run(dfa, nfa, inputs, executor);
+	}
+
+	/**
+	 * Runs every input against the compiled automaton, which is the
+	 * <CODE>dfa</CODE> if it is not <CODE>null</CODE>, else the
+	 * <CODE>nfa</CODE>, and rejects everything if both are <CODE>null</CODE>.
+	 */
+	private static List<Result> run(final CompiledDFA dfa, final CompiledNFA nfa, final List<String> inputs,
+			final ExecutorService executor) throws InterruptedException {
+		final Result[] results = new Result[inputs.size()];
+		final int threads = executor instanceof ForkJoinPool ? ((ForkJoinPool) executor).getParallelism()
+				: Runtime.getRuntime().availableProcessors();
+		final int chunk = Math.max(1, inputs.size() / (threads * CHUNKS_PER_THREAD));
+		final List<Callable<Void>> tasks = new ArrayList<>();
+		for (int start = 0; start < inputs.size(); start += chunk) {
+			final int from = start;
+			final int to = Math.min(inputs.size(), start + chunk);
+			tasks.add(() -> {
+				for (int i = from; i < to; i++) {
+					final String input = inputs.get(i);
+					if (dfa != null) {
+						results[i] = run(dfa, input);
+					} else if (nfa != null) {
+						results[i] = run(nfa, input);
+					} else {
+						results[i] = new Result(input, false, 0);
+					}
+				}
+				return null;
+			});
+		}
+		for (final Future<Void> future : executor.invokeAll(tasks)) {
+			try {
+				future.get();
+			} catch (final ExecutionException e) {
+				throw new RuntimeException(e.getCause());
+			}
+		}
+		return Arrays.asList(results);
+	}
+
+	/**
+	 * There is no reason for this class to ever be constructed.
+	 */
+	private BatchSimulator() {
+	}
+}
@@ -17,7 +17,9 @@
 package edu.duke.cs.jflap.automata;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * The closure taker object can be used to take the closure of states in an
@@ -39,16 +41,18 @@ public class ClosureTaker {
 	 */
 	public static List<State> getClosure(State state, final Automaton automaton) {
 		final List<State> list = new ArrayList<>();
+		final Set<State> seen = new HashSet<>();
+		final LambdaTransitionChecker checker = LambdaCheckerFactory.getLambdaChecker(automaton);
 		list.add(state);
+		seen.add(state);
 		for (int i = 0; i < list.size(); i++) {
 			state = list.get(i);
-			final List<Transition> transitions = automaton.getTransitionsFromState(state);
+			final List<Transition> transitions = automaton.getTransitionsFromState(state, Transition.NO_SYMBOL);
 			for (final Transition trans : transitions) {
-				final LambdaTransitionChecker checker = LambdaCheckerFactory.getLambdaChecker(automaton);
 				/** if lambda transition */
 				if (checker.isLambdaTransition(trans)) {
 					final State toState = trans.getToState();
-					if (!list.contains(toState)) {
+					if (seen.add(toState)) {
 						list.add(toState);
 					}
 				}
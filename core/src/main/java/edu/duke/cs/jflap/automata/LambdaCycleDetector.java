@@ -0,0 +1,68 @@
+/*
+*  JFLAP - Formal Languages and Automata Package
+*
+*
+*  Susan H. Rodger
+*  Computer Science Department
+*  Duke University
+*  August 27, 2009
+
+*  Copyright (c) 2002-2009
+*  All rights reserved.
+
+*  JFLAP is open source software. Please see the LICENSE for terms.
+*
+*/
+
+package edu.duke.cs.jflap.automata;
+
+import java.util.List;
+import java.util.Set;
+
+import edu.duke.cs.jflap.automata.graph.TransitionGraph;
+
+/**
+ * The lambda cycle detector finds the cycles of lambda transitions in an
+ * automaton, that is, the groups of states that can move among each other
+ * without consuming any input. Lambda transitions are recognized by the
+ * checker from <CODE>LambdaCheckerFactory</CODE>, so this works for every
+ * type of automaton that has one. The cycles are the strongly connected
+ * components of the lambda transitions, found in time linear in the number of
+ * states and transitions.
+ *
+ * @see edu.duke.cs.jflap.automata.LambdaCheckerFactory
+ * @see edu.duke.cs.jflap.automata.graph.TransitionGraph
+ */
+public class LambdaCycleDetector {
+	/**
+	 * Returns the lambda cycles of an automaton. Each cycle is a maximal set
+	 * of states that can all reach each other by lambda transitions; a single
+	 * state is a cycle only if it has a lambda transition to itself.
+	 *
+	 * @param automaton
+	 *            the automaton to search
+	 * @return the sets of states on lambda cycles, which is empty if there are
+	 *         none or there is no lambda checker for this type of automaton
+	 */
+	public static List<Set<State>> getLambdaCycles(final Automaton automaton) {
+		return TransitionGraph.lambdaGraph(automaton).getCycles();
+	}
+
+	/**
+	 * Returns if an automaton has a cycle of lambda transitions.
+	 *
+	 * @param automaton
+	 *            the automaton to search
+	 * @return <CODE>true</CODE> if some state can return to itself by lambda
+	 *         transitions alone
+	 */
+	public static boolean hasLambdaCycle(final Automaton automaton) {
+		return !getLambdaCycles(automaton).isEmpty();
+	}
+
+	/**
+	 * There is no reason for this class to ever be constructed.
+	 */
+	private LambdaCycleDetector() {
+	}
+}
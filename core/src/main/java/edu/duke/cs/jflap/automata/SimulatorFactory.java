@@ -46,4 +46,56 @@ public class SimulatorFactory {
 		}
 		return null;
 	}
+
+	/**
+	 * Returns the fastest simulator available for this automaton. A finite
+	 * state automaton that can be compiled into a transition table gets an
+	 * <CODE>FSATableSimulator</CODE>, any other finite state automaton gets an
+	 * <CODE>FSABitParallelSimulator</CODE>, and anything else gets the same
+	 * simulator as {@link #getSimulator}. The returned simulator reflects the automaton as
+	 * it is now, so a new one should be obtained after the automaton changes.
+	 *
+	 * @param automaton
+	 *            the automaton to get the simulator for
+	 * @return the appropriate automaton simulator for this automaton, or
+	 *         <CODE>null</CODE> if there is no automaton simulator known for
+	 *         this type of automaton
+	 */
+	public static AutomatonSimulator getCompiledSimulator(final Automaton automaton) {
+		if (automaton instanceof edu.duke.cs.jflap.automata.fsa.FiniteStateAutomaton) {
+			final edu.duke.cs.jflap.automata.fsa.CompiledDFA table = edu.duke.cs.jflap.automata.fsa.CompiledDFA
+					.compile((edu.duke.cs.jflap.automata.fsa.FiniteStateAutomaton) automaton);
+			if (table != null) {
+				return new edu.duke.cs.jflap.automata.fsa.FSATableSimulator(automaton, table);
+			}
+			final edu.duke.cs.jflap.automata.fsa.CompiledNFA nfa = edu.duke.cs.jflap.automata.fsa.CompiledNFA
+					.compile((edu.duke.cs.jflap.automata.fsa.FiniteStateAutomaton) automaton);
+			if (nfa != null) {
+				return new edu.duke.cs.jflap.automata.fsa.FSABitParallelSimulator(automaton, nfa);
+			}
+		}
+		return getSimulator(automaton);
+	}
+
+	/**
+	 * Returns a simulator for this automaton that never interacts with the
+	 * user. A pushdown automaton gets a <CODE>PDAHeadlessSimulator</CODE>
+	 * configured by <CODE>options</CODE>; anything else gets the same
+	 * simulator as {@link #getCompiledSimulator}.
+	 *
+	 * @param automaton
+	 *            the automaton to get the simulator for
+	 * @param options
+	 *            the options for simulating a pushdown automaton
+	 * @return the appropriate automaton simulator for this automaton, or
+	 *         <CODE>null</CODE> if there is no automaton simulator known for
+	 *         this type of automaton
+	 */
+	public static AutomatonSimulator getHeadlessSimulator(final Automaton automaton,
+			final edu.duke.cs.jflap.automata.pda.PDASimulationOptions options) {
+		if (automaton instanceof edu.duke.cs.jflap.automata.pda.PushdownAutomaton) {
+			return new edu.duke.cs.jflap.automata.pda.PDAHeadlessSimulator(automaton, options);
+		}
+		return getCompiledSimulator(automaton);
+	}
 }
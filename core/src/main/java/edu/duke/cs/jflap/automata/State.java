@@ -203,7 +203,9 @@ public class State implements Serializable {
 		if (("q" + this.id).equals(name)) {
 			name = null;
 		}
+		final int oldID = this.id;
 		this.id = id;
+		getAutomaton().reindexState(this, oldID);
 		getAutomaton().distributeStateEvent(new AutomataStateEvent(getAutomaton(), this, false, false, true));
 	}
 
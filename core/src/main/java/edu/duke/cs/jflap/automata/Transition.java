@@ -33,6 +33,12 @@ import java.io.Serializable;
 public abstract class Transition implements Serializable, Cloneable {
 	private static final long serialVersionUID = 9L;
 
+	/**
+	 * The first symbol of a transition that reads no input, or whose first
+	 * symbol cannot be told from its label alone.
+	 */
+	public static final int NO_SYMBOL = -1;
+
 	/** The states this transition goes between. */
 	protected State from, to;
 
@@ -121,6 +127,21 @@ public abstract class Transition implements Serializable, Cloneable {
 		return "";
 	}
 
+	/**
+	 * Returns the first input symbol this transition reads. The automaton
+	 * indexes its transitions by this symbol, so it must not change while the
+	 * transition is in an automaton. This defaults to <CODE>NO_SYMBOL</CODE>.
+	 * Subclasses that read input may override, but must return
+	 * <CODE>NO_SYMBOL</CODE> for any lambda transition.
+	 *
+	 * @return the first input symbol, or <CODE>NO_SYMBOL</CODE>
+	 * @see edu.duke.cs.jflap.automata.Automaton#getTransitionsFromState(State,
+	 *      int)
+	 */
+	public int getFirstSymbol() {
+		return NO_SYMBOL;
+	}
+
 	/**
 	 * Returns the state this transition eminates from.
 	 *
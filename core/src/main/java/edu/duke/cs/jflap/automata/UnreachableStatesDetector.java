@@ -19,6 +19,8 @@ package edu.duke.cs.jflap.automata;
 import java.util.ArrayList;
 import java.util.List;
 
+import edu.duke.cs.jflap.automata.graph.TransitionGraph;
+
 /**
  * The unreachable states detector object can be used to find all unreachable
  * states in an automaton (i.e. all states for which there exists no path from
@@ -63,29 +65,21 @@ public class UnreachableStatesDetector {
 
 	/**
 	 * Returns all states in automaton that are unreachable from the initial
-	 * state. This method implements the standard depth first search algorithm
-	 * for directed graphs.
+	 * state. This runs a breadth first search over a
+	 * <CODE>TransitionGraph</CODE> of the automaton, so it takes time linear in
+	 * the number of states and transitions and does not recurse.
 	 *
 	 * @return all states in the automaton that are unreachable from the initial
-	 *         state.
+	 *         state, in the order of <CODE>getStates</CODE>; all of them if
+	 *         there is no initial state
 	 */
 	public List<State> getUnreachableStates() {
 		final List<State> list = new ArrayList<>();
-		final List<State> states = myAutomaton.getStates();
-		/** Create nodes for DFS. */
-		initializeNodes(states);
-
-		final Node initialNode = getNodeForState(myAutomaton.getInitialState());
-		/** Start DFS at node representing initial state. */
-		visit(initialNode);
-
-		/**
-		 * DFS has completed. Add all non-visited (white) nodes to list of
-		 * unreachable states.
-		 */
-		for (int k = 0; k < myNodes.size(); k++) {
-			if (myNodes.get(k).isWhite()) {
-				list.add(myNodes.get(k).getState());
+		final TransitionGraph graph = new TransitionGraph(myAutomaton);
+		final boolean[] reachable = graph.getReachable();
+		for (int k = 0; k < reachable.length; k++) {
+			if (!reachable[k]) {
+				list.add(graph.getState(k));
 			}
 		}
 		return list;
@@ -20,6 +20,9 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import edu.duke.cs.jflap.automata.graph.TransitionGraph;
+import edu.duke.cs.jflap.automata.turing.TuringMachine;
+
 /**
  * The useless states detector object can be used to find all states in an
  * automaton that either are not reachable from the initial state, or that
@@ -27,17 +30,45 @@ import java.util.Set;
  * of edges. It cannot be used, for example, to solve the halting problem for a
  * Turing machine.
  *
+ * Both searches run once over a <CODE>TransitionGraph</CODE>, so detection,
+ * and trimming of automata other than Turing machines, take time linear in
+ * the number of states and transitions.
+ *
+ * @see edu.duke.cs.jflap.automata.graph.TransitionGraph
  * @author Thomas Finley
  */
 public class UselessStatesDetector {
 	/**
-	 * Returns a copy of an automaton that has all useless states removed.
+	 * Returns a copy of an automaton that has all useless states removed. The
+	 * copy is built in one pass over the states and transitions that are
+	 * kept, except for Turing machines, whose states are copied by their own
+	 * clone method.
 	 *
 	 * @param a
 	 *            the automaton
 	 * @return a copy of the automaton with useless states removed
 	 */
 	public static Automaton cleanAutomaton(final Automaton a) {
+		if (a instanceof TuringMachine) {
+			return cleanTuringMachine((TuringMachine) a);
+		}
+		final Set<State> useless = getUselessStates(a);
+		final State initial = a.getInitialState();
+		final Automaton ac = a.clone(state -> state == initial || !useless.contains(state));
+		if (useless.contains(initial)) {
+			// Only the initial state is left, and at most its loops.
+			for (final Transition transition : ac.getTransitions()) {
+				ac.removeTransition(transition);
+			}
+		}
+		return ac;
+	}
+
+	/**
+	 * Returns a copy of a Turing machine that has all useless states removed,
+	 * by removing them from a clone one at a time.
+	 */
+	private static Automaton cleanTuringMachine(final TuringMachine a) {
 		final Automaton ac = a.clone();
 		final List<State> s = ac.getStates();
 		final Set<State> useless = getUselessStates(ac);
@@ -56,49 +87,24 @@ public class UselessStatesDetector {
 	}
 
 	/**
-	 * Find all states that can lead to a final state.
-	 *
-	 * @param a
-	 *            the automaton
-	 * @return the set of state that can lead to a final state
-	 */
-	private static Set<State> findFinal(final Automaton a) {
-		final Set<State> finalized = new HashSet<>();
-		finalized.addAll(a.getFinalStates());
-		boolean added = finalized.size() != 0;
-		final List<Transition> t = a.getTransitions();
-		while (added) {
-			added = false;
-			for (int i = 0; i < t.size(); i++) {
-				if (finalized.contains(t.get(i).getToState())) {
-					added = added || finalized.add(t.get(i).getFromState());
-				}
-			}
-		}
-		return finalized;
-	}
-
-	/**
-	 * Find all states reachable from an initial state.
+	 * Returns all states in an automaton that cannot lead to a final state,
+	 * whether or not they are reachable from the initial state.
 	 *
 	 * @param a
-	 *            the automaton
-	 * @return the set of states reachable from an initial state
+	 *            the automaton to find dead states in
+	 * @return a set containing all states in the automaton from which no final
+	 *         state can be reached
 	 */
-	private static Set<State> findInitial(final Automaton a) {
-		final Set<State> initialized = new HashSet<>();
-		initialized.add(a.getInitialState());
-		boolean added = true;
-
-		while (added) {
-			added = false;
-			for (final Transition transition : a.getTransitions()) {
-				if (initialized.contains(transition.getFromState())) {
-					added = added || initialized.add(transition.getToState());
-				}
+	public static Set<State> getDeadStates(final Automaton a) {
+		final TransitionGraph graph = new TransitionGraph(a);
+		final boolean[] coreachable = graph.getCoreachable();
+		final Set<State> dead = new HashSet<>();
+		for (int i = 0; i < coreachable.length; i++) {
+			if (!coreachable[i]) {
+				dead.add(graph.getState(i));
 			}
 		}
-		return initialized;
+		return dead;
 	}
 
 	/**
@@ -115,11 +121,15 @@ public class UselessStatesDetector {
 		if (a.getInitialState() == null) {
 			throw new IllegalArgumentException("Automata does not have an initial state!");
 		}
-		final Set<State> finalized = findFinal(a);
-		final Set<State> initialized = findInitial(a);
-		final Set<State> useless = new HashSet<>(a.getStates());
-		finalized.retainAll(initialized);
-		useless.removeAll(finalized);
+		final TransitionGraph graph = new TransitionGraph(a);
+		final boolean[] reachable = graph.getReachable();
+		final boolean[] coreachable = graph.getCoreachable();
+		final Set<State> useless = new HashSet<>();
+		for (int i = 0; i < reachable.length; i++) {
+			if (!reachable[i] || !coreachable[i]) {
+				useless.add(graph.getState(i));
+			}
+		}
 		return useless;
 	}
 
@@ -0,0 +1,740 @@
+/*
+*  JFLAP - Formal Languages and Automata Package
+*
+*
+*  Susan H. Rodger
+*  Computer Science Department
+*  Duke University
+*  August 27, 2009
+
+*  Copyright (c) 2002-2009
+*  All rights reserved.
+
+*  JFLAP is open source software. Please see the LICENSE for terms.
+*
+*/
+
+
+package edu.duke.cs.jflap.automata.fsa;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.TreeSet;
+
+import edu.duke.cs.jflap.automata.AutomatonSnapshot;
+import edu.duke.cs.jflap.automata.State;
+import edu.duke.cs.jflap.automata.StatePlacer;
+import edu.duke.cs.jflap.automata.Transition;
+
+/**
+ * A <CODE>CompactFSA</CODE> is a finite state automaton stored in a handful of
+ * primitive arrays, for machines too large to hold as <CODE>State</CODE> and
+ * <CODE>FSATransition</CODE> objects. States are numbered from 0, and the
+ * transitions leaving state <CODE>s</CODE> are stored, sorted by symbol and
+ * then by target, in positions <CODE>offsets[s]</CODE> up to
+ * <CODE>offsets[s + 1]</CODE> of the <CODE>symbols</CODE> and
+ * <CODE>targets</CODE> arrays. Symbols are numbers into a sorted alphabet of
+ * characters, and lambda transitions have the symbol {@link #LAMBDA}, so they
+ * come first. The final states are kept in a <CODE>BitSet</CODE>. A
+ * deterministic machine with n states and m transitions takes about 8m + 4n
+ * bytes.
+ *
+ * A compact automaton can be built from a <CODE>FiniteStateAutomaton</CODE>,
+ * or directly from its arrays with {@link #create} so that generated machines
+ * never exist as objects at all. It can be run with {@link #accepts},
+ * determinized, minimized with <CODE>HopcroftMinimizer</CODE>, and compared
+ * with <CODE>HopcroftKarpEqualityChecker</CODE>.
+ *
+ * Instances are immutable and may be shared between threads.
+ *
+ * @see edu.duke.cs.jflap.automata.fsa.HopcroftMinimizer
+ * @see edu.duke.cs.jflap.automata.graph.HopcroftKarpEqualityChecker
+ */
+public final class CompactFSA {
+	/** The symbol of a lambda transition. */
+	public static final int LAMBDA = -1;
+
+	/**
+	 * A sorted set of state numbers that can be used as a hash key.
+	 */
+	private static final class Subset {
+		private final int[] states;
+
+		private final int hash;
+
+		private Subset(final int[] states) {
+			this.states = states;
+			hash = Arrays.hashCode(states);
+		}
+
+		@Override
+		public boolean equals(final Object object) {
+			return object instanceof Subset && Arrays.equals(states, ((Subset) object).states);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+
+	/**
+	 * Transitions collected in growing parallel arrays before they are packed.
+	 */
+	private static final class Edges {
+		private int[] from = new int[16];
+
+		private int[] symbol = new int[16];
+
+		private int[] to = new int[16];
+
+		private int size;
+
+		private void add(final int s, final int a, final int t) {
+			if (size == from.length) {
+				from = Arrays.copyOf(from, size * 2);
+				symbol = Arrays.copyOf(symbol, size * 2);
+				to = Arrays.copyOf(to, size * 2);
+			}
+			from[size] = s;
+			symbol[size] = a;
+			to[size++] = t;
+		}
+	}
+
+	/**
+	 * Compiles a finite state automaton. States of the automaton are numbered
+	 * in the order they are listed. Labels longer than one character are split
+	 * into chains of extra states, numbered after the states of the automaton,
+	 * and a label containing <CODE>[</CODE> reads one character from the range
+	 * written after it, as in <CODE>CompiledNFA</CODE>.
+	 *
+	 * @param automaton
+	 *            the automaton to compile
+	 * @return the compact automaton, or <CODE>null</CODE> if the automaton
+	 *         has no initial state
+	 */
+	public static CompactFSA compile(final FiniteStateAutomaton automaton) {
+		return compile(automaton.getInitialState(), automaton.getStates(), automaton.getFinalStates(),
+				automaton.getTransitions());
+	}
+
+	/**
+	 * Compiles a snapshot of a finite state automaton, as
+	 * {@link #compile(FiniteStateAutomaton)} does.
+	 *
+	 * @param snapshot
+	 *            the snapshot to compile
+	 * @return the compact automaton, or <CODE>null</CODE> if the automaton
+	 *         has no initial state
+	 * @throws IllegalArgumentException
+	 *             if the snapshot is not of a finite state automaton
+	 */
+	public static CompactFSA compile(final AutomatonSnapshot snapshot) {
+		CompiledNFA.checkFiniteState(snapshot);
+		return compile(snapshot.getInitialState(), snapshot.getStates(), snapshot.getFinalStates(),
+				snapshot.getTransitions());
+	}
+
+	/**
+	 * Compiles the parts of a finite state automaton.
+	 */
+	private static CompactFSA compile(final State initial, final List<State> states, final List<State> finalStates,
+			final List<Transition> transitions) {
+		if (initial == null) {
+			return null;
+		}
+		final HashMap<State, Integer> index = new HashMap<>();
+		for (int i = 0; i < states.size(); i++) {
+			index.put(states.get(i), i);
+		}
+		final TreeSet<Character> letters = new TreeSet<>();
+		for (final Transition transition : transitions) {
+			final String label = ((FSATransition) transition).getLabel();
+			if (label.indexOf('[') >= 0) {
+				final char[] chars = CompiledDFA.getCharacters(label);
+				if (chars != null) {
+					for (final char c : chars) {
+						letters.add(c);
+					}
+				}
+			} else {
+				for (int i = 0; i < label.length(); i++) {
+					letters.add(label.charAt(i));
+				}
+			}
+		}
+		final char[] alphabet = new char[letters.size()];
+		int k = 0;
+		for (final Character c : letters) {
+			alphabet[k++] = c;
+		}
+		final int[] symbolOf = getSymbols(alphabet);
+
+		final Edges edges = new Edges();
+		int count = states.size();
+		for (final Transition transition : transitions) {
+			final String label = ((FSATransition) transition).getLabel();
+			final int from = index.get(transition.getFromState());
+			final int to = index.get(transition.getToState());
+			if (label.length() == 0) {
+				edges.add(from, LAMBDA, to);
+			} else if (label.indexOf('[') >= 0) {
+				final char[] chars = CompiledDFA.getCharacters(label);
+				if (chars != null) {
+					for (final char c : chars) {
+						edges.add(from, symbolOf[c], to);
+					}
+				}
+			} else {
+				int last = from;
+				for (int i = 0; i < label.length(); i++) {
+					final int next = i == label.length() - 1 ? to : count++;
+					edges.add(last, symbolOf[label.charAt(i)], next);
+					last = next;
+				}
+			}
+		}
+
+		final BitSet finals = new BitSet(count);
+		for (final State state : finalStates) {
+			finals.set(index.get(state));
+		}
+		return pack(count, index.get(initial), finals, alphabet, edges);
+	}
+
+	/**
+	 * Creates a compact automaton directly from its arrays. The transitions of
+	 * each state may be given in any order, and repeated transitions are
+	 * dropped. The arrays are copied, so the caller may reuse them.
+	 *
+	 * @param initialState
+	 *            the number of the initial state
+	 * @param finalStates
+	 *            the numbers of the final states
+	 * @param alphabet
+	 *            the characters, indexed by symbol number, in strictly
+	 *            ascending order
+	 * @param offsets
+	 *            where the transitions of each state start, with one more
+	 *            entry than there are states holding the total number of
+	 *            transitions
+	 * @param symbols
+	 *            the symbol number read by each transition, or
+	 *            {@link #LAMBDA}
+	 * @param targets
+	 *            the state each transition goes to
+	 * @return the compact automaton
+	 * @throws IllegalArgumentException
+	 *             if the arrays do not describe an automaton
+	 */
+	public static CompactFSA create(final int initialState, final BitSet finalStates, final char[] alphabet,
+			final int[] offsets, final int[] symbols, final int[] targets) {
+		final int n = offsets.length - 1;
+		if (n < 1 || initialState < 0 || initialState >= n) {
+			throw new IllegalArgumentException("Initial state " + initialState + " is not one of " + Math.max(n, 0)
+					+ " states");
+		}
+		if (finalStates.length() > n) {
+			throw new IllegalArgumentException("Final state " + (finalStates.length() - 1) + " is not one of " + n
+					+ " states");
+		}
+		for (int a = 1; a < alphabet.length; a++) {
+			if (alphabet[a - 1] >= alphabet[a]) {
+				throw new IllegalArgumentException("The alphabet is not in ascending order");
+			}
+		}
+		if (offsets[0] != 0 || offsets[n] != symbols.length || symbols.length != targets.length) {
+			throw new IllegalArgumentException("The offsets do not match the transitions");
+		}
+		final Edges edges = new Edges();
+		for (int s = 0; s < n; s++) {
+			if (offsets[s] > offsets[s + 1]) {
+				throw new IllegalArgumentException("The offsets are not in ascending order");
+			}
+			for (int i = offsets[s]; i < offsets[s + 1]; i++) {
+				if (symbols[i] < LAMBDA || symbols[i] >= alphabet.length || targets[i] < 0 || targets[i] >= n) {
+					throw new IllegalArgumentException("Transition " + i + " from state " + s + " is out of range");
+				}
+				edges.add(s, symbols[i], targets[i]);
+			}
+		}
+		return pack(n, initialState, (BitSet) finalStates.clone(), alphabet.clone(), edges);
+	}
+
+	/**
+	 * Maps each character of an alphabet to its symbol number, with -1 for
+	 * other characters.
+	 */
+	private static int[] getSymbols(final char[] alphabet) {
+		final int[] symbolOf = new int[alphabet.length == 0 ? 0 : alphabet[alphabet.length - 1] + 1];
+		Arrays.fill(symbolOf, -1);
+		for (int a = 0; a < alphabet.length; a++) {
+			symbolOf[alphabet[a]] = a;
+		}
+		return symbolOf;
+	}
+
+	/**
+	 * Sorts transitions by state, symbol and target into the compact arrays,
+	 * dropping repeated transitions.
+	 */
+	private static CompactFSA pack(final int n, final int initial, final BitSet finals, final char[] alphabet,
+			final Edges edges) {
+		final int[] offsets = new int[n + 1];
+		for (int i = 0; i < edges.size; i++) {
+			offsets[edges.from[i] + 1]++;
+		}
+		for (int s = 0; s < n; s++) {
+			offsets[s + 1] += offsets[s];
+		}
+		// Each transition as (symbol + 1) << 32 | target, so sorting a
+		// state's range sorts by symbol, then target.
+		final long[] keys = new long[edges.size];
+		final int[] fill = Arrays.copyOf(offsets, n);
+		for (int i = 0; i < edges.size; i++) {
+			keys[fill[edges.from[i]]++] = (long) (edges.symbol[i] + 1) << 32 | edges.to[i];
+		}
+
+		int m = 0;
+		boolean deterministic = true;
+		final int[] symbols = new int[edges.size];
+		final int[] targets = new int[edges.size];
+		for (int s = 0; s < n; s++) {
+			final int start = offsets[s];
+			Arrays.sort(keys, start, offsets[s + 1]);
+			offsets[s] = m;
+			for (int i = start; i < offsets[s + 1]; i++) {
+				if (i > start && keys[i] == keys[i - 1]) {
+					continue;
+				}
+				final int symbol = (int) (keys[i] >>> 32) - 1;
+				if (symbol == LAMBDA || m > offsets[s] && symbols[m - 1] == symbol) {
+					deterministic = false;
+				}
+				symbols[m] = symbol;
+				targets[m++] = (int) keys[i];
+			}
+		}
+		offsets[n] = m;
+		return new CompactFSA(initial, finals, alphabet, offsets, Arrays.copyOf(symbols, m),
+				Arrays.copyOf(targets, m), deterministic);
+	}
+
+	/** The number of the initial state. */
+	private final int myInitialState;
+
+	/** The final states. */
+	private final BitSet myFinalStates;
+
+	/** The characters, indexed by symbol number. */
+	private final char[] myAlphabet;
+
+	/** Maps a character to its symbol number, or -1 if it is not used. */
+	private final int[] mySymbolOf;
+
+	/** Where the transitions of each state start. */
+	private final int[] myOffsets;
+
+	/** The symbol read by each transition. */
+	private final int[] mySymbols;
+
+	/** The state each transition goes to. */
+	private final int[] myTargets;
+
+	/** Whether there is no lambda transition and no state has two on one symbol. */
+	private final boolean myDeterministic;
+
+	private CompactFSA(final int initialState, final BitSet finalStates, final char[] alphabet, final int[] offsets,
+			final int[] symbols, final int[] targets, final boolean deterministic) {
+		myInitialState = initialState;
+		myFinalStates = finalStates;
+		myAlphabet = alphabet;
+		mySymbolOf = getSymbols(alphabet);
+		myOffsets = offsets;
+		mySymbols = symbols;
+		myTargets = targets;
+		myDeterministic = deterministic;
+	}
+
+	/**
+	 * Runs the automaton on the input string. A deterministic automaton is
+	 * walked one state at a time; otherwise the set of active states is kept
+	 * as a list, so a run takes memory in proportion to the number of states
+	 * rather than its square.
+	 *
+	 * @param input
+	 *            the input string
+	 * @return <CODE>true</CODE> if the automaton accepts the input
+	 */
+	public boolean accepts(final CharSequence input) {
+		if (myDeterministic) {
+			int state = myInitialState;
+			for (int i = 0, n = input.length(); i < n; i++) {
+				final int symbol = getSymbol(input.charAt(i));
+				if (symbol < 0) {
+					return false;
+				}
+				state = next(state, symbol);
+				if (state < 0) {
+					return false;
+				}
+			}
+			return myFinalStates.get(state);
+		}
+
+		final int n = getStateCount();
+		final int[] marks = new int[n];
+		int[] current = new int[n];
+		int[] next = new int[n];
+		int mark = 1;
+		int size = closure(new int[] { myInitialState }, 1, current, marks, mark);
+		for (int i = 0, length = input.length(); i < length && size > 0; i++) {
+			final int symbol = getSymbol(input.charAt(i));
+			if (symbol < 0) {
+				return false;
+			}
+			int reached = 0;
+			mark++;
+			for (int j = 0; j < size; j++) {
+				final int s = current[j];
+				for (int e = find(s, symbol); e < myOffsets[s + 1] && mySymbols[e] == symbol; e++) {
+					if (marks[myTargets[e]] != mark) {
+						marks[myTargets[e]] = mark;
+						next[reached++] = myTargets[e];
+					}
+				}
+			}
+			mark++;
+			size = closure(next, reached, current, marks, mark);
+		}
+		for (int j = 0; j < size; j++) {
+			if (myFinalStates.get(current[j])) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Takes the lambda closure of some states.
+	 *
+	 * @param from
+	 *            the states
+	 * @param count
+	 *            how many of <CODE>from</CODE> to use
+	 * @param to
+	 *            the array to store the closure in
+	 * @param marks
+	 *            the mark of each state, set to <CODE>mark</CODE> for every
+	 *            state added
+	 * @param mark
+	 *            a mark no state has yet
+	 * @return the number of states in the closure
+	 */
+	private int closure(final int[] from, final int count, final int[] to, final int[] marks, final int mark) {
+		int size = 0;
+		for (int i = 0; i < count; i++) {
+			if (marks[from[i]] != mark) {
+				marks[from[i]] = mark;
+				to[size++] = from[i];
+			}
+		}
+		// The closure itself is the work list.
+		for (int i = 0; i < size; i++) {
+			final int s = to[i];
+			for (int e = myOffsets[s]; e < myOffsets[s + 1] && mySymbols[e] == LAMBDA; e++) {
+				if (marks[myTargets[e]] != mark) {
+					marks[myTargets[e]] = mark;
+					to[size++] = myTargets[e];
+				}
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Returns an equivalent deterministic automaton by the subset
+	 * construction, following only the sets reachable from the initial one.
+	 * The empty set is left out, so the result may have missing transitions.
+	 *
+	 * @return this automaton if it is already deterministic, or else a new
+	 *         deterministic automaton
+	 */
+	public CompactFSA determinize() {
+		if (myDeterministic) {
+			return this;
+		}
+		final int n = getStateCount();
+		final int k = myAlphabet.length;
+		final int[] marks = new int[n];
+		final int[] buffer = new int[n];
+		final int[] reached = new int[n];
+		int mark = 1;
+
+		final List<int[]> sets = new ArrayList<>();
+		final HashMap<Subset, Integer> index = new HashMap<>();
+		final BitSet finals = new BitSet();
+		final Edges edges = new Edges();
+		int size = closure(new int[] { myInitialState }, 1, buffer, marks, mark);
+		sets.add(toSet(buffer, size));
+		index.put(new Subset(sets.get(0)), 0);
+		for (int d = 0; d < sets.size(); d++) {
+			final int[] set = sets.get(d);
+			for (final int s : set) {
+				if (myFinalStates.get(s)) {
+					finals.set(d);
+					break;
+				}
+			}
+			for (int a = 0; a < k; a++) {
+				int count = 0;
+				mark++;
+				for (final int s : set) {
+					for (int e = find(s, a); e < myOffsets[s + 1] && mySymbols[e] == a; e++) {
+						if (marks[myTargets[e]] != mark) {
+							marks[myTargets[e]] = mark;
+							reached[count++] = myTargets[e];
+						}
+					}
+				}
+				if (count == 0) {
+					continue;
+				}
+				mark++;
+				size = closure(reached, count, buffer, marks, mark);
+				final Subset key = new Subset(toSet(buffer, size));
+				Integer target = index.get(key);
+				if (target == null) {
+					target = sets.size();
+					sets.add(key.states);
+					index.put(key, target);
+				}
+				edges.add(d, a, target);
+			}
+		}
+		return pack(sets.size(), 0, finals, myAlphabet, edges);
+	}
+
+	/**
+	 * Returns the position of the first transition of a state on a symbol, or
+	 * of the first one on a later symbol if there is none.
+	 */
+	private int find(final int state, final int symbol) {
+		int low = myOffsets[state];
+		int high = myOffsets[state + 1];
+		while (low < high) {
+			final int middle = (low + high) >>> 1;
+			if (mySymbols[middle] < symbol) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Returns the number of symbols in the alphabet.
+	 *
+	 * @return the size of the alphabet
+	 */
+	public int getAlphabetSize() {
+		return myAlphabet.length;
+	}
+
+	/**
+	 * Returns the final states. The set is a copy.
+	 *
+	 * @return the numbers of the final states
+	 */
+	public BitSet getFinalStates() {
+		return (BitSet) myFinalStates.clone();
+	}
+
+	/**
+	 * Returns the number of the initial state.
+	 *
+	 * @return the number of the initial state
+	 */
+	public int getInitialState() {
+		return myInitialState;
+	}
+
+	/**
+	 * Returns the number of states.
+	 *
+	 * @return the number of states
+	 */
+	public int getStateCount() {
+		return myOffsets.length - 1;
+	}
+
+	/**
+	 * Returns the symbol number of a character.
+	 *
+	 * @param c
+	 *            the character
+	 * @return the symbol number, or -1 if no transition reads the character
+	 */
+	public int getSymbol(final char c) {
+		return c < mySymbolOf.length ? mySymbolOf[c] : -1;
+	}
+
+	/**
+	 * Returns the character with this symbol number.
+	 *
+	 * @param symbol
+	 *            the symbol number
+	 * @return the character
+	 */
+	public char getSymbolCharacter(final int symbol) {
+		return myAlphabet[symbol];
+	}
+
+	/**
+	 * Returns the number of transitions.
+	 *
+	 * @return the number of transitions
+	 */
+	public int getTransitionCount() {
+		return myTargets.length;
+	}
+
+	/**
+	 * Returns the position of the first transition leaving a state. The
+	 * transitions of state <CODE>s</CODE> are those from
+	 * <CODE>getTransitionStart(s)</CODE> up to
+	 * <CODE>getTransitionStart(s + 1)</CODE>.
+	 *
+	 * @param state
+	 *            the state number, or the number of states for the end of
+	 *            the last state's transitions
+	 * @return the position of the state's first transition
+	 */
+	public int getTransitionStart(final int state) {
+		return myOffsets[state];
+	}
+
+	/**
+	 * Returns the symbol a transition reads.
+	 *
+	 * @param transition
+	 *            the position of the transition
+	 * @return the symbol number, or {@link #LAMBDA}
+	 */
+	public int getTransitionSymbol(final int transition) {
+		return mySymbols[transition];
+	}
+
+	/**
+	 * Returns the state a transition goes to.
+	 *
+	 * @param transition
+	 *            the position of the transition
+	 * @return the target state number
+	 */
+	public int getTransitionTarget(final int transition) {
+		return myTargets[transition];
+	}
+
+	/**
+	 * Returns if the automaton has no lambda transitions and no state with two
+	 * transitions on the same symbol.
+	 *
+	 * @return <CODE>true</CODE> if the automaton is deterministic
+	 */
+	public boolean isDeterministic() {
+		return myDeterministic;
+	}
+
+	/**
+	 * Returns if the numbered state is final.
+	 *
+	 * @param state
+	 *            the state number
+	 * @return <CODE>true</CODE> if the state is final
+	 */
+	public boolean isFinalState(final int state) {
+		return myFinalStates.get(state);
+	}
+
+	/**
+	 * Returns the first state reached from a state on a symbol, which is the
+	 * only one if the automaton is deterministic.
+	 *
+	 * @param state
+	 *            the state number
+	 * @param symbol
+	 *            the symbol number
+	 * @return the successor state number, or -1 if there is no transition
+	 */
+	public int next(final int state, final int symbol) {
+		final int e = find(state, symbol);
+		return e < myOffsets[state + 1] && mySymbols[e] == symbol ? myTargets[e] : -1;
+	}
+
+	/**
+	 * Builds a finite state automaton from this one. States are given IDs in
+	 * the order of their numbers.
+	 *
+	 * @return a new finite state automaton
+	 */
+	public FiniteStateAutomaton toAutomaton() {
+		final FiniteStateAutomaton automaton = new FiniteStateAutomaton();
+		final StatePlacer sp = new StatePlacer();
+		final State[] states = new State[getStateCount()];
+		for (int s = 0; s < states.length; s++) {
+			states[s] = automaton.createStateWithId(sp.getPointForState(automaton), s);
+			if (myFinalStates.get(s)) {
+				automaton.addFinalState(states[s]);
+			}
+		}
+		automaton.setInitialState(states[myInitialState]);
+		for (int s = 0; s < states.length; s++) {
+			for (int e = myOffsets[s]; e < myOffsets[s + 1]; e++) {
+				final String label = mySymbols[e] == LAMBDA ? "" : Character.toString(myAlphabet[mySymbols[e]]);
+				automaton.addTransition(new FSATransition(states[s], states[myTargets[e]], label));
+			}
+		}
+		return automaton;
+	}
+
+	/**
+	 * Returns the transition table of this automaton as a
+	 * <CODE>CompiledDFA</CODE>, which takes a cell for every state and symbol
+	 * but steps without searching.
+	 *
+	 * @return the compiled automaton, or <CODE>null</CODE> if this automaton is
+	 *         not deterministic
+	 */
+	public CompiledDFA toCompiledDFA() {
+		if (!myDeterministic) {
+			return null;
+		}
+		final int n = getStateCount();
+		final int k = myAlphabet.length;
+		final int[] table = new int[n * k];
+		Arrays.fill(table, CompiledDFA.NO_STATE);
+		final boolean[] finals = new boolean[n];
+		for (int s = 0; s < n; s++) {
+			finals[s] = myFinalStates.get(s);
+			for (int e = myOffsets[s]; e < myOffsets[s + 1]; e++) {
+				table[s * k + mySymbols[e]] = myTargets[e];
+			}
+		}
+		return CompiledDFA.create(myInitialState, finals, myAlphabet, table);
+	}
+
+	/**
+	 * Copies the first states of a buffer into a sorted set.
+	 */
+	private static int[] toSet(final int[] buffer, final int size) {
+		final int[] set = Arrays.copyOf(buffer, size);
+		Arrays.sort(set);
+		return set;
+	}
+}
@@ -0,0 +1,332 @@
+/*
+*  JFLAP - Formal Languages and Automata Package
+*
+*
+*  Susan H. Rodger
+*  Computer Science Department
+*  Duke University
+*  August 27, 2009
+
+*  Copyright (c) 2002-2009
+*  All rights reserved.
+
+*  JFLAP is open source software. Please see the LICENSE for terms.
+*
+*/
+
+package edu.duke.cs.jflap.automata.fsa;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.TreeSet;
+
+import edu.duke.cs.jflap.automata.AutomatonSnapshot;
+import edu.duke.cs.jflap.automata.State;
+import edu.duke.cs.jflap.automata.Transition;
+
+/**
+ * A <CODE>CompiledDFA</CODE> is a deterministic finite state automaton
+ * flattened into a dense transition table. States are numbered in order of
+ * ascending state IDs, the characters that appear on transitions are interned
+ * into symbol numbers, and the successor of state <CODE>s</CODE> on symbol
+ * <CODE>c</CODE> is stored at <CODE>table[s * alphabetSize + c]</CODE>, or -1
+ * if there is no such transition.
+ *
+ * Instances are immutable and may be shared between threads. They are a
+ * snapshot of the automaton at the time of compilation, and do not follow
+ * later edits to it. Instances built by <CODE>FSAOperations</CODE> have no
+ * original automaton at all.
+ */
+public final class CompiledDFA {
+	/** The value stored in the table for a missing transition. */
+	public static final int NO_STATE = -1;
+
+	/**
+	 * Compiles a finite state automaton into a transition table. Only
+	 * automata that are deterministic over single characters can be compiled:
+	 * there must be an initial state, no lambda transitions, every label must
+	 * be a single character or a character range such as <CODE>[a-z]</CODE>,
+	 * and no state may have two transitions on the same character to
+	 * different states.
+	 *
+	 * @param automaton
+	 *            the automaton to compile
+	 * @return the compiled automaton, or <CODE>null</CODE> if the automaton
+	 *         cannot be compiled
+	 */
+	public static CompiledDFA compile(final FiniteStateAutomaton automaton) {
+		return compile(automaton.getInitialState(), automaton.getStates(), automaton.getFinalStates(),
+				automaton.getTransitions());
+	}
+
+	/**
+	 * Compiles a snapshot of a finite state automaton into a transition table,
+	 * under the same conditions as {@link #compile(FiniteStateAutomaton)}.
+	 *
+	 * @param snapshot
+	 *            the snapshot to compile
+	 * @return the compiled automaton, or <CODE>null</CODE> if the automaton
+	 *         cannot be compiled
+	 * @throws IllegalArgumentException
+	 *             if the snapshot is not of a finite state automaton
+	 */
+	public static CompiledDFA compile(final AutomatonSnapshot snapshot) {
+		CompiledNFA.checkFiniteState(snapshot);
+		return compile(snapshot.getInitialState(), snapshot.getStates(), snapshot.getFinalStates(),
+				snapshot.getTransitions());
+	}
+
+	/**
+	 * Compiles the parts of a finite state automaton into a transition table.
+	 */
+	private static CompiledDFA compile(final State initial, final List<State> states, final List<State> finalStates,
+			final List<Transition> transitions) {
+		if (initial == null) {
+			return null;
+		}
+		final HashMap<State, Integer> index = new HashMap<>();
+		for (int i = 0; i < states.size(); i++) {
+			index.put(states.get(i), i);
+		}
+
+		// Intern every character that appears on a transition.
+		final TreeSet<Character> letters = new TreeSet<>();
+		for (final Transition transition : transitions) {
+			final char[] chars = getCharacters(((FSATransition) transition).getLabel());
+			if (chars == null) {
+				return null;
+			}
+			for (final char c : chars) {
+				letters.add(c);
+			}
+		}
+		final char[] alphabet = new char[letters.size()];
+		int maxChar = -1;
+		int k = 0;
+		for (final Character c : letters) {
+			alphabet[k++] = c;
+			maxChar = c;
+		}
+		final int[] symbols = new int[maxChar + 1];
+		Arrays.fill(symbols, NO_STATE);
+		for (int i = 0; i < alphabet.length; i++) {
+			symbols[alphabet[i]] = i;
+		}
+
+		// Fill in the table, refusing any nondeterminism.
+		final int[] table = new int[states.size() * alphabet.length];
+		Arrays.fill(table, NO_STATE);
+		for (final Transition transition : transitions) {
+			final int from = index.get(transition.getFromState());
+			final int to = index.get(transition.getToState());
+			for (final char c : getCharacters(((FSATransition) transition).getLabel())) {
+				final int cell = from * alphabet.length + symbols[c];
+				if (table[cell] != NO_STATE && table[cell] != to) {
+					return null;
+				}
+				table[cell] = to;
+			}
+		}
+
+		final boolean[] finals = new boolean[states.size()];
+		for (final State state : finalStates) {
+			finals[index.get(state)] = true;
+		}
+		return new CompiledDFA(states.toArray(new State[states.size()]), index.get(initial), finals, alphabet,
+				symbols, table);
+	}
+
+	/**
+	 * Creates a compiled automaton directly from its table, with no original
+	 * automaton behind it.
+	 *
+	 * @param initialState
+	 *            the number of the initial state
+	 * @param finalStates
+	 *            whether each numbered state is final
+	 * @param alphabet
+	 *            the characters, indexed by symbol number, in ascending order
+	 * @param table
+	 *            the transition table, indexed by state * alphabet size +
+	 *            symbol
+	 * @return the compiled automaton
+	 */
+	static CompiledDFA create(final int initialState, final boolean[] finalStates, final char[] alphabet,
+			final int[] table) {
+		final int[] symbols = new int[alphabet.length == 0 ? 0 : alphabet[alphabet.length - 1] + 1];
+		Arrays.fill(symbols, NO_STATE);
+		for (int i = 0; i < alphabet.length; i++) {
+			symbols[alphabet[i]] = i;
+		}
+		return new CompiledDFA(new State[0], initialState, finalStates, alphabet, symbols, table);
+	}
+
+	/**
+	 * Returns the characters a transition label reads, following the same
+	 * interpretation as <CODE>FSAStepWithClosureSimulator</CODE>: a label
+	 * containing <CODE>[</CODE> reads any single character in the range
+	 * written after it, and any other label is read literally.
+	 *
+	 * @param label
+	 *            the transition label
+	 * @return the characters the label reads, or <CODE>null</CODE> if the
+	 *         label is a lambda label or reads more than one character
+	 */
+	static char[] getCharacters(final String label) {
+		final int bracket = label.indexOf('[');
+		if (bracket >= 0) {
+			if (bracket + 3 >= label.length()) {
+				return null;
+			}
+			final char low = label.charAt(bracket + 1);
+			final char high = label.charAt(bracket + 3);
+			final char[] chars = new char[Math.max(0, high - low + 1)];
+			for (int i = 0; i < chars.length; i++) {
+				chars[i] = (char) (low + i);
+			}
+			return chars;
+		}
+		if (label.length() != 1) {
+			return null;
+		}
+		return new char[] { label.charAt(0) };
+	}
+
+	/** The states of the original automaton, indexed by state number. */
+	private final State[] myStates;
+
+	/** The number of the initial state. */
+	private final int myInitialState;
+
+	/** Whether each numbered state is final. */
+	private final boolean[] myFinalStates;
+
+	/** The interned characters, indexed by symbol number. */
+	private final char[] myAlphabet;
+
+	/** Maps a character to its symbol number, or -1 if it is not interned. */
+	private final int[] mySymbols;
+
+	/** The transition table, indexed by state * alphabet size + symbol. */
+	private final int[] myTable;
+
+	private CompiledDFA(final State[] states, final int initialState, final boolean[] finalStates,
+			final char[] alphabet, final int[] symbols, final int[] table) {
+		myStates = states;
+		myInitialState = initialState;
+		myFinalStates = finalStates;
+		myAlphabet = alphabet;
+		mySymbols = symbols;
+		myTable = table;
+	}
+
+	/**
+	 * Runs the table on the input string. This allocates nothing.
+	 *
+	 * @param input
+	 *            the input string
+	 * @return <CODE>true</CODE> if the automaton accepts the input
+	 */
+	public boolean accepts(final CharSequence input) {
+		final int[] table = myTable;
+		final int[] symbols = mySymbols;
+		final int size = myAlphabet.length;
+		int state = myInitialState;
+		for (int i = 0, n = input.length(); i < n; i++) {
+			final char c = input.charAt(i);
+			if (c >= symbols.length || symbols[c] == NO_STATE) {
+				return false;
+			}
+			state = table[state * size + symbols[c]];
+			if (state == NO_STATE) {
+				return false;
+			}
+		}
+		return myFinalStates[state];
+	}
+
+	/**
+	 * Returns the number of symbols in the interned alphabet.
+	 *
+	 * @return the size of the alphabet
+	 */
+	public int getAlphabetSize() {
+		return myAlphabet.length;
+	}
+
+	/**
+	 * Returns the number of the initial state.
+	 *
+	 * @return the number of the initial state
+	 */
+	public int getInitialState() {
+		return myInitialState;
+	}
+
+	/**
+	 * Returns the state of the original automaton with this number.
+	 *
+	 * @param state
+	 *            the state number
+	 * @return the original state, or <CODE>null</CODE> if there is none
+	 */
+	public State getState(final int state) {
+		return state < myStates.length ? myStates[state] : null;
+	}
+
+	/**
+	 * Returns the number of states.
+	 *
+	 * @return the number of states
+	 */
+	public int getStateCount() {
+		return myFinalStates.length;
+	}
+
+	/**
+	 * Returns the symbol number of a character.
+	 *
+	 * @param c
+	 *            the character
+	 * @return the symbol number, or -1 if no transition reads the character
+	 */
+	public int getSymbol(final char c) {
+		return c < mySymbols.length ? mySymbols[c] : NO_STATE;
+	}
+
+	/**
+	 * Returns the character with this symbol number.
+	 *
+	 * @param symbol
+	 *            the symbol number
+	 * @return the character
+	 */
+	public char getSymbolCharacter(final int symbol) {
+		return myAlphabet[symbol];
+	}
+
+	/**
+	 * Returns if the numbered state is final.
+	 *
+	 * @param state
+	 *            the state number
+	 * @return <CODE>true</CODE> if the state is final
+	 */
+	public boolean isFinalState(final int state) {
+		return myFinalStates[state];
+	}
+
+	/**
+	 * Returns the successor of a state on a symbol.
+	 *
+	 * @param state
+	 *            the state number
+	 * @param symbol
+	 *            the symbol number
+	 * @return the successor state number, or -1 if there is no transition
+	 */
+	public int next(final int state, final int symbol) {
+		return myTable[state * myAlphabet.length + symbol];
+	}
+}
@@ -0,0 +1,414 @@
+/*
+*  JFLAP - Formal Languages and Automata Package
+*
+*
+*  Susan H. Rodger
+*  Computer Science Department
+*  Duke University
+*  August 27, 2009
+
+*  Copyright (c) 2002-2009
+*  All rights reserved.
+
+*  JFLAP is open source software. Please see the LICENSE for terms.
+*
+*/
+
+package edu.duke.cs.jflap.automata.fsa;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.TreeSet;
+
+import edu.duke.cs.jflap.automata.AutomatonSnapshot;
+import edu.duke.cs.jflap.automata.State;
+import edu.duke.cs.jflap.automata.Transition;
+
+/**
+ * A <CODE>CompiledNFA</CODE> is a finite state automaton with its states
+ * numbered once and its lambda closures precomputed, so that the whole set of
+ * active states can be advanced at once. Sets of states are bitsets stored in
+ * <CODE>long</CODE> arrays of {@link #getWordCount} words, and stepping a set
+ * on a symbol ORs together the closures of every successor.
+ *
+ * Labels longer than one character are split into chains of internal states,
+ * numbered after the states of the original automaton, so that every compiled
+ * transition reads exactly one character. A label containing <CODE>[</CODE>
+ * reads one character from the range written after it.
+ *
+ * Instances are immutable and may be shared between threads. They are a
+ * snapshot of the automaton at the time of compilation, and do not follow
+ * later edits to it.
+ */
+public final class CompiledNFA {
+	/**
+	 * Compiles a finite state automaton.
+	 *
+	 * @param automaton
+	 *            the automaton to compile
+	 * @return the compiled automaton, or <CODE>null</CODE> if the automaton
+	 *         has no initial state
+	 */
+	public static CompiledNFA compile(final FiniteStateAutomaton automaton) {
+		return compile(automaton.getInitialState(), automaton.getStates(), automaton.getFinalStates(),
+				automaton.getTransitions());
+	}
+
+	/**
+	 * Compiles a snapshot of a finite state automaton.
+	 *
+	 * @param snapshot
+	 *            the snapshot to compile
+	 * @return the compiled automaton, or <CODE>null</CODE> if the automaton
+	 *         has no initial state
+	 * @throws IllegalArgumentException
+	 *             if the snapshot is not of a finite state automaton
+	 */
+	public static CompiledNFA compile(final AutomatonSnapshot snapshot) {
+		checkFiniteState(snapshot);
+		return compile(snapshot.getInitialState(), snapshot.getStates(), snapshot.getFinalStates(),
+				snapshot.getTransitions());
+	}
+
+	/**
+	 * Checks that a snapshot was taken of a finite state automaton.
+	 *
+	 * @param snapshot
+	 *            the snapshot
+	 * @throws IllegalArgumentException
+	 *             if the snapshot is not of a finite state automaton
+	 */
+	static void checkFiniteState(final AutomatonSnapshot snapshot) {
+		if (!FiniteStateAutomaton.class.isAssignableFrom(snapshot.getAutomatonClass())) {
+			throw new IllegalArgumentException(
+					"Not a finite state automaton: " + snapshot.getAutomatonClass().getSimpleName());
+		}
+	}
+
+	/**
+	 * Compiles the parts of a finite state automaton.
+	 */
+	private static CompiledNFA compile(final State initial, final List<State> states, final List<State> finalStates,
+			final List<Transition> transitions) {
+		if (initial == null) {
+			return null;
+		}
+		final HashMap<State, Integer> index = new HashMap<>();
+		for (int i = 0; i < states.size(); i++) {
+			index.put(states.get(i), i);
+		}
+
+		// Break every transition into single character edges.
+		final TreeSet<Character> letters = new TreeSet<>();
+		final List<int[]> edges = new ArrayList<>();
+		final List<int[]> lambdas = new ArrayList<>();
+		int count = states.size();
+		for (final Transition transition : transitions) {
+			final String label = ((FSATransition) transition).getLabel();
+			final int from = index.get(transition.getFromState());
+			final int to = index.get(transition.getToState());
+			if (label.length() == 0) {
+				lambdas.add(new int[] { from, to });
+			} else if (label.indexOf('[') >= 0) {
+				final char[] chars = CompiledDFA.getCharacters(label);
+				if (chars != null) {
+					for (final char c : chars) {
+						letters.add(c);
+						edges.add(new int[] { from, c, to });
+					}
+				}
+			} else {
+				int last = from;
+				for (int i = 0; i < label.length(); i++) {
+					final int next = i == label.length() - 1 ? to : count++;
+					letters.add(label.charAt(i));
+					edges.add(new int[] { last, label.charAt(i), next });
+					last = next;
+				}
+			}
+		}
+
+		final char[] alphabet = new char[letters.size()];
+		int maxChar = -1;
+		int k = 0;
+		for (final Character c : letters) {
+			alphabet[k++] = c;
+			maxChar = c;
+		}
+		final int[] symbols = new int[maxChar + 1];
+		Arrays.fill(symbols, -1);
+		for (int i = 0; i < alphabet.length; i++) {
+			symbols[alphabet[i]] = i;
+		}
+
+		// Successor lists, indexed by state * alphabet size + symbol.
+		final int[] offsets = new int[count * alphabet.length + 1];
+		for (final int[] edge : edges) {
+			offsets[edge[0] * alphabet.length + symbols[edge[1]] + 1]++;
+		}
+		for (int i = 1; i < offsets.length; i++) {
+			offsets[i] += offsets[i - 1];
+		}
+		final int[] targets = new int[edges.size()];
+		final int[] fill = Arrays.copyOf(offsets, offsets.length - 1);
+		for (final int[] edge : edges) {
+			targets[fill[edge[0] * alphabet.length + symbols[edge[1]]]++] = edge[2];
+		}
+
+		// Lambda closures, one bitset per state.
+		final int words = (count + 63) >>> 6;
+		final int[] lambdaOffsets = new int[count + 1];
+		for (final int[] lambda : lambdas) {
+			lambdaOffsets[lambda[0] + 1]++;
+		}
+		for (int i = 1; i <= count; i++) {
+			lambdaOffsets[i] += lambdaOffsets[i - 1];
+		}
+		final int[] lambdaTargets = new int[lambdas.size()];
+		final int[] lambdaFill = Arrays.copyOf(lambdaOffsets, count);
+		for (final int[] lambda : lambdas) {
+			lambdaTargets[lambdaFill[lambda[0]]++] = lambda[1];
+		}
+		final long[] closures = new long[count * words];
+		final int[] stack = new int[count];
+		for (int s = 0; s < count; s++) {
+			final int base = s * words;
+			int top = 0;
+			stack[top++] = s;
+			closures[base + (s >>> 6)] |= 1L << s;
+			while (top > 0) {
+				final int t = stack[--top];
+				for (int i = lambdaOffsets[t]; i < lambdaOffsets[t + 1]; i++) {
+					final int u = lambdaTargets[i];
+					if ((closures[base + (u >>> 6)] & (1L << u)) == 0) {
+						closures[base + (u >>> 6)] |= 1L << u;
+						stack[top++] = u;
+					}
+				}
+			}
+		}
+
+		final long[] finals = new long[words];
+		for (final State state : finalStates) {
+			final int f = index.get(state);
+			finals[f >>> 6] |= 1L << f;
+		}
+		return new CompiledNFA(states.toArray(new State[states.size()]), count, index.get(initial), finals,
+				alphabet, symbols, offsets, targets, closures);
+	}
+
+	/** The states of the original automaton, indexed by state number. */
+	private final State[] myStates;
+
+	/** The number of states, including internal ones. */
+	private final int myStateCount;
+
+	/** The number of <CODE>long</CODE> words in a state set. */
+	private final int myWords;
+
+	/** The number of the initial state. */
+	private final int myInitialState;
+
+	/** The set of final states. */
+	private final long[] myFinalStates;
+
+	/** The interned characters, indexed by symbol number. */
+	private final char[] myAlphabet;
+
+	/** Maps a character to its symbol number, or -1 if it is not interned. */
+	private final int[] mySymbols;
+
+	/** Where the successors of each state and symbol start in the targets. */
+	private final int[] myOffsets;
+
+	/** The successor states, grouped by state and symbol. */
+	private final int[] myTargets;
+
+	/** The lambda closure of every state, one set after the other. */
+	private final long[] myClosures;
+
+	private CompiledNFA(final State[] states, final int stateCount, final int initialState,
+			final long[] finalStates, final char[] alphabet, final int[] symbols, final int[] offsets,
+			final int[] targets, final long[] closures) {
+		myStates = states;
+		myStateCount = stateCount;
+		myWords = (stateCount + 63) >>> 6;
+		myInitialState = initialState;
+		myFinalStates = finalStates;
+		myAlphabet = alphabet;
+		mySymbols = symbols;
+		myOffsets = offsets;
+		myTargets = targets;
+		myClosures = closures;
+	}
+
+	/**
+	 * Runs the automaton on the input string.
+	 *
+	 * @param input
+	 *            the input string
+	 * @return <CODE>true</CODE> if the automaton accepts the input
+	 */
+	public boolean accepts(final CharSequence input) {
+		long[] current = getInitialSet();
+		long[] next = new long[myWords];
+		for (int i = 0, n = input.length(); i < n; i++) {
+			final int symbol = getSymbol(input.charAt(i));
+			if (symbol < 0 || !step(current, symbol, next)) {
+				return false;
+			}
+			final long[] swap = current;
+			current = next;
+			next = swap;
+		}
+		return isAccepting(current);
+	}
+
+	/**
+	 * Adds the lambda closure of a state to a set.
+	 *
+	 * @param state
+	 *            the state number
+	 * @param set
+	 *            the set to add the closure to
+	 */
+	public void addClosure(final int state, final long[] set) {
+		final int base = state * myWords;
+		for (int w = 0; w < myWords; w++) {
+			set[w] |= myClosures[base + w];
+		}
+	}
+
+	/**
+	 * Returns the number of symbols in the interned alphabet.
+	 *
+	 * @return the size of the alphabet
+	 */
+	public int getAlphabetSize() {
+		return myAlphabet.length;
+	}
+
+	/**
+	 * Returns a new set holding the lambda closure of the initial state.
+	 *
+	 * @return the initial set of states
+	 */
+	public long[] getInitialSet() {
+		final long[] set = new long[myWords];
+		addClosure(myInitialState, set);
+		return set;
+	}
+
+	/**
+	 * Returns the state of the original automaton with this number.
+	 *
+	 * @param state
+	 *            the state number
+	 * @return the original state, or <CODE>null</CODE> for internal states
+	 */
+	public State getState(final int state) {
+		return state < myStates.length ? myStates[state] : null;
+	}
+
+	/**
+	 * Returns the number of states, including the internal states created for
+	 * labels longer than one character.
+	 *
+	 * @return the number of states
+	 */
+	public int getStateCount() {
+		return myStateCount;
+	}
+
+	/**
+	 * Returns the symbol number of a character.
+	 *
+	 * @param c
+	 *            the character
+	 * @return the symbol number, or -1 if no transition reads the character
+	 */
+	public int getSymbol(final char c) {
+		return c < mySymbols.length ? mySymbols[c] : -1;
+	}
+
+	/**
+	 * Returns the character with this symbol number.
+	 *
+	 * @param symbol
+	 *            the symbol number
+	 * @return the character
+	 */
+	public char getSymbolCharacter(final int symbol) {
+		return myAlphabet[symbol];
+	}
+
+	/**
+	 * Returns the number of <CODE>long</CODE> words in a state set.
+	 *
+	 * @return the length of a state set array
+	 */
+	public int getWordCount() {
+		return myWords;
+	}
+
+	/**
+	 * Returns if a set of states contains a final state.
+	 *
+	 * @param set
+	 *            the set of states
+	 * @return <CODE>true</CODE> if any state in the set is final
+	 */
+	public boolean isAccepting(final long[] set) {
+		for (int w = 0; w < myWords; w++) {
+			if ((set[w] & myFinalStates[w]) != 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns if the numbered state is final.
+	 *
+	 * @param state
+	 *            the state number
+	 * @return <CODE>true</CODE> if the state is final
+	 */
+	public boolean isFinalState(final int state) {
+		return (myFinalStates[state >>> 6] & (1L << state)) != 0;
+	}
+
+	/**
+	 * Advances a set of states on a symbol, taking the lambda closure of every
+	 * state reached.
+	 *
+	 * @param from
+	 *            the current set of states
+	 * @param symbol
+	 *            the symbol number read
+	 * @param to
+	 *            the array to store the next set of states in; it is cleared
+	 *            first, and must not be <CODE>from</CODE>
+	 * @return <CODE>true</CODE> if the next set is not empty
+	 */
+	public boolean step(final long[] from, final int symbol, final long[] to) {
+		Arrays.fill(to, 0L);
+		boolean any = false;
+		final int size = myAlphabet.length;
+		for (int w = 0; w < myWords; w++) {
+			long bits = from[w];
+			while (bits != 0) {
+				final int s = (w << 6) + Long.numberOfTrailingZeros(bits);
+				bits &= bits - 1;
+				final int cell = s * size + symbol;
+				for (int i = myOffsets[cell]; i < myOffsets[cell + 1]; i++) {
+					addClosure(myTargets[i], to);
+					any = true;
+				}
+			}
+		}
+		return any;
+	}
+}
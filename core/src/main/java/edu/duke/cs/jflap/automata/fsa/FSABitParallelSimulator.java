@@ -0,0 +1,70 @@
+/*
+*  JFLAP - Formal Languages and Automata Package
+*
+*
+*  Susan H. Rodger
+*  Computer Science Department
+*  Duke University
+*  August 27, 2009
+
+*  Copyright (c) 2002-2009
+*  All rights reserved.
+
+*  JFLAP is open source software. Please see the LICENSE for terms.
+*
+*/
+
+package edu.duke.cs.jflap.automata.fsa;
+
+import edu.duke.cs.jflap.automata.Automaton;
+
+/**
+ * The FSA bit parallel simulator runs a nondeterministic finite state
+ * automaton by tracking the set of every state it could be in, rather than one
+ * configuration per path. The set is advanced one input symbol at a time from
+ * a <CODE>CompiledNFA</CODE>, whose lambda closures are computed only once.
+ * Stepping through configurations works exactly as in the
+ * <CODE>FSAStepWithClosureSimulator</CODE>.
+ *
+ * @see edu.duke.cs.jflap.automata.fsa.CompiledNFA
+ */
+public class FSABitParallelSimulator extends FSAStepWithClosureSimulator {
+	/** The compiled form of the automaton. */
+	private final CompiledNFA myNFA;
+
+	/**
+	 * Creates a bit parallel simulator for the given automaton.
+	 *
+	 * @param automaton
+	 *            the machine to simulate
+	 * @param nfa
+	 *            the compiled form of <CODE>automaton</CODE>
+	 */
+	public FSABitParallelSimulator(final Automaton automaton, final CompiledNFA nfa) {
+		super(automaton);
+		myNFA = nfa;
+	}
+
+	/**
+	 * Returns the compiled form of the automaton.
+	 *
+	 * @return the compiled automaton
+	 */
+	public CompiledNFA getCompiledNFA() {
+		return myNFA;
+	}
+
+	/**
+	 * Runs the automaton on the input string. No configurations are recorded,
+	 * so <CODE>isAccepted</CODE> is not meaningful afterwards.
+	 *
+	 * @param input
+	 *            the input string to be run on the automaton
+	 * @return true if the automaton accepts the input
+	 */
+	@Override
+	public boolean simulateInput(final String input) {
+		myConfigurations.clear();
+		return myNFA.accepts(input);
+	}
+}
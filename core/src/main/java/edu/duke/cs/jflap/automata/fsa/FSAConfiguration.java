@@ -24,7 +24,8 @@ import edu.duke.cs.jflap.automata.State;
  * An <CODE>FSAConfiguration</CODE> object is a <CODE>Configuration</CODE>
  * object with an additional field for the input string. The current state of
  * the automaton and the unprocessed input are the only necessary data for the
- * simulation of an FSA.
+ * simulation of an FSA. The unprocessed input is kept as a position in the
+ * total input, which every configuration of a simulation shares.
  *
  * @author Ryan Cavalcante
  */
@@ -32,8 +33,8 @@ public class FSAConfiguration extends Configuration {
 	/** The total input. */
 	private final String myInput;
 
-	/** The unprocessed input. */
-	private String myUnprocessedInput;
+	/** The number of input characters already processed. */
+	private int myPosition;
 
 	/**
 	 * Instantiates a new FSAConfiguration.
@@ -50,9 +51,27 @@ public class FSAConfiguration extends Configuration {
 	 */
 	public FSAConfiguration(final State state, final FSAConfiguration parent, final String input,
 			final String unprocessed) {
+		this(state, parent, input, input.length() - unprocessed.length());
+	}
+
+	/**
+	 * Instantiates a new FSAConfiguration.
+	 *
+	 * @param state
+	 *            the state the automaton is currently in.
+	 * @param parent
+	 *            the configuration that is the immediate ancestor of this
+	 *            configuration
+	 * @param input
+	 *            the input
+	 * @param position
+	 *            the number of input characters already processed
+	 */
+	public FSAConfiguration(final State state, final FSAConfiguration parent, final String input,
+			final int position) {
 		super(state, parent);
 		myInput = input;
-		myUnprocessedInput = unprocessed;
+		myPosition = position;
 	}
 
 	/**
@@ -72,8 +91,9 @@ public class FSAConfiguration extends Configuration {
 			return true;
 		}
 		try {
-			return super.equals(configuration)
-					&& myUnprocessedInput.equals(((FSAConfiguration) configuration).myUnprocessedInput);
+			final FSAConfiguration config = (FSAConfiguration) configuration;
+			return super.equals(configuration) && myPosition == config.myPosition
+					&& (myInput == config.myInput || getUnprocessedInput().equals(config.getUnprocessedInput()));
 		} catch (final ClassCastException e) {
 			return false;
 		}
@@ -87,12 +107,22 @@ public class FSAConfiguration extends Configuration {
 	}
 
 	/**
-	 * Returns the unprocessed input.
+	 * Returns the number of input characters already processed.
+	 *
+	 * @return the position of the unprocessed input in the total input.
+	 */
+	public int getPosition() {
+		return myPosition;
+	}
+
+	/**
+	 * Returns the unprocessed input. This copies the rest of the input, so
+	 * simulators should use {@link #getPosition} instead.
 	 *
 	 * @return the unprocessed input.
 	 */
 	public String getUnprocessedInput() {
-		return myUnprocessedInput;
+		return myInput.substring(myPosition);
 	}
 
 	/**
@@ -102,7 +132,7 @@ public class FSAConfiguration extends Configuration {
 	 */
 	@Override
 	public int hashCode() {
-		return super.hashCode() ^ myUnprocessedInput.hashCode();
+		return super.hashCode() ^ myPosition;
 	}
 
 	/**
@@ -115,7 +145,7 @@ public class FSAConfiguration extends Configuration {
 	 */
 	@Override
 	public boolean isAccept() {
-		if (getUnprocessedInput().length() != 0) {
+		if (myPosition != myInput.length()) {
 			return false;
 		}
 		final State s = getCurrentState();
@@ -131,7 +161,7 @@ public class FSAConfiguration extends Configuration {
 	 *            FSA.
 	 */
 	public void setUnprocessedInput(final String input) {
-		myUnprocessedInput = input;
+		myPosition = myInput.length() - input.length();
 	}
 
 	/**
@@ -0,0 +1,286 @@
+/*
+*  JFLAP - Formal Languages and Automata Package
+*
+*
+*  Susan H. Rodger
+*  Computer Science Department
+*  Duke University
+*  August 27, 2009
+
+*  Copyright (c) 2002-2009
+*  All rights reserved.
+
+*  JFLAP is open source software. Please see the LICENSE for terms.
+*
+*/
+
+package edu.duke.cs.jflap.automata.fsa;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+
+import edu.duke.cs.jflap.automata.Automaton;
+
+/**
+ * The FSA lazy DFA simulator runs a finite state automaton by determinizing it
+ * on the fly. Each set of states reached during simulation becomes a cached
+ * DFA state, and each step from a cached set on a symbol is computed once and
+ * remembered, so repeated inputs against the same automaton run at nearly the
+ * speed of a DFA without building the whole subset construction up front.
+ *
+ * The cache holds at most a fixed number of sets. When it is full it is
+ * flushed; if it fills up again while reading the same input, the rest of that
+ * input is simulated set by set without caching. The hit, miss and flush
+ * counters can be used to tune the cache size.
+ *
+ * Because of the cache, a simulator must not be shared between threads.
+ *
+ * @see edu.duke.cs.jflap.automata.fsa.CompiledNFA
+ */
+public class FSALazyDFASimulator extends FSAStepWithClosureSimulator {
+	/** The default maximum number of cached sets. */
+	public static final int DEFAULT_CAPACITY = 4096;
+
+	/** Marks a step that has not been computed yet. */
+	private static final int UNKNOWN = -1;
+
+	/** Marks a step that leads to the empty set. */
+	private static final int DEAD = -2;
+
+	/** The compiled form of the automaton. */
+	private final CompiledNFA myNFA;
+
+	/** The maximum number of cached sets. */
+	private final int myCapacity;
+
+	/** The cached sets, indexed by DFA state number. */
+	private final List<long[]> mySets = new ArrayList<>();
+
+	/** Maps each cached set to its DFA state number. */
+	private final HashMap<StateSet, Integer> myIndex = new HashMap<>();
+
+	/** Which cached sets contain a final state. */
+	private final BitSet myAccepting = new BitSet();
+
+	/** The cached steps, indexed by DFA state * alphabet size + symbol. */
+	private int[] mySteps = new int[0];
+
+	private long myHits;
+
+	private long myMisses;
+
+	private long myFlushes;
+
+	/**
+	 * Creates a lazy DFA simulator with the default cache capacity.
+	 *
+	 * @param automaton
+	 *            the machine to simulate
+	 * @param nfa
+	 *            the compiled form of <CODE>automaton</CODE>
+	 */
+	public FSALazyDFASimulator(final Automaton automaton, final CompiledNFA nfa) {
+		this(automaton, nfa, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates a lazy DFA simulator.
+	 *
+	 * @param automaton
+	 *            the machine to simulate
+	 * @param nfa
+	 *            the compiled form of <CODE>automaton</CODE>
+	 * @param capacity
+	 *            the maximum number of sets to cache
+	 * @throws IllegalArgumentException
+	 *             if <CODE>capacity</CODE> is not positive
+	 */
+	public FSALazyDFASimulator(final Automaton automaton, final CompiledNFA nfa, final int capacity) {
+		super(automaton);
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Cache capacity must be positive, not " + capacity);
+		}
+		myNFA = nfa;
+		myCapacity = capacity;
+	}
+
+	/**
+	 * Adds a set to the cache. The cache must not be full.
+	 *
+	 * @param set
+	 *            the set to add
+	 * @return the DFA state number of the set
+	 */
+	private int add(final long[] set) {
+		final int node = mySets.size();
+		mySets.add(set);
+		myIndex.put(new StateSet(set), node);
+		if (myNFA.isAccepting(set)) {
+			myAccepting.set(node);
+		}
+		final int size = myNFA.getAlphabetSize();
+		if (mySteps.length < (node + 1) * size) {
+			final int old = mySteps.length;
+			mySteps = Arrays.copyOf(mySteps, Math.max((node + 1) * size, old * 2));
+			Arrays.fill(mySteps, old, mySteps.length, UNKNOWN);
+		}
+		return node;
+	}
+
+	/**
+	 * Empties the cache.
+	 */
+	private void flush() {
+		mySets.clear();
+		myIndex.clear();
+		myAccepting.clear();
+		Arrays.fill(mySteps, UNKNOWN);
+		myFlushes++;
+	}
+
+	/**
+	 * Returns the number of sets currently cached.
+	 *
+	 * @return the number of cached sets
+	 */
+	public int getCacheSize() {
+		return mySets.size();
+	}
+
+	/**
+	 * Returns the maximum number of sets the cache holds.
+	 *
+	 * @return the cache capacity
+	 */
+	public int getCapacity() {
+		return myCapacity;
+	}
+
+	/**
+	 * Returns the compiled form of the automaton.
+	 *
+	 * @return the compiled automaton
+	 */
+	public CompiledNFA getCompiledNFA() {
+		return myNFA;
+	}
+
+	/**
+	 * Returns how many times the cache has been flushed because it was full.
+	 *
+	 * @return the number of flushes
+	 */
+	public long getFlushes() {
+		return myFlushes;
+	}
+
+	/**
+	 * Returns how many steps were answered from the cache.
+	 *
+	 * @return the number of cache hits
+	 */
+	public long getHits() {
+		return myHits;
+	}
+
+	/**
+	 * Returns how many steps had to be computed from the automaton.
+	 *
+	 * @return the number of cache misses
+	 */
+	public long getMisses() {
+		return myMisses;
+	}
+
+	/**
+	 * Resets the hit, miss and flush counters to zero. The cache is kept.
+	 */
+	public void resetStatistics() {
+		myHits = 0;
+		myMisses = 0;
+		myFlushes = 0;
+	}
+
+	/**
+	 * Runs the automaton on the input string. No configurations are recorded,
+	 * so <CODE>isAccepted</CODE> is not meaningful afterwards.
+	 *
+	 * @param input
+	 *            the input string to be run on the automaton
+	 * @return true if the automaton accepts the input
+	 */
+	@Override
+	public boolean simulateInput(final String input) {
+		myConfigurations.clear();
+		final long[] initial = myNFA.getInitialSet();
+		final Integer cached = myIndex.get(new StateSet(initial));
+		boolean flushed = false;
+		int node;
+		if (cached != null) {
+			node = cached;
+		} else {
+			if (mySets.size() >= myCapacity) {
+				flush();
+				flushed = true;
+			}
+			node = add(initial);
+		}
+
+		final int size = myNFA.getAlphabetSize();
+		// Once the cache overflows twice for one input, the rest of the input
+		// is simulated on these uncached sets.
+		long[] current = null;
+		long[] next = null;
+		for (int i = 0, n = input.length(); i < n; i++) {
+			final int symbol = myNFA.getSymbol(input.charAt(i));
+			if (symbol < 0) {
+				return false;
+			}
+			if (current != null) {
+				if (!myNFA.step(current, symbol, next)) {
+					return false;
+				}
+				final long[] swap = current;
+				current = next;
+				next = swap;
+				continue;
+			}
+
+			final int step = mySteps[node * size + symbol];
+			if (step != UNKNOWN) {
+				myHits++;
+				if (step == DEAD) {
+					return false;
+				}
+				node = step;
+				continue;
+			}
+			myMisses++;
+			final long[] stepped = new long[myNFA.getWordCount()];
+			if (!myNFA.step(mySets.get(node), symbol, stepped)) {
+				mySteps[node * size + symbol] = DEAD;
+				return false;
+			}
+			final Integer known = myIndex.get(new StateSet(stepped));
+			if (known != null) {
+				mySteps[node * size + symbol] = known;
+				node = known;
+			} else if (mySets.size() < myCapacity) {
+				final int added = add(stepped);
+				mySteps[node * size + symbol] = added;
+				node = added;
+			} else if (!flushed) {
+				flush();
+				flushed = true;
+				node = add(stepped);
+			} else {
+				current = stepped;
+				next = new long[myNFA.getWordCount()];
+			}
+		}
+		return current == null ? myAccepting.get(node) : myNFA.isAccepting(current);
+	}
+}
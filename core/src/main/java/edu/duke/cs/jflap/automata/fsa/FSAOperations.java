@@ -0,0 +1,467 @@
+/*
+*  JFLAP - Formal Languages and Automata Package
+*
+*
+*  Susan H. Rodger
+*  Computer Science Department
+*  Duke University
+*  August 27, 2009
+
+*  Copyright (c) 2002-2009
+*  All rights reserved.
+
+*  JFLAP is open source software. Please see the LICENSE for terms.
+*
+*/
+
+package edu.duke.cs.jflap.automata.fsa;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.TreeSet;
+
+import edu.duke.cs.jflap.automata.AutomatonSnapshot;
+import edu.duke.cs.jflap.automata.State;
+import edu.duke.cs.jflap.automata.StatePlacer;
+
+/**
+ * The FSA operations combine finite state automata without a GUI. They work on
+ * the <CODE>CompiledDFA</CODE> form and return it, so operations can be
+ * chained without creating any <CODE>State</CODE> or
+ * <CODE>FSATransition</CODE> objects; {@link #compile} brings an automaton in
+ * and {@link #toAutomaton} takes the result out. For example, the strings
+ * accepted by <CODE>a</CODE> but not <CODE>b</CODE> are
+ * <CODE>toAutomaton(difference(compile(a), compile(b)))</CODE>.
+ *
+ * The binary operations build the product of two automata from the pair of
+ * initial states, so only reachable pairs are created, and pairs that can no
+ * longer accept are not followed. Every result is trimmed: states that cannot
+ * reach a final state are removed, along with their transitions. A missing
+ * transition means the input is rejected, as in <CODE>CompiledDFA</CODE>.
+ *
+ * @see edu.duke.cs.jflap.automata.fsa.CompiledDFA
+ */
+public class FSAOperations {
+	/** Accepts if both automata accept. */
+	private static final int INTERSECTION = 0;
+
+	/** Accepts if either automaton accepts. */
+	private static final int UNION = 1;
+
+	/** Accepts if the first automaton accepts and the second does not. */
+	private static final int DIFFERENCE = 2;
+
+	/** Accepts if exactly one automaton accepts. */
+	private static final int SYMMETRIC_DIFFERENCE = 3;
+
+	/**
+	 * Returns if a pair of states accepts under an operation.
+	 */
+	private static boolean accepts(final int operation, final boolean first, final boolean second) {
+		switch (operation) {
+		case INTERSECTION:
+			return first && second;
+		case UNION:
+			return first || second;
+		case DIFFERENCE:
+			return first && !second;
+		default:
+			return first != second;
+		}
+	}
+
+	/**
+	 * Returns if a pair of states is worth following under an operation, given
+	 * which of them exist. A missing state rejects everything.
+	 */
+	private static boolean isAlive(final int operation, final boolean first, final boolean second) {
+		switch (operation) {
+		case INTERSECTION:
+			return first && second;
+		case DIFFERENCE:
+			return first;
+		default:
+			return first || second;
+		}
+	}
+
+	/**
+	 * Returns a deterministic compiled form of a finite state automaton. If it
+	 * is not deterministic over single characters, the subset construction is
+	 * applied to its <CODE>CompiledNFA</CODE>, creating only the reachable
+	 * sets.
+	 *
+	 * @param automaton
+	 *            the automaton to compile
+	 * @return the compiled automaton; one that accepts nothing if the
+	 *         automaton has no initial state
+	 */
+	public static CompiledDFA compile(final FiniteStateAutomaton automaton) {
+		final CompiledDFA dfa = CompiledDFA.compile(automaton);
+		return dfa != null ? dfa : determinize(CompiledNFA.compile(automaton));
+	}
+
+	/**
+	 * Returns a deterministic compiled form of a snapshot of a finite state
+	 * automaton, as {@link #compile(FiniteStateAutomaton)} does.
+	 *
+	 * @param snapshot
+	 *            the snapshot to compile
+	 * @return the compiled automaton; one that accepts nothing if the
+	 *         automaton has no initial state
+	 * @throws IllegalArgumentException
+	 *             if the snapshot is not of a finite state automaton
+	 */
+	public static CompiledDFA compile(final AutomatonSnapshot snapshot) {
+		final CompiledDFA dfa = CompiledDFA.compile(snapshot);
+		return dfa != null ? dfa : determinize(CompiledNFA.compile(snapshot));
+	}
+
+	/**
+	 * Applies the subset construction to a compiled automaton, creating only
+	 * the reachable sets.
+	 *
+	 * @param nfa
+	 *            the compiled automaton, or <CODE>null</CODE> if it had no
+	 *            initial state
+	 * @return the trimmed deterministic automaton
+	 */
+	private static CompiledDFA determinize(final CompiledNFA nfa) {
+		if (nfa == null) {
+			return CompiledDFA.create(0, new boolean[1], new char[0], new int[0]);
+		}
+		final int k = nfa.getAlphabetSize();
+		final char[] alphabet = new char[k];
+		for (int a = 0; a < k; a++) {
+			alphabet[a] = nfa.getSymbolCharacter(a);
+		}
+		final List<long[]> sets = new ArrayList<>();
+		final HashMap<StateSet, Integer> index = new HashMap<>();
+		sets.add(nfa.getInitialSet());
+		index.put(new StateSet(sets.get(0)), 0);
+		int[] table = new int[k];
+		long[] next = new long[nfa.getWordCount()];
+		for (int d = 0; d < sets.size(); d++) {
+			if (table.length < sets.size() * k) {
+				table = Arrays.copyOf(table, Math.max(sets.size() * k, table.length * 2));
+			}
+			for (int a = 0; a < k; a++) {
+				if (!nfa.step(sets.get(d), a, next)) {
+					table[d * k + a] = CompiledDFA.NO_STATE;
+					continue;
+				}
+				final StateSet key = new StateSet(next);
+				Integer to = index.get(key);
+				if (to == null) {
+					to = sets.size();
+					sets.add(next);
+					index.put(key, to);
+					next = new long[nfa.getWordCount()];
+				}
+				table[d * k + a] = to;
+			}
+		}
+		final boolean[] finals = new boolean[sets.size()];
+		for (int d = 0; d < finals.length; d++) {
+			finals[d] = nfa.isAccepting(sets.get(d));
+		}
+		return trim(0, finals, alphabet, Arrays.copyOf(table, sets.size() * k));
+	}
+
+	/**
+	 * Returns an automaton accepting the strings over an alphabet that
+	 * <CODE>dfa</CODE> rejects. Characters of <CODE>dfa</CODE> outside the
+	 * alphabet are ignored, since no string over the alphabet contains them.
+	 *
+	 * @param dfa
+	 *            the automaton to complement
+	 * @param alphabet
+	 *            the characters the complement is taken over
+	 * @return the complement
+	 */
+	public static CompiledDFA complement(final CompiledDFA dfa, final char[] alphabet) {
+		final TreeSet<Character> letters = new TreeSet<>();
+		for (final char c : alphabet) {
+			letters.add(c);
+		}
+		final char[] sorted = toArray(letters);
+		final int k = sorted.length;
+		final int n = dfa.getStateCount();
+		final int trap = n;
+		final int[] table = new int[(n + 1) * k];
+		final boolean[] finals = new boolean[n + 1];
+		for (int s = 0; s < n; s++) {
+			finals[s] = !dfa.isFinalState(s);
+			for (int a = 0; a < k; a++) {
+				final int symbol = dfa.getSymbol(sorted[a]);
+				final int to = symbol < 0 ? CompiledDFA.NO_STATE : dfa.next(s, symbol);
+				table[s * k + a] = to == CompiledDFA.NO_STATE ? trap : to;
+			}
+		}
+		finals[trap] = true;
+		Arrays.fill(table, trap * k, (trap + 1) * k, trap);
+		return trim(dfa.getInitialState(), finals, sorted, table);
+	}
+
+	/**
+	 * Returns an automaton accepting the strings <CODE>dfa1</CODE> accepts and
+	 * <CODE>dfa2</CODE> rejects.
+	 *
+	 * @param dfa1
+	 *            the first automaton
+	 * @param dfa2
+	 *            the second automaton
+	 * @return the difference
+	 */
+	public static CompiledDFA difference(final CompiledDFA dfa1, final CompiledDFA dfa2) {
+		return product(dfa1, dfa2, DIFFERENCE);
+	}
+
+	/**
+	 * Returns an automaton accepting the strings both automata accept.
+	 *
+	 * @param dfa1
+	 *            the first automaton
+	 * @param dfa2
+	 *            the second automaton
+	 * @return the intersection
+	 */
+	public static CompiledDFA intersection(final CompiledDFA dfa1, final CompiledDFA dfa2) {
+		return product(dfa1, dfa2, INTERSECTION);
+	}
+
+	/**
+	 * Builds the reachable part of the product of two automata.
+	 */
+	private static CompiledDFA product(final CompiledDFA dfa1, final CompiledDFA dfa2, final int operation) {
+		final TreeSet<Character> letters = new TreeSet<>();
+		for (int a = 0; a < dfa1.getAlphabetSize(); a++) {
+			letters.add(dfa1.getSymbolCharacter(a));
+		}
+		if (operation == INTERSECTION) {
+			letters.removeIf(c -> dfa2.getSymbol(c) < 0);
+		} else {
+			for (int a = 0; a < dfa2.getAlphabetSize(); a++) {
+				letters.add(dfa2.getSymbolCharacter(a));
+			}
+		}
+		final char[] alphabet = toArray(letters);
+		final int k = alphabet.length;
+		final int[] symbols1 = new int[k];
+		final int[] symbols2 = new int[k];
+		for (int a = 0; a < k; a++) {
+			symbols1[a] = dfa1.getSymbol(alphabet[a]);
+			symbols2[a] = dfa2.getSymbol(alphabet[a]);
+		}
+
+		// Pairs are numbered as they are found; a missing state is -1.
+		final long width = dfa2.getStateCount() + 1L;
+		final HashMap<Long, Integer> index = new HashMap<>();
+		int[] firsts = new int[16];
+		int[] seconds = new int[16];
+		int count = 0;
+		firsts[count] = dfa1.getInitialState();
+		seconds[count++] = dfa2.getInitialState();
+		index.put((firsts[0] + 1) * width + seconds[0] + 1, 0);
+		int[] table = new int[16 * k];
+		for (int pair = 0; pair < count; pair++) {
+			if (table.length < count * k) {
+				table = Arrays.copyOf(table, Math.max(count * k, table.length * 2));
+			}
+			final int p = firsts[pair];
+			final int q = seconds[pair];
+			for (int a = 0; a < k; a++) {
+				final int p2 = p < 0 || symbols1[a] < 0 ? CompiledDFA.NO_STATE : dfa1.next(p, symbols1[a]);
+				final int q2 = q < 0 || symbols2[a] < 0 ? CompiledDFA.NO_STATE : dfa2.next(q, symbols2[a]);
+				if (!isAlive(operation, p2 >= 0, q2 >= 0)) {
+					table[pair * k + a] = CompiledDFA.NO_STATE;
+					continue;
+				}
+				final long key = (p2 + 1) * width + q2 + 1;
+				Integer to = index.get(key);
+				if (to == null) {
+					to = count;
+					if (count == firsts.length) {
+						firsts = Arrays.copyOf(firsts, count * 2);
+						seconds = Arrays.copyOf(seconds, count * 2);
+					}
+					firsts[count] = p2;
+					seconds[count++] = q2;
+					index.put(key, to);
+				}
+				table[pair * k + a] = to;
+			}
+		}
+		final boolean[] finals = new boolean[count];
+		for (int pair = 0; pair < count; pair++) {
+			finals[pair] = accepts(operation, firsts[pair] >= 0 && dfa1.isFinalState(firsts[pair]),
+					seconds[pair] >= 0 && dfa2.isFinalState(seconds[pair]));
+		}
+		return trim(0, finals, alphabet, Arrays.copyOf(table, count * k));
+	}
+
+	/**
+	 * Returns an automaton accepting the strings exactly one of the automata
+	 * accepts.
+	 *
+	 * @param dfa1
+	 *            the first automaton
+	 * @param dfa2
+	 *            the second automaton
+	 * @return the symmetric difference
+	 */
+	public static CompiledDFA symmetricDifference(final CompiledDFA dfa1, final CompiledDFA dfa2) {
+		return product(dfa1, dfa2, SYMMETRIC_DIFFERENCE);
+	}
+
+	/**
+	 * Returns the characters of a set in ascending order.
+	 */
+	private static char[] toArray(final TreeSet<Character> letters) {
+		final char[] array = new char[letters.size()];
+		int i = 0;
+		for (final Character c : letters) {
+			array[i++] = c;
+		}
+		return array;
+	}
+
+	/**
+	 * Builds a finite state automaton from a compiled one. States are given
+	 * IDs in the order of their numbers, and a transition is added for every
+	 * entry of the table.
+	 *
+	 * @param dfa
+	 *            the compiled automaton
+	 * @return a new finite state automaton
+	 */
+	public static FiniteStateAutomaton toAutomaton(final CompiledDFA dfa) {
+		final FiniteStateAutomaton automaton = new FiniteStateAutomaton();
+		final StatePlacer sp = new StatePlacer();
+		final State[] states = new State[dfa.getStateCount()];
+		for (int s = 0; s < states.length; s++) {
+			states[s] = automaton.createStateWithId(sp.getPointForState(automaton), s);
+			if (dfa.isFinalState(s)) {
+				automaton.addFinalState(states[s]);
+			}
+		}
+		automaton.setInitialState(states[dfa.getInitialState()]);
+		for (int s = 0; s < states.length; s++) {
+			for (int a = 0; a < dfa.getAlphabetSize(); a++) {
+				final int to = dfa.next(s, a);
+				if (to != CompiledDFA.NO_STATE) {
+					automaton.addTransition(
+							new FSATransition(states[s], states[to], Character.toString(dfa.getSymbolCharacter(a))));
+				}
+			}
+		}
+		return automaton;
+	}
+
+	/**
+	 * Removes the states that are unreachable or cannot reach a final state,
+	 * keeping the order of the rest. If the initial state cannot reach a final
+	 * state, the result is a single non-final state.
+	 */
+	private static CompiledDFA trim(final int initial, final boolean[] finals, final char[] alphabet,
+			final int[] table) {
+		final int n = finals.length;
+		final int k = alphabet.length;
+
+		// Forward from the initial state.
+		final boolean[] reachable = new boolean[n];
+		final int[] queue = new int[n];
+		int tail = 0;
+		queue[tail++] = initial;
+		reachable[initial] = true;
+		for (int head = 0; head < tail; head++) {
+			for (int a = 0; a < k; a++) {
+				final int to = table[queue[head] * k + a];
+				if (to != CompiledDFA.NO_STATE && !reachable[to]) {
+					reachable[to] = true;
+					queue[tail++] = to;
+				}
+			}
+		}
+
+		// Backward from the final states, over the reversed table.
+		final int[] offsets = new int[n + 1];
+		for (final int to : table) {
+			if (to != CompiledDFA.NO_STATE) {
+				offsets[to + 1]++;
+			}
+		}
+		for (int s = 1; s <= n; s++) {
+			offsets[s] += offsets[s - 1];
+		}
+		final int[] sources = new int[offsets[n]];
+		final int[] fill = Arrays.copyOf(offsets, n);
+		for (int i = 0; i < table.length; i++) {
+			if (table[i] != CompiledDFA.NO_STATE) {
+				sources[fill[table[i]]++] = i / k;
+			}
+		}
+		final boolean[] useful = new boolean[n];
+		tail = 0;
+		for (int s = 0; s < n; s++) {
+			if (finals[s] && reachable[s]) {
+				useful[s] = true;
+				queue[tail++] = s;
+			}
+		}
+		for (int head = 0; head < tail; head++) {
+			final int s = queue[head];
+			for (int i = offsets[s]; i < offsets[s + 1]; i++) {
+				final int from = sources[i];
+				if (reachable[from] && !useful[from]) {
+					useful[from] = true;
+					queue[tail++] = from;
+				}
+			}
+		}
+		if (!useful[initial]) {
+			final int[] none = new int[k];
+			Arrays.fill(none, CompiledDFA.NO_STATE);
+			return CompiledDFA.create(0, new boolean[1], alphabet, none);
+		}
+
+		final int[] number = new int[n];
+		int count = 0;
+		for (int s = 0; s < n; s++) {
+			number[s] = useful[s] ? count++ : CompiledDFA.NO_STATE;
+		}
+		final int[] trimmed = new int[count * k];
+		final boolean[] trimmedFinals = new boolean[count];
+		for (int s = 0; s < n; s++) {
+			if (useful[s]) {
+				trimmedFinals[number[s]] = finals[s];
+				for (int a = 0; a < k; a++) {
+					final int to = table[s * k + a];
+					trimmed[number[s] * k + a] = to == CompiledDFA.NO_STATE ? CompiledDFA.NO_STATE : number[to];
+				}
+			}
+		}
+		return CompiledDFA.create(number[initial], trimmedFinals, alphabet, trimmed);
+	}
+
+	/**
+	 * Returns an automaton accepting the strings either automaton accepts.
+	 *
+	 * @param dfa1
+	 *            the first automaton
+	 * @param dfa2
+	 *            the second automaton
+	 * @return the union
+	 */
+	public static CompiledDFA union(final CompiledDFA dfa1, final CompiledDFA dfa2) {
+		return product(dfa1, dfa2, UNION);
+	}
+
+	/**
+	 * There is no reason for this class to ever be constructed.
+	 */
+	private FSAOperations() {
+	}
+}
@@ -60,7 +60,7 @@ public class FSAStepByStateSimulator extends AutomatonSimulator {
 	@Override
 	public List<Configuration> getInitialConfigurations(final String input) {
 		final List<Configuration> configs = new ArrayList<>();
-		configs.add(new FSAConfiguration(myAutomaton.getInitialState(), null, input, input));
+		configs.add(new FSAConfiguration(myAutomaton.getInitialState(), null, input, 0));
 		return configs;
 	}
 
@@ -78,7 +78,8 @@ public class FSAStepByStateSimulator extends AutomatonSimulator {
 		while (it.hasNext()) {
 			final FSAConfiguration configuration = (FSAConfiguration) it.next();
 			final State currentState = configuration.getCurrentState();
-			if (configuration.getUnprocessedInput().equals("") && myAutomaton.isFinalState(currentState)) {
+			if (configuration.getPosition() == configuration.getInput().length()
+					&& myAutomaton.isFinalState(currentState)) {
 				return true;
 			}
 		}
@@ -134,10 +135,10 @@ public class FSAStepByStateSimulator extends AutomatonSimulator {
 		final List<Configuration> list = new ArrayList<>();
 		final FSAConfiguration configuration = (FSAConfiguration) config;
 		/** get all information from configuration. */
-		final String unprocessedInput = configuration.getUnprocessedInput();
 		final String totalInput = configuration.getInput();
+		final int position = configuration.getPosition();
 		final State currentState = configuration.getCurrentState();
-		final List<Transition> transitions = myAutomaton.getTransitionsFromState(currentState);
+		final List<Transition> transitions = getTransitionsFromState(currentState, totalInput, position);
 		for (int k = 0; k < transitions.size(); k++) {
 			final FSATransition transition = (FSATransition) transitions.get(k);
 			/** get all information from transition. */
@@ -150,25 +151,17 @@ public class FSAStepByStateSimulator extends AutomatonSimulator {
 					EDebug.print(Character.toString((char) i));
 				}
 				for (final String element : trange) {
-					if (unprocessedInput.startsWith(element)) {
-						String input = "";
-						if (element.length() < unprocessedInput.length()) {
-							input = unprocessedInput.substring(element.length());
-						}
+					if (totalInput.startsWith(element, position)) {
 						final State toState = transition.getToState();
 						final FSAConfiguration configurationToAdd = new FSAConfiguration(toState, configuration,
-								totalInput, input);
+								totalInput, position + element.length());
 						list.add(configurationToAdd);
 					}
 				}
-			} else if (unprocessedInput.startsWith(transLabel)) {
-				String input = "";
-				if (transLabel.length() < unprocessedInput.length()) {
-					input = unprocessedInput.substring(transLabel.length());
-				}
+			} else if (totalInput.startsWith(transLabel, position)) {
 				final State toState = transition.getToState();
 				final FSAConfiguration configurationToAdd = new FSAConfiguration(toState, configuration, totalInput,
-						input);
+						position + transLabel.length());
 				list.add(configurationToAdd);
 			}
 		}
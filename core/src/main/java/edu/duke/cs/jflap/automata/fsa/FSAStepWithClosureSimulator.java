@@ -59,7 +59,7 @@ public class FSAStepWithClosureSimulator extends FSAStepByStateSimulator {
 		final List<State> closure = ClosureTaker.getClosure(init, myAutomaton);
 		final List<Configuration> configs = new ArrayList<>();
 		for (int k = 0; k < closure.size(); k++) {
-			configs.add(new FSAConfiguration(closure.get(k), null, input, input));
+			configs.add(new FSAConfiguration(closure.get(k), null, input, 0));
 		}
 		return configs;
 	}
@@ -76,10 +76,10 @@ public class FSAStepWithClosureSimulator extends FSAStepByStateSimulator {
 		final List<Configuration> list = new ArrayList<>();
 		final FSAConfiguration configuration = (FSAConfiguration) config;
 		/** get all information from configuration. */
-		final String unprocessedInput = configuration.getUnprocessedInput();
 		final String totalInput = configuration.getInput();
+		final int position = configuration.getPosition();
 		final State currentState = configuration.getCurrentState();
-		final List<Transition> transitions = myAutomaton.getTransitionsFromState(currentState);
+		final List<Transition> transitions = getTransitionsFromState(currentState, totalInput, position);
 		for (int k = 0; k < transitions.size(); k++) {
 			final FSATransition transition = (FSATransition) transitions.get(k);
 			/** get all information from transition. */
@@ -93,29 +93,22 @@ public class FSAStepWithClosureSimulator extends FSAStepByStateSimulator {
 				}
 				if (transLabel.length() > 0) {
 					for (final String element : trange) {
-						if (unprocessedInput.startsWith(element)) {
-							String input = "";
-							if (element.length() < unprocessedInput.length()) {
-								input = unprocessedInput.substring(element.length());
-							}
+						if (totalInput.startsWith(element, position)) {
 							final State toState = transition.getToState();
 							final FSAConfiguration configurationToAdd = new FSAConfiguration(toState, configuration,
-									totalInput, input);
+									totalInput, position + element.length());
 							list.add(configurationToAdd);
 						}
 					}
 				}
 			} else if (transLabel.length() > 0) {
-				if (unprocessedInput.startsWith(transLabel)) {
-					String input = "";
-					if (transLabel.length() < unprocessedInput.length()) {
-						input = unprocessedInput.substring(transLabel.length());
-					}
+				if (totalInput.startsWith(transLabel, position)) {
+					final int next = position + transLabel.length();
 					final State toState = transition.getToState();
 					final List<State> closure = ClosureTaker.getClosure(toState, myAutomaton);
 					for (int i = 0; i < closure.size(); i++) {
 						final FSAConfiguration configurationToAdd = new FSAConfiguration(closure.get(i), configuration,
-								totalInput, input);
+								totalInput, next);
 						list.add(configurationToAdd);
 					}
 				}
@@ -0,0 +1,232 @@
+/*
+*  JFLAP - Formal Languages and Automata Package
+*
+*
+*  Susan H. Rodger
+*  Computer Science Department
+*  Duke University
+*  August 27, 2009
+
+*  Copyright (c) 2002-2009
+*  All rights reserved.
+
+*  JFLAP is open source software. Please see the LICENSE for terms.
+*
+*/
+
+package edu.duke.cs.jflap.automata.fsa;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+
+import edu.duke.cs.jflap.automata.AutomatonSnapshot;
+
+/**
+ * The FSA stream simulator runs a finite state automaton over input that is
+ * read in chunks, so the input never has to be held in memory as one string.
+ * Only the active state is kept between chunks: a single state number if the
+ * automaton compiles into a <CODE>CompiledDFA</CODE>, a set of states of its
+ * <CODE>CompiledNFA</CODE> otherwise. After each chunk the caller may ask
+ * whether the input read so far is accepted.
+ *
+ * The compiled form is built once when the simulator is created, so later
+ * edits to the automaton are not followed. A simulator holds the state of one
+ * stream and must not be shared between threads.
+ *
+ * @see edu.duke.cs.jflap.automata.fsa.CompiledDFA
+ * @see edu.duke.cs.jflap.automata.fsa.CompiledNFA
+ */
+public class FSAStreamSimulator {
+	/** The number of characters read from a stream at a time. */
+	private static final int BUFFER_SIZE = 8192;
+
+	/** The compiled automaton if it is deterministic, else <CODE>null</CODE>. */
+	private final CompiledDFA myDFA;
+
+	/** The compiled automaton if it is not deterministic. */
+	private final CompiledNFA myNFA;
+
+	/** The current state when running the DFA. */
+	private int myState;
+
+	/** The current set of states when running the NFA. */
+	private long[] myCurrent;
+
+	/** The scratch set the NFA steps into. */
+	private long[] myNext;
+
+	/** Whether the automaton has no way to continue. */
+	private boolean myStuck;
+
+	/** The number of characters read since the last reset. */
+	private long myPosition;
+
+	/**
+	 * Creates a stream simulator for the given automaton. An automaton without
+	 * an initial state rejects every input.
+	 *
+	 * @param automaton
+	 *            the machine to simulate
+	 */
+	public FSAStreamSimulator(final FiniteStateAutomaton automaton) {
+		myDFA = CompiledDFA.compile(automaton);
+		myNFA = myDFA == null ? CompiledNFA.compile(automaton) : null;
+		start();
+	}
+
+	/**
+	 * Creates a stream simulator for a snapshot of an automaton. Many
+	 * simulators, one per thread, may be created from the same snapshot.
+	 *
+	 * @param snapshot
+	 *            the snapshot of the machine to simulate
+	 * @throws IllegalArgumentException
+	 *             if the snapshot is not of a finite state automaton
+	 */
+	public FSAStreamSimulator(final AutomatonSnapshot snapshot) {
+		myDFA = CompiledDFA.compile(snapshot);
+		myNFA = myDFA == null ? CompiledNFA.compile(snapshot) : null;
+		start();
+	}
+
+	/**
+	 * Returns the number of characters read since the last reset.
+	 *
+	 * @return the current position in the stream
+	 */
+	public long getPosition() {
+		return myPosition;
+	}
+
+	/**
+	 * Returns if the input read since the last reset is accepted.
+	 *
+	 * @return <CODE>true</CODE> if the automaton is in a final state
+	 */
+	public boolean isAccepting() {
+		if (myStuck) {
+			return false;
+		}
+		return myDFA != null ? myDFA.isFinalState(myState) : myNFA.isAccepting(myCurrent);
+	}
+
+	/**
+	 * Returns if the automaton can no longer reach a final state because some
+	 * character read had no transition. Once stuck, no further input can make
+	 * the automaton accept.
+	 *
+	 * @return <CODE>true</CODE> if the automaton is stuck
+	 */
+	public boolean isStuck() {
+		return myStuck;
+	}
+
+	/**
+	 * Feeds a chunk of input to the automaton.
+	 *
+	 * @param chars
+	 *            the array holding the chunk
+	 * @param offset
+	 *            the index of the first character of the chunk
+	 * @param length
+	 *            the number of characters in the chunk
+	 * @return <CODE>false</CODE> if the automaton is stuck
+	 */
+	public boolean read(final char[] chars, final int offset, final int length) {
+		if (myStuck) {
+			return false;
+		}
+		final int end = offset + length;
+		if (myDFA != null) {
+			int state = myState;
+			for (int i = offset; i < end; i++) {
+				final int symbol = myDFA.getSymbol(chars[i]);
+				if (symbol < 0 || (state = myDFA.next(state, symbol)) == CompiledDFA.NO_STATE) {
+					myPosition += i - offset;
+					myStuck = true;
+					return false;
+				}
+			}
+			myState = state;
+		} else {
+			for (int i = offset; i < end; i++) {
+				final int symbol = myNFA.getSymbol(chars[i]);
+				if (symbol < 0 || !myNFA.step(myCurrent, symbol, myNext)) {
+					myPosition += i - offset;
+					myStuck = true;
+					return false;
+				}
+				final long[] swap = myCurrent;
+				myCurrent = myNext;
+				myNext = swap;
+			}
+		}
+		myPosition += length;
+		return true;
+	}
+
+	/**
+	 * Puts the automaton back in its initial state, ready for a new stream.
+	 */
+	public void reset() {
+		myPosition = 0;
+		if (myDFA != null) {
+			myState = myDFA.getInitialState();
+			myStuck = false;
+		} else if (myNFA != null) {
+			myCurrent = myNFA.getInitialSet();
+			myStuck = false;
+		} else {
+			myStuck = true;
+		}
+	}
+
+	/**
+	 * Runs the automaton over everything a reader produces. Reading stops as
+	 * soon as the automaton is stuck. The reader is not closed.
+	 *
+	 * @param reader
+	 *            the source of the input
+	 * @return <CODE>true</CODE> if the automaton accepts the input
+	 * @throws IOException
+	 *             if the reader fails
+	 */
+	public boolean run(final Reader reader) throws IOException {
+		reset();
+		final char[] buffer = new char[BUFFER_SIZE];
+		int count;
+		while (!myStuck && (count = reader.read(buffer)) >= 0) {
+			read(buffer, 0, count);
+		}
+		return isAccepting();
+	}
+
+	/**
+	 * Runs the automaton over the characters decoded from a channel. Reading
+	 * stops as soon as the automaton is stuck. The channel is not closed.
+	 *
+	 * @param channel
+	 *            the source of the input
+	 * @param charset
+	 *            the encoding of the bytes in the channel
+	 * @return <CODE>true</CODE> if the automaton accepts the input
+	 * @throws IOException
+	 *             if reading or decoding the channel fails
+	 */
+	public boolean run(final ReadableByteChannel channel, final Charset charset) throws IOException {
+		return run(Channels.newReader(channel, charset.newDecoder(), -1));
+	}
+
+	/**
+	 * Allocates the scratch set and moves to the start of a stream.
+	 */
+	private void start() {
+		if (myNFA != null) {
+			myNext = new long[myNFA.getWordCount()];
+		}
+		reset();
+	}
+}
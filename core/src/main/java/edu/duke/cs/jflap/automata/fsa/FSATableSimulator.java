@@ -0,0 +1,69 @@
+/*
+*  JFLAP - Formal Languages and Automata Package
+*
+*
+*  Susan H. Rodger
+*  Computer Science Department
+*  Duke University
+*  August 27, 2009
+
+*  Copyright (c) 2002-2009
+*  All rights reserved.
+
+*  JFLAP is open source software. Please see the LICENSE for terms.
+*
+*/
+
+package edu.duke.cs.jflap.automata.fsa;
+
+import edu.duke.cs.jflap.automata.Automaton;
+
+/**
+ * The FSA table simulator runs a deterministic finite state automaton from its
+ * <CODE>CompiledDFA</CODE> transition table. Stepping through configurations
+ * works exactly as in the <CODE>FSAStepWithClosureSimulator</CODE>, but
+ * <CODE>simulateInput</CODE> walks the table directly, without creating any
+ * configurations.
+ *
+ * @see edu.duke.cs.jflap.automata.fsa.CompiledDFA
+ */
+public class FSATableSimulator extends FSAStepWithClosureSimulator {
+	/** The compiled form of the automaton. */
+	private final CompiledDFA myTable;
+
+	/**
+	 * Creates a table simulator for the given automaton.
+	 *
+	 * @param automaton
+	 *            the machine to simulate
+	 * @param table
+	 *            the compiled form of <CODE>automaton</CODE>
+	 */
+	public FSATableSimulator(final Automaton automaton, final CompiledDFA table) {
+		super(automaton);
+		myTable = table;
+	}
+
+	/**
+	 * Returns the compiled form of the automaton.
+	 *
+	 * @return the compiled automaton
+	 */
+	public CompiledDFA getCompiledDFA() {
+		return myTable;
+	}
+
+	/**
+	 * Runs the automaton on the input string. No configurations are recorded,
+	 * so <CODE>isAccepted</CODE> is not meaningful afterwards.
+	 *
+	 * @param input
+	 *            the input string to be run on the automaton
+	 * @return true if the automaton accepts the input
+	 */
+	@Override
+	public boolean simulateInput(final String input) {
+		myConfigurations.clear();
+		return myTable.accepts(input);
+	}
+}
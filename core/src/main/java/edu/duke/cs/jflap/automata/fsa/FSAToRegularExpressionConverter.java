@@ -17,7 +17,11 @@
 package edu.duke.cs.jflap.automata.fsa;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
 
 import edu.duke.cs.jflap.automata.Automaton;
 import edu.duke.cs.jflap.automata.State;
@@ -25,6 +29,7 @@ import edu.duke.cs.jflap.automata.StatePlacer;
 import edu.duke.cs.jflap.automata.Transition;
 import edu.duke.cs.jflap.gui.environment.Universe;
 import edu.duke.cs.jflap.regular.Discretizer;
+import edu.duke.cs.jflap.regular.ExpressionNode;
 
 /**
  * The fsa to regular expression converter can be used to convert a finite state
@@ -53,6 +58,12 @@ import edu.duke.cs.jflap.regular.Discretizer;
  * getIJ, getJJ, and getJI to get the expressions on the four arcs in your
  * two-state generalized transition graph, and then calling getFinalExpression.
  *
+ * Alternatively, convertToExpression does the whole conversion in one call
+ * without changing the automaton. It keeps the arcs as shared
+ * <CODE>ExpressionNode</CODE> trees rather than strings, eliminates the
+ * cheapest state first instead of going down the list of states, and only
+ * yields a string when the result is printed.
+ *
  * @author Ryan Cavalcante
  *
  */
@@ -89,6 +100,21 @@ public class FSAToRegularExpressionConverter {
 		return LEFT_PAREN + word + RIGHT_PAREN;
 	}
 
+	/**
+	 * Or's an expression onto the arc between two states of a generalized
+	 * transition graph, creating the arc if there is none.
+	 */
+	private static void addArc(final int from, final int to, final ExpressionNode expression,
+			final List<Map<Integer, ExpressionNode>> out, final List<Map<Integer, ExpressionNode>> in) {
+		if (expression.getKind() == ExpressionNode.Kind.EMPTY) {
+			return;
+		}
+		final ExpressionNode old = out.get(from).get(to);
+		final ExpressionNode label = old == null ? expression : or(old, expression);
+		out.get(from).put(to, label);
+		in.get(to).put(from, label);
+	}
+
 	/**
 	 * Adds a new transition to <CODE>automaton</CODE> between
 	 * <CODE>fromState</CODE> and </CODE>toState</CODE> on the symbol for the
@@ -190,6 +216,29 @@ public class FSAToRegularExpressionConverter {
 		return r1 + r2;
 	}
 
+	/**
+	 * Returns the expression that represents <CODE>r1</CODE> concatenated with
+	 * <CODE>r2</CODE>, which is the empty set if either is, and the other one
+	 * if either is lambda.
+	 *
+	 * @param r1
+	 *            the first part of the expression.
+	 * @param r2
+	 *            the second part of the expression.
+	 * @return the expression that represents <CODE>r1</CODE> concatenated with
+	 *         <CODE>r2</CODE>.
+	 */
+	public static ExpressionNode concatenate(final ExpressionNode r1, final ExpressionNode r2) {
+		if (r1.getKind() == ExpressionNode.Kind.EMPTY || r2.getKind() == ExpressionNode.Kind.EMPTY) {
+			return ExpressionNode.empty();
+		} else if (r1.getKind() == ExpressionNode.Kind.LAMBDA) {
+			return r2;
+		} else if (r2.getKind() == ExpressionNode.Kind.LAMBDA) {
+			return r1;
+		}
+		return ExpressionNode.concatenation(r1, r2);
+	}
+
 	/**
 	 * Converts <CODE>automaton</CODE> into a generalized transition graph with
 	 * only two states, a unique initial state, and a unique final state.
@@ -211,6 +260,97 @@ public class FSAToRegularExpressionConverter {
 		}
 	}
 
+	/**
+	 * Returns a regular expression that represents <CODE>automaton</CODE>, by
+	 * eliminating states from a generalized transition graph whose arcs are
+	 * <CODE>ExpressionNode</CODE>s. A new initial state and a new final state
+	 * are added around the automaton, and the other states are eliminated one
+	 * at a time, always taking the state whose elimination adds the least to
+	 * the expressions on the arcs: the sum over every arc into or out of it of
+	 * the arc's size times the number of new arcs it is copied into. Arcs only
+	 * exist between states with transitions between them, so eliminating a
+	 * state only looks at its neighbors. Subexpressions are shared rather
+	 * than copied, and are simplified by {@link #concatenate(ExpressionNode,
+	 * ExpressionNode)}, {@link #or(ExpressionNode, ExpressionNode)} and
+	 * {@link #star(ExpressionNode)} as they are built. <CODE>automaton</CODE>
+	 * is not changed.
+	 *
+	 * @param automaton
+	 *            the automaton
+	 * @return the regular expression that represents <CODE>automaton</CODE>,
+	 *         or <CODE>null</CODE> if it is not a finite state automaton
+	 */
+	public static ExpressionNode convertToExpression(final Automaton automaton) {
+		if (!(automaton instanceof FiniteStateAutomaton) || automaton.getInitialState() == null) {
+			return automaton instanceof FiniteStateAutomaton ? ExpressionNode.empty() : null;
+		}
+		final List<State> states = automaton.getStates();
+		final int n = states.size();
+		final int source = n;
+		final int sink = n + 1;
+		final HashMap<State, Integer> index = new HashMap<>();
+		final List<Map<Integer, ExpressionNode>> out = new ArrayList<>();
+		final List<Map<Integer, ExpressionNode>> in = new ArrayList<>();
+		for (int i = 0; i < n + 2; i++) {
+			out.add(new HashMap<Integer, ExpressionNode>());
+			in.add(new HashMap<Integer, ExpressionNode>());
+		}
+		for (int i = 0; i < n; i++) {
+			index.put(states.get(i), i);
+		}
+		addArc(source, index.get(automaton.getInitialState()), ExpressionNode.lambda(), out, in);
+		for (final State state : automaton.getFinalStates()) {
+			addArc(index.get(state), sink, ExpressionNode.lambda(), out, in);
+		}
+		for (final Transition transition : automaton.getTransitions()) {
+			addArc(index.get(transition.getFromState()), index.get(transition.getToState()),
+					getLabelExpression(((FSATransition) transition).getLabel()), out, in);
+		}
+
+		// Each entry is {weight, state, version}; entries whose version is
+		// out of date are skipped.
+		final int[] versions = new int[n];
+		final PriorityQueue<long[]> queue = new PriorityQueue<>(
+				(a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+		for (int k = 0; k < n; k++) {
+			queue.add(new long[] { getWeight(k, out, in), k, 0 });
+		}
+		final boolean[] removed = new boolean[n];
+		while (!queue.isEmpty()) {
+			final long[] entry = queue.poll();
+			final int k = (int) entry[1];
+			if (removed[k] || entry[2] != versions[k]) {
+				continue;
+			}
+			removed[k] = true;
+			final ExpressionNode loop = star(out.get(k).containsKey(k) ? out.get(k).get(k) : ExpressionNode.empty());
+			out.get(k).remove(k);
+			in.get(k).remove(k);
+			for (final Map.Entry<Integer, ExpressionNode> into : in.get(k).entrySet()) {
+				final int p = into.getKey();
+				out.get(p).remove(k);
+				final ExpressionNode prefix = concatenate(into.getValue(), loop);
+				for (final Map.Entry<Integer, ExpressionNode> from : out.get(k).entrySet()) {
+					addArc(p, from.getKey(), concatenate(prefix, from.getValue()), out, in);
+				}
+			}
+			for (final Integer q : out.get(k).keySet()) {
+				in.get(q).remove(k);
+			}
+			final LinkedHashSet<Integer> neighbors = new LinkedHashSet<>(in.get(k).keySet());
+			neighbors.addAll(out.get(k).keySet());
+			out.get(k).clear();
+			in.get(k).clear();
+			for (final Integer neighbor : neighbors) {
+				if (neighbor < n && !removed[neighbor]) {
+					queue.add(new long[] { getWeight(neighbor, out, in), neighbor, ++versions[neighbor] });
+				}
+			}
+		}
+		final ExpressionNode result = out.get(source).get(sink);
+		return result == null ? ExpressionNode.empty() : result;
+	}
+
 	/**
 	 * Returns the regular expression that represents <CODE>automaton</CODE>.
 	 *
@@ -325,6 +465,59 @@ public class FSAToRegularExpressionConverter {
 		return trans.getLabel();
 	}
 
+	/**
+	 * Returns the expression read by a transition label: lambda for the empty
+	 * label, a choice of characters for a range such as <CODE>[a-z]</CODE>,
+	 * and otherwise its characters in turn.
+	 */
+	private static ExpressionNode getLabelExpression(final String label) {
+		if (label.indexOf('[') >= 0) {
+			final char[] chars = CompiledDFA.getCharacters(label);
+			if (chars == null || chars.length == 0) {
+				return ExpressionNode.empty();
+			}
+			final List<ExpressionNode> symbols = new ArrayList<>();
+			for (final char c : chars) {
+				symbols.add(ExpressionNode.symbol(c));
+			}
+			return ExpressionNode.union(symbols);
+		}
+		if (label.length() == 0) {
+			return ExpressionNode.lambda();
+		}
+		final List<ExpressionNode> symbols = new ArrayList<>();
+		for (int i = 0; i < label.length(); i++) {
+			symbols.add(ExpressionNode.symbol(label.charAt(i)));
+		}
+		return ExpressionNode.concatenation(symbols);
+	}
+
+	/**
+	 * Returns how much eliminating a state would add to the sizes of the arcs
+	 * of a generalized transition graph: every arc into the state is copied
+	 * once for each arc out of it, and the other way around, so each is
+	 * counted once less than it is copied, and the loop is copied onto every
+	 * new arc.
+	 */
+	private static long getWeight(final int state, final List<Map<Integer, ExpressionNode>> out,
+			final List<Map<Integer, ExpressionNode>> in) {
+		final ExpressionNode loop = out.get(state).get(state);
+		final int ins = in.get(state).size() - (loop == null ? 0 : 1);
+		final int outs = out.get(state).size() - (loop == null ? 0 : 1);
+		long weight = loop == null ? 0 : (long) loop.getSize() * ((long) ins * outs - 1);
+		for (final Map.Entry<Integer, ExpressionNode> arc : in.get(state).entrySet()) {
+			if (arc.getKey() != state) {
+				weight += (long) arc.getValue().getSize() * (outs - 1);
+			}
+		}
+		for (final Map.Entry<Integer, ExpressionNode> arc : out.get(state).entrySet()) {
+			if (arc.getKey() != state) {
+				weight += (long) arc.getValue().getSize() * (ins - 1);
+			}
+		}
+		return weight;
+	}
+
 	/**
 	 * Returns the expression for the generalized transition graph
 	 * <CODE>automaton</CODE> with two states, a unique initial and unique final
@@ -633,6 +826,36 @@ public class FSAToRegularExpressionConverter {
 		return r1 + OR + r2;
 	}
 
+	/**
+	 * Returns the expression that represents <CODE>r1</CODE> or'ed with
+	 * <CODE>r2</CODE>. The empty set is left out, and so is any term already
+	 * in the union.
+	 *
+	 * @param r1
+	 *            the first expression
+	 * @param r2
+	 *            the second expression
+	 * @return the expression that represents <CODE>r1</CODE> or'ed with
+	 *         <CODE>r2</CODE>.
+	 */
+	public static ExpressionNode or(final ExpressionNode r1, final ExpressionNode r2) {
+		if (r1.getKind() == ExpressionNode.Kind.EMPTY || r1.equals(r2)) {
+			return r2;
+		}
+		if (r2.getKind() == ExpressionNode.Kind.EMPTY) {
+			return r1;
+		}
+		final LinkedHashSet<ExpressionNode> terms = new LinkedHashSet<>();
+		for (final ExpressionNode r : new ExpressionNode[] { r1, r2 }) {
+			if (r.getKind() == ExpressionNode.Kind.UNION) {
+				terms.addAll(r.getChildren());
+			} else {
+				terms.add(r);
+			}
+		}
+		return ExpressionNode.union(new ArrayList<>(terms));
+	}
+
 	/**
 	 * Completely reconstructs <CODE>automaton</CODE>, removing all transitions
 	 * and <CODE>state</CODE> and adding all transitions in
@@ -679,6 +902,33 @@ public class FSAToRegularExpressionConverter {
 		return r1 + KLEENE_STAR;
 	}
 
+	/**
+	 * Returns the expression that represents <CODE>r1</CODE> kleene-starred,
+	 * which is lambda for the empty set and lambda, <CODE>r1</CODE> itself if
+	 * it is already starred, and leaves lambda out of a starred union.
+	 *
+	 * @param r1
+	 *            the expression being kleene-starred.
+	 * @return the expression that represents <CODE>r1</CODE> kleene-starred.
+	 */
+	public static ExpressionNode star(final ExpressionNode r1) {
+		switch (r1.getKind()) {
+		case EMPTY:
+		case LAMBDA:
+			return ExpressionNode.lambda();
+		case STAR:
+			return r1;
+		case UNION:
+			final List<ExpressionNode> terms = new ArrayList<>(r1.getChildren());
+			if (terms.remove(ExpressionNode.lambda())) {
+				return star(ExpressionNode.union(terms));
+			}
+			return ExpressionNode.star(r1);
+		default:
+			return ExpressionNode.star(r1);
+		}
+	}
+
 	/**
 	 * Creates an instance of <CODE>FSAToRegularExpressionConverter</CODE>.
 	 */
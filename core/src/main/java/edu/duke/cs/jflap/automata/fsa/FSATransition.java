@@ -101,6 +101,31 @@ public class FSATransition extends Transition {
 		return getLabel();
 	}
 
+	/**
+	 * Returns the first symbol a label reads, following the same
+	 * interpretation as the simulators: a label containing <CODE>[</CODE> is a
+	 * character range, which has no single first symbol.
+	 *
+	 * @param label
+	 *            the label
+	 * @return the first character of the label, or
+	 *         <CODE>Transition.NO_SYMBOL</CODE> for a lambda label or a range
+	 */
+	static int getFirstSymbol(final String label) {
+		return label.length() == 0 || label.indexOf('[') >= 0 ? NO_SYMBOL : label.charAt(0);
+	}
+
+	/**
+	 * Returns the first character of the label.
+	 *
+	 * @return the first character of the label, or <CODE>NO_SYMBOL</CODE> for
+	 *         a lambda label or a character range
+	 */
+	@Override
+	public int getFirstSymbol() {
+		return getFirstSymbol(myLabel);
+	}
+
 	/**
 	 * Returns the label for this transition.
 	 */
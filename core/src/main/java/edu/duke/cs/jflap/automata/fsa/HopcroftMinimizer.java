@@ -0,0 +1,481 @@
+/*
+*  JFLAP - Formal Languages and Automata Package
+*
+*
+*  Susan H. Rodger
+*  Computer Science Department
+*  Duke University
+*  August 27, 2009
+
+*  Copyright (c) 2002-2009
+*  All rights reserved.
+
+*  JFLAP is open source software. Please see the LICENSE for terms.
+*
+*/
+
+package edu.duke.cs.jflap.automata.fsa;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.TreeSet;
+
+import edu.duke.cs.jflap.automata.Automaton;
+import edu.duke.cs.jflap.automata.AutomatonSnapshot;
+import edu.duke.cs.jflap.automata.State;
+import edu.duke.cs.jflap.automata.StatePlacer;
+import edu.duke.cs.jflap.automata.Transition;
+
+/**
+ * The Hopcroft minimizer minimizes a finite state automaton in one call, by
+ * Hopcroft's partition refinement over integer-indexed transition arrays. It
+ * takes O(n k log n) time for n states and k letters, and does not build the
+ * tree of distinguishable groups that the step by step <CODE>Minimizer</CODE>
+ * shows in the GUI.
+ *
+ * The automaton is first made deterministic with <CODE>NFAToDFA</CODE> if it
+ * has lambda transitions, nondeterminism or labels longer than one character.
+ * Unreachable states are ignored, and missing transitions go to an implicit
+ * trap state. States that cannot reach a final state are merged with the trap
+ * state and left out of the result, so the result is the unique minimal dfa
+ * without dead states. Its states are numbered in breadth first order from the
+ * initial state, following letters in sorted order, and labelled with the
+ * states of the dfa they represent, so two automata accepting the same
+ * language minimize to identical automata.
+ *
+ * @see edu.duke.cs.jflap.automata.fsa.Minimizer
+ */
+public class HopcroftMinimizer {
+	/**
+	 * Creates an instance of <CODE>HopcroftMinimizer</CODE>.
+	 */
+	public HopcroftMinimizer() {
+	}
+
+	/**
+	 * Returns the transition table of a dfa, indexed by state * alphabet size
+	 * + letter, with -1 for missing transitions.
+	 *
+	 * @return the table, or <CODE>null</CODE> if the automaton has a lambda
+	 *         transition, a label longer than one character, or is
+	 *         nondeterministic
+	 */
+	private int[] getTable(final Automaton dfa, final HashMap<State, Integer> index,
+			final HashMap<String, Integer> letters) {
+		final int k = letters.size();
+		final int[] table = new int[index.size() * k];
+		Arrays.fill(table, -1);
+		for (final Transition transition : dfa.getTransitions()) {
+			final String label = ((FSATransition) transition).getLabel();
+			if (label.length() != 1) {
+				return null;
+			}
+			final int cell = index.get(transition.getFromState()) * k + letters.get(label);
+			final int to = index.get(transition.getToState());
+			if (table[cell] != -1 && table[cell] != to) {
+				return null;
+			}
+			table[cell] = to;
+		}
+		return table;
+	}
+
+	/**
+	 * Returns the minimal dfa accepting the same language as
+	 * <CODE>automaton</CODE>. <CODE>automaton</CODE> is not changed.
+	 *
+	 * @param automaton
+	 *            the finite state automaton to minimize
+	 * @return the minimal dfa
+	 * @throws IllegalArgumentException
+	 *             if the automaton has no initial state
+	 */
+	public FiniteStateAutomaton minimize(final Automaton automaton) {
+		if (automaton.getInitialState() == null) {
+			throw new IllegalArgumentException("The automaton has no initial state");
+		}
+		final TreeSet<String> sorted = new TreeSet<>();
+		for (final Transition transition : automaton.getTransitions()) {
+			sorted.add(((FSATransition) transition).getLabel());
+		}
+		Automaton dfa = automaton;
+		HashMap<String, Integer> letters = getLetters(sorted);
+		HashMap<State, Integer> index = getIndex(dfa);
+		int[] table = getTable(dfa, index, letters);
+		if (table == null) {
+			dfa = new NFAToDFA().convertToDFA(FSALabelHandler.removeMultipleCharacterLabels(automaton));
+			sorted.clear();
+			for (final Transition transition : dfa.getTransitions()) {
+				sorted.add(((FSATransition) transition).getLabel());
+			}
+			letters = getLetters(sorted);
+			index = getIndex(dfa);
+			table = getTable(dfa, index, letters);
+		}
+		final State[] states = dfa.getStates().toArray(new State[0]);
+		final String[] alphabet = sorted.toArray(new String[0]);
+		final int k = alphabet.length;
+
+		/** keep the reachable states, numbered in breadth first order. */
+		final int[] number = new int[states.length];
+		Arrays.fill(number, -1);
+		final int[] order = new int[states.length];
+		int n = 0;
+		order[n] = index.get(dfa.getInitialState());
+		number[order[n++]] = 0;
+		for (int i = 0; i < n; i++) {
+			for (int a = 0; a < k; a++) {
+				final int t = table[order[i] * k + a];
+				if (t >= 0 && number[t] < 0) {
+					number[t] = n;
+					order[n++] = t;
+				}
+			}
+		}
+
+		/** the complete dfa over the reachable states, with trap state n. */
+		final int size = n + 1;
+		final int trap = n;
+		final int[] delta = new int[size * k];
+		for (int s = 0; s < n; s++) {
+			for (int a = 0; a < k; a++) {
+				final int t = table[order[s] * k + a];
+				delta[s * k + a] = t < 0 ? trap : number[t];
+			}
+		}
+		Arrays.fill(delta, trap * k, size * k, trap);
+		final boolean[] finals = new boolean[size];
+		for (int s = 0; s < n; s++) {
+			finals[s] = dfa.isFinalState(states[order[s]]);
+		}
+
+		final int[] blockOf = refine(delta, finals, size, k);
+
+		/** number the blocks in breadth first order, leaving out the trap. */
+		final int trapBlock = blockOf[trap];
+		final int[] representative = new int[size];
+		final int[] blockNumber = new int[size];
+		Arrays.fill(blockNumber, -1);
+		int blocks = 0;
+		representative[blocks] = 0;
+		blockNumber[blockOf[0]] = blocks++;
+		for (int i = 0; i < blocks; i++) {
+			for (int a = 0; a < k; a++) {
+				final int b = blockOf[delta[representative[i] * k + a]];
+				if (b != trapBlock && blockNumber[b] < 0) {
+					blockNumber[b] = blocks;
+					representative[blocks++] = delta[representative[i] * k + a];
+				}
+			}
+		}
+
+		/** build the minimal dfa. */
+		final FiniteStateAutomaton minDfa = new FiniteStateAutomaton();
+		final StatePlacer sp = new StatePlacer();
+		final List<List<State>> groups = new ArrayList<>();
+		final State[] minStates = new State[blocks];
+		for (int i = 0; i < blocks; i++) {
+			groups.add(new ArrayList<State>());
+			minStates[i] = minDfa.createStateWithId(sp.getPointForState(minDfa), i);
+			if (finals[representative[i]]) {
+				minDfa.addFinalState(minStates[i]);
+			}
+		}
+		for (int s = 0; s < n; s++) {
+			final int b = blockNumber[blockOf[s]];
+			if (b >= 0) {
+				groups.get(b).add(states[order[s]]);
+			}
+		}
+		for (int i = 0; i < blocks; i++) {
+			final List<State> group = groups.get(i);
+			group.sort((s, t) -> s.getID() - t.getID());
+			final StringBuilder label = new StringBuilder();
+			for (final State state : group) {
+				if (label.length() > 0) {
+					label.append(",");
+				}
+				label.append(state.getID());
+			}
+			minStates[i].setLabel(label.toString());
+			for (int a = 0; a < k; a++) {
+				final int b = blockNumber[blockOf[delta[representative[i] * k + a]]];
+				if (b >= 0 && blockOf[delta[representative[i] * k + a]] != trapBlock) {
+					minDfa.addTransition(new FSATransition(minStates[i], minStates[b], alphabet[a]));
+				}
+			}
+		}
+		minDfa.setInitialState(minStates[0]);
+		return minDfa;
+	}
+
+	/**
+	 * Returns the minimal dfa accepting the same language as the automaton of
+	 * a snapshot. The minimization works on a private copy, so the same
+	 * snapshot may be minimized from many threads at once.
+	 *
+	 * @param snapshot
+	 *            the snapshot of the finite state automaton to minimize
+	 * @return the minimal dfa
+	 * @throws IllegalArgumentException
+	 *             if the automaton has no initial state
+	 */
+	public FiniteStateAutomaton minimize(final AutomatonSnapshot snapshot) {
+		return minimize(snapshot.toAutomaton());
+	}
+
+	/**
+	 * Returns the minimal dfa accepting the same language as a compact
+	 * automaton, as a compact automaton. No <CODE>State</CODE> or
+	 * <CODE>Transition</CODE> objects are created, so this works for machines
+	 * too large to minimize through <CODE>FiniteStateAutomaton</CODE>. The
+	 * states of the result are numbered as {@link #minimize(Automaton)}
+	 * numbers them.
+	 *
+	 * @param automaton
+	 *            the compact automaton to minimize
+	 * @return the minimal dfa
+	 */
+	public CompactFSA minimize(final CompactFSA automaton) {
+		final CompactFSA dfa = automaton.determinize();
+		final int k = dfa.getAlphabetSize();
+
+		/** keep the reachable states, numbered in breadth first order. */
+		final int[] number = new int[dfa.getStateCount()];
+		Arrays.fill(number, -1);
+		final int[] order = new int[number.length];
+		int n = 0;
+		order[n] = dfa.getInitialState();
+		number[order[n++]] = 0;
+		for (int i = 0; i < n; i++) {
+			for (int e = dfa.getTransitionStart(order[i]); e < dfa.getTransitionStart(order[i] + 1); e++) {
+				final int t = dfa.getTransitionTarget(e);
+				if (number[t] < 0) {
+					number[t] = n;
+					order[n++] = t;
+				}
+			}
+		}
+
+		/** the complete dfa over the reachable states, with trap state n. */
+		final int size = n + 1;
+		final int trap = n;
+		final int[] delta = new int[size * k];
+		Arrays.fill(delta, trap);
+		final boolean[] finals = new boolean[size];
+		for (int s = 0; s < n; s++) {
+			for (int e = dfa.getTransitionStart(order[s]); e < dfa.getTransitionStart(order[s] + 1); e++) {
+				delta[s * k + dfa.getTransitionSymbol(e)] = number[dfa.getTransitionTarget(e)];
+			}
+			finals[s] = dfa.isFinalState(order[s]);
+		}
+
+		final int[] blockOf = refine(delta, finals, size, k);
+
+		/** number the blocks in breadth first order, leaving out the trap. */
+		final int trapBlock = blockOf[trap];
+		final int[] representative = new int[size];
+		final int[] blockNumber = new int[size];
+		Arrays.fill(blockNumber, -1);
+		int blocks = 0;
+		representative[blocks] = 0;
+		blockNumber[blockOf[0]] = blocks++;
+		int transitions = 0;
+		for (int i = 0; i < blocks; i++) {
+			for (int a = 0; a < k; a++) {
+				final int b = blockOf[delta[representative[i] * k + a]];
+				if (b != trapBlock) {
+					transitions++;
+					if (blockNumber[b] < 0) {
+						blockNumber[b] = blocks;
+						representative[blocks++] = delta[representative[i] * k + a];
+					}
+				}
+			}
+		}
+
+		/** build the minimal dfa. */
+		final int[] offsets = new int[blocks + 1];
+		final int[] symbols = new int[transitions];
+		final int[] targets = new int[transitions];
+		final BitSet minFinals = new BitSet(blocks);
+		int m = 0;
+		for (int i = 0; i < blocks; i++) {
+			offsets[i] = m;
+			if (finals[representative[i]]) {
+				minFinals.set(i);
+			}
+			for (int a = 0; a < k; a++) {
+				final int b = blockOf[delta[representative[i] * k + a]];
+				if (b != trapBlock) {
+					symbols[m] = a;
+					targets[m++] = blockNumber[b];
+				}
+			}
+		}
+		offsets[blocks] = m;
+		final char[] alphabet = new char[k];
+		for (int a = 0; a < k; a++) {
+			alphabet[a] = dfa.getSymbolCharacter(a);
+		}
+		return CompactFSA.create(0, minFinals, alphabet, offsets, symbols, targets);
+	}
+
+	/**
+	 * Numbers the states of an automaton in the order they are listed.
+	 */
+	private HashMap<State, Integer> getIndex(final Automaton automaton) {
+		final List<State> states = automaton.getStates();
+		final HashMap<State, Integer> index = new HashMap<>();
+		for (int i = 0; i < states.size(); i++) {
+			index.put(states.get(i), i);
+		}
+		return index;
+	}
+
+	/**
+	 * Numbers the letters in sorted order.
+	 */
+	private HashMap<String, Integer> getLetters(final TreeSet<String> sorted) {
+		final HashMap<String, Integer> letters = new HashMap<>();
+		for (final String letter : sorted) {
+			letters.put(letter, letters.size());
+		}
+		return letters;
+	}
+
+	/**
+	 * Splits the states of a complete dfa into blocks of equivalent states.
+	 *
+	 * @param delta
+	 *            the transition table, indexed by state * k + letter
+	 * @param finals
+	 *            which states are final
+	 * @param n
+	 *            the number of states
+	 * @param k
+	 *            the number of letters
+	 * @return the block number of every state
+	 */
+	public int[] refine(final int[] delta, final boolean[] finals, final int n, final int k) {
+		/** predecessors of every state on every letter. */
+		final int[] inverseOffsets = new int[n * k + 1];
+		for (int s = 0; s < n; s++) {
+			for (int a = 0; a < k; a++) {
+				inverseOffsets[delta[s * k + a] * k + a + 1]++;
+			}
+		}
+		for (int i = 1; i < inverseOffsets.length; i++) {
+			inverseOffsets[i] += inverseOffsets[i - 1];
+		}
+		final int[] inverse = new int[n * k];
+		final int[] fill = Arrays.copyOf(inverseOffsets, n * k);
+		for (int s = 0; s < n; s++) {
+			for (int a = 0; a < k; a++) {
+				inverse[fill[delta[s * k + a] * k + a]++] = s;
+			}
+		}
+
+		/**
+		 * each block is a range of the elements array; the marked states of
+		 * a block are moved to the front of its range.
+		 */
+		final int[] elements = new int[n];
+		final int[] location = new int[n];
+		final int[] blockOf = new int[n];
+		final int[] start = new int[n];
+		final int[] end = new int[n];
+		final int[] marked = new int[n];
+		int blocks = 0;
+		int next = 0;
+		for (final boolean finality : new boolean[] { true, false }) {
+			final int first = next;
+			for (int s = 0; s < n; s++) {
+				if (finals[s] == finality) {
+					elements[next] = s;
+					location[s] = next++;
+					blockOf[s] = blocks;
+				}
+			}
+			if (next > first) {
+				start[blocks] = first;
+				end[blocks++] = next;
+			}
+		}
+
+		/** the splitters still to process, as block * k + letter. */
+		final boolean[] waiting = new boolean[n * k];
+		final int[] work = new int[n * k];
+		int top = 0;
+		final int smaller = blocks == 2 && end[1] - start[1] < end[0] - start[0] ? 1 : 0;
+		for (int a = 0; a < k; a++) {
+			work[top++] = smaller * k + a;
+			waiting[smaller * k + a] = true;
+		}
+
+		final int[] predecessors = new int[n];
+		final int[] touched = new int[n];
+		while (top > 0) {
+			final int splitter = work[--top];
+			waiting[splitter] = false;
+			final int block = splitter / k;
+			final int a = splitter % k;
+
+			int count = 0;
+			for (int i = start[block]; i < end[block]; i++) {
+				final int cell = elements[i] * k + a;
+				for (int j = inverseOffsets[cell]; j < inverseOffsets[cell + 1]; j++) {
+					predecessors[count++] = inverse[j];
+				}
+			}
+
+			int touchedCount = 0;
+			for (int i = 0; i < count; i++) {
+				final int p = predecessors[i];
+				final int b = blockOf[p];
+				if (marked[b] == 0) {
+					touched[touchedCount++] = b;
+				}
+				final int to = start[b] + marked[b]++;
+				final int other = elements[to];
+				elements[location[p]] = other;
+				location[other] = location[p];
+				elements[to] = p;
+				location[p] = to;
+			}
+
+			for (int i = 0; i < touchedCount; i++) {
+				final int b = touched[i];
+				final int m = marked[b];
+				marked[b] = 0;
+				if (m == end[b] - start[b]) {
+					continue;
+				}
+				/** the new block takes the smaller of the two parts. */
+				final int created = blocks++;
+				if (m <= end[b] - start[b] - m) {
+					start[created] = start[b];
+					end[created] = start[b] + m;
+					start[b] += m;
+				} else {
+					start[created] = start[b] + m;
+					end[created] = end[b];
+					end[b] = start[b] + m;
+				}
+				for (int j = start[created]; j < end[created]; j++) {
+					blockOf[elements[j]] = created;
+				}
+				for (int c = 0; c < k; c++) {
+					if (!waiting[created * k + c]) {
+						waiting[created * k + c] = true;
+						work[top++] = created * k + c;
+					}
+				}
+			}
+		}
+		return blockOf;
+	}
+}
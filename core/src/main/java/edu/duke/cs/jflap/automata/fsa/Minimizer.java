@@ -131,8 +131,9 @@ public class Minimizer {
 		TRAP_STATE = trapState;
 		final AlphabetRetriever far = new FSAAlphabetRetriever();
 		for (final State state : automaton.getStates()) {
-			final List<Transition> transitions = automaton.getTransitionsFromState(state);
 			for (final String letter : far.getAlphabet(automaton)) {
+				final List<Transition> transitions = automaton.getTransitionsFromState(state,
+						FSATransition.getFirstSymbol(letter));
 				if (!isTransitionOnTerminal(transitions, letter)) {
 					final FSATransition trans = new FSATransition(state, trapState, letter);
 					automaton.addTransition(trans);
@@ -300,7 +301,8 @@ public class Minimizer {
 			if (group.get(k).getAutomaton() != automaton) {
 				System.err.println("BADNESS!  BADNESS!");
 			}
-			final List<Transition> transitions = automaton.getTransitionsFromState(group.get(k));
+			final List<Transition> transitions = automaton.getTransitionsFromState(group.get(k),
+					FSATransition.getFirstSymbol(terminal));
 			for (int j = 0; j < transitions.size(); j++) {
 				final FSATransition trans = (FSATransition) transitions.get(j);
 				if (trans.getLabel().equals(terminal)) {
@@ -722,8 +724,9 @@ public class Minimizer {
 		final AlphabetRetriever far = new FSAAlphabetRetriever();
 		final List<String> alphabet = far.getAlphabet(automaton);
 		for (final State state : automaton.getStates()) {
-			final List<Transition> transitions = automaton.getTransitionsFromState(state);
 			for (final String letter : alphabet) {
+				final List<Transition> transitions = automaton.getTransitionsFromState(state,
+						FSATransition.getFirstSymbol(letter));
 				if (!isTransitionOnTerminal(transitions, letter)) {
 					return true;
 				}
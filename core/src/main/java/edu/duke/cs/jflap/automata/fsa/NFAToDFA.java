@@ -17,9 +17,10 @@
 package edu.duke.cs.jflap.automata.fsa;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import java.util.StringTokenizer;
@@ -29,6 +30,7 @@ import com.google.common.collect.Lists;
 import edu.duke.cs.jflap.automata.AlphabetRetriever;
 import edu.duke.cs.jflap.automata.Automaton;
 import edu.duke.cs.jflap.automata.AutomatonChecker;
+import edu.duke.cs.jflap.automata.AutomatonSnapshot;
 import edu.duke.cs.jflap.automata.ClosureTaker;
 import edu.duke.cs.jflap.automata.State;
 import edu.duke.cs.jflap.automata.StatePlacer;
@@ -50,6 +52,10 @@ import edu.duke.cs.jflap.automata.Transition;
  * himself, without having to worry about mapping the state to the states it
  * represents.
  *
+ * convertToDFA does not go through the labels. It numbers the states of the
+ * nfa, keys each set of nfa states by a bitset in a hash map, expands the sets
+ * from a worklist, and only builds the dfa once every set has been found.
+ *
  * @author Ryan Cavalcante
  */
 public class NFAToDFA {
@@ -94,7 +100,10 @@ public class NFAToDFA {
 	/**
 	 * Returns a deterministic finite state automaton equivalent to
 	 * <CODE>automaton</CODE>. <CODE>automaton</CODE> is not at all affected by
-	 * this conversion.
+	 * this conversion, except that labels longer than one character are split
+	 * up. The states of the dfa are labelled with the nfa states they
+	 * represent, just as if they had been built with
+	 * <CODE>expandState</CODE>.
 	 *
 	 * @param automaton
 	 *            the automaton to convert to a dfa.
@@ -111,28 +120,22 @@ public class NFAToDFA {
 		if (FSALabelHandler.hasMultipleCharacterLabels(automaton)) {
 			FSALabelHandler.removeMultipleCharacterLabelsFromAutomaton(automaton);
 		}
-		/** create new finite state automaton. */
-		final FiniteStateAutomaton dfa = new FiniteStateAutomaton();
-		final State initialState = createInitialState(automaton, dfa);
-		/**
-		 * get initial state and add to list of states that need to be expanded.
-		 */
-		final List<State> list = new ArrayList<>();
-		list.add(initialState);
-		/** while still more states to be expanded. */
-		while (!list.isEmpty()) {
-			final List<State> statesToExpand = new ArrayList<>();
-			final Iterator<State> it = list.iterator();
-			while (it.hasNext()) {
-				final State state = it.next();
-				/** expand state. */
-				statesToExpand.addAll(expandState(state, automaton, dfa));
-				it.remove();
-			}
-			list.addAll(statesToExpand);
-		}
+		return determinize(automaton);
+	}
 
-		return dfa;
+	/**
+	 * Returns a deterministic finite state automaton equivalent to the
+	 * automaton of a snapshot. The conversion works on a private copy, so the
+	 * same snapshot may be converted from many threads at once.
+	 *
+	 * @param snapshot
+	 *            the snapshot of the automaton to convert to a dfa
+	 * @return a deterministic finite state automaton equivalent to the
+	 *         automaton of <CODE>snapshot</CODE>
+	 * @see #convertToDFA(Automaton)
+	 */
+	public FiniteStateAutomaton convertToDFA(final AutomatonSnapshot snapshot) {
+		return convertToDFA(snapshot.toAutomaton());
 	}
 
 	/**
@@ -250,6 +253,166 @@ public class NFAToDFA {
 		return list;
 	}
 
+	/**
+	 * Builds the dfa for an nfa whose labels are at most one character long,
+	 * by subset construction over bitsets of nfa state numbers.
+	 *
+	 * @param nfa
+	 *            the nfa to convert
+	 * @return the equivalent dfa
+	 */
+	private FiniteStateAutomaton determinize(final Automaton nfa) {
+		final State[] nfaStates = nfa.getStates().toArray(new State[0]);
+		final int n = nfaStates.length;
+		final int words = (n + 63) >>> 6;
+		final HashMap<State, Integer> index = new HashMap<>();
+		for (int i = 0; i < n; i++) {
+			index.put(nfaStates[i], i);
+		}
+		final List<String> letters = new FSAAlphabetRetriever().getAlphabet(nfa);
+		final int k = letters.size();
+		final HashMap<String, Integer> letterIndex = new HashMap<>();
+		for (int i = 0; i < k; i++) {
+			letterIndex.put(letters.get(i), i);
+		}
+
+		/** successors of every nfa state on every letter, and lambda moves. */
+		final int[] offsets = new int[n * k + 1];
+		final int[] lambdaOffsets = new int[n + 1];
+		final List<Transition> transitions = nfa.getTransitions();
+		for (final Transition transition : transitions) {
+			final String label = ((FSATransition) transition).getLabel();
+			final int from = index.get(transition.getFromState());
+			if (label.length() == 0) {
+				lambdaOffsets[from + 1]++;
+			} else {
+				offsets[from * k + letterIndex.get(label) + 1]++;
+			}
+		}
+		for (int i = 1; i < offsets.length; i++) {
+			offsets[i] += offsets[i - 1];
+		}
+		for (int i = 1; i < lambdaOffsets.length; i++) {
+			lambdaOffsets[i] += lambdaOffsets[i - 1];
+		}
+		final int[] targets = new int[offsets[n * k]];
+		final int[] lambdaTargets = new int[lambdaOffsets[n]];
+		final int[] fill = Arrays.copyOf(offsets, n * k);
+		final int[] lambdaFill = Arrays.copyOf(lambdaOffsets, n);
+		for (final Transition transition : transitions) {
+			final String label = ((FSATransition) transition).getLabel();
+			final int from = index.get(transition.getFromState());
+			final int to = index.get(transition.getToState());
+			if (label.length() == 0) {
+				lambdaTargets[lambdaFill[from]++] = to;
+			} else {
+				targets[fill[from * k + letterIndex.get(label)]++] = to;
+			}
+		}
+
+		/** the lambda closure of every nfa state. */
+		final long[] closures = new long[n * words];
+		final int[] stack = new int[n];
+		for (int s = 0; s < n; s++) {
+			final int base = s * words;
+			int top = 0;
+			stack[top++] = s;
+			closures[base + (s >>> 6)] |= 1L << s;
+			while (top > 0) {
+				final int t = stack[--top];
+				for (int i = lambdaOffsets[t]; i < lambdaOffsets[t + 1]; i++) {
+					final int u = lambdaTargets[i];
+					if ((closures[base + (u >>> 6)] & (1L << u)) == 0) {
+						closures[base + (u >>> 6)] |= 1L << u;
+						stack[top++] = u;
+					}
+				}
+			}
+		}
+
+		/** find every reachable set, expanding them in order. */
+		final List<long[]> sets = new ArrayList<>();
+		final HashMap<StateSet, Integer> setIndex = new HashMap<>();
+		final long[] initial = Arrays.copyOfRange(closures, index.get(nfa.getInitialState()) * words,
+				(index.get(nfa.getInitialState()) + 1) * words);
+		sets.add(initial);
+		setIndex.put(new StateSet(initial), 0);
+		int[] moves = new int[k];
+		long[] reached = new long[words];
+		for (int d = 0; d < sets.size(); d++) {
+			if (moves.length < sets.size() * k) {
+				moves = Arrays.copyOf(moves, Math.max(sets.size() * k, moves.length * 2));
+			}
+			final long[] set = sets.get(d);
+			for (int letter = 0; letter < k; letter++) {
+				boolean any = false;
+				for (int w = 0; w < words; w++) {
+					long bits = set[w];
+					while (bits != 0) {
+						final int s = (w << 6) + Long.numberOfTrailingZeros(bits);
+						bits &= bits - 1;
+						final int cell = s * k + letter;
+						for (int i = offsets[cell]; i < offsets[cell + 1]; i++) {
+							final int base = targets[i] * words;
+							for (int v = 0; v < words; v++) {
+								reached[v] |= closures[base + v];
+							}
+							any = true;
+						}
+					}
+				}
+				if (!any) {
+					moves[d * k + letter] = -1;
+					continue;
+				}
+				final StateSet key = new StateSet(reached);
+				Integer to = setIndex.get(key);
+				if (to == null) {
+					to = sets.size();
+					sets.add(reached);
+					setIndex.put(key, to);
+					reached = new long[words];
+				} else {
+					Arrays.fill(reached, 0L);
+				}
+				moves[d * k + letter] = to;
+			}
+		}
+
+		/** build the dfa. */
+		final FiniteStateAutomaton dfa = new FiniteStateAutomaton();
+		final StatePlacer sp = new StatePlacer();
+		final State[] dfaStates = new State[sets.size()];
+		final List<State> represented = new ArrayList<>();
+		for (int d = 0; d < dfaStates.length; d++) {
+			dfaStates[d] = dfa.createStateWithId(sp.getPointForState(dfa), d);
+			represented.clear();
+			final long[] set = sets.get(d);
+			for (int w = 0; w < words; w++) {
+				long bits = set[w];
+				while (bits != 0) {
+					represented.add(nfaStates[(w << 6) + Long.numberOfTrailingZeros(bits)]);
+					bits &= bits - 1;
+				}
+			}
+			represented.sort((s, t) -> s.getID() - t.getID());
+			dfaStates[d].setLabel(getStringForStates(represented));
+			if (hasFinalState(represented, nfa)) {
+				dfa.addFinalState(dfaStates[d]);
+			}
+		}
+		dfa.setInitialState(dfaStates[0]);
+		for (int d = 0; d < dfaStates.length; d++) {
+			for (int letter = 0; letter < k; letter++) {
+				final int to = moves[d * k + letter];
+				if (to >= 0) {
+					dfa.addTransition(new FSATransition(dfaStates[d], dfaStates[to], letters.get(letter)));
+				}
+			}
+		}
+		return dfa;
+	}
+
 	/**
 	 * Returns the State mapped to <CODE>states</CODE>.
 	 *
@@ -311,7 +474,8 @@ public class NFAToDFA {
 		final Set<State> list = new HashSet<>();
 		for (int k = 0; k < list2.size(); k++) {
 			final State state = list2.get(k);
-			final List<Transition> transitions = automaton.getTransitionsFromState(state);
+			final List<Transition> transitions = automaton.getTransitionsFromState(state,
+					FSATransition.getFirstSymbol(terminal));
 			for (int i = 0; i < transitions.size(); i++) {
 				final FSATransition transition = (FSATransition) transitions.get(i);
 				if (transition.getLabel().equals(terminal)) {
@@ -0,0 +1,61 @@
+/*
+*  JFLAP - Formal Languages and Automata Package
+*
+*
+*  Susan H. Rodger
+*  Computer Science Department
+*  Duke University
+*  August 27, 2009
+
+*  Copyright (c) 2002-2009
+*  All rights reserved.
+
+*  JFLAP is open source software. Please see the LICENSE for terms.
+*
+*/
+
+package edu.duke.cs.jflap.automata.fsa;
+
+import java.util.Arrays;
+
+/**
+ * A set of state numbers stored as a bitset that can be used as a hash key.
+ * Two sets are equal if their arrays have the same length and contents. The
+ * array is not copied, so it must not be changed once the set is stored in a
+ * map.
+ */
+public final class StateSet {
+	private final long[] bits;
+
+	private final int hash;
+
+	/**
+	 * Instantiates a set over the given bits.
+	 *
+	 * @param bits
+	 *            the bitset, which is not copied
+	 */
+	public StateSet(final long[] bits) {
+		this.bits = bits;
+		hash = Arrays.hashCode(bits);
+	}
+
+	@Override
+	public boolean equals(final Object object) {
+		return object instanceof StateSet && Arrays.equals(bits, ((StateSet) object).bits);
+	}
+
+	/**
+	 * Returns the bits of the set.
+	 *
+	 * @return the bitset
+	 */
+	public long[] getBits() {
+		return bits;
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+}
@@ -17,8 +17,6 @@
 package edu.duke.cs.jflap.automata.graph;
 
 import edu.duke.cs.jflap.automata.fsa.FiniteStateAutomaton;
-import edu.duke.cs.jflap.automata.fsa.Minimizer;
-import edu.duke.cs.jflap.automata.fsa.NFAToDFA;
 
 /**
  * This determines if two FSAs accept the same language.
@@ -26,14 +24,8 @@ import edu.duke.cs.jflap.automata.fsa.NFAToDFA;
  * @author Thomas Finley
  */
 public class FSAEqualityChecker {
-	/** The equality checker. */
-	private static DFAEqualityChecker checker = new DFAEqualityChecker();
-
-	/** The converter for an NFA to a DFA. */
-	private static NFAToDFA nfaConverter = new NFAToDFA();
-
-	/** That which minimizes a DFA. */
-	private static Minimizer minimizer = new Minimizer();
+	/** The equality checker, which determinizes both FSAs on the fly. */
+	private static HopcroftKarpEqualityChecker checker = new HopcroftKarpEqualityChecker();
 
 	/**
 	 * Checks if two FSAs accept the same language.
@@ -45,26 +37,22 @@ public class FSAEqualityChecker {
 	 * @return <CODE>true</CODE> if <CODE>fsa1</CODE> and <CODE>fsa2</CODE>
 	 *         accept the same language, <CODE>false</CODE> if they they do not
 	 */
-	public boolean equals(FiniteStateAutomaton fsa1, FiniteStateAutomaton fsa2) {
-		// Clone for safety.
-		fsa1 = (FiniteStateAutomaton) fsa1.clone();
-		fsa2 = (FiniteStateAutomaton) fsa2.clone();
-
-		// Make sure they're DFAs.
-		fsa1 = nfaConverter.convertToDFA(fsa1);
-		fsa2 = nfaConverter.convertToDFA(fsa2);
-		// Minimize the DFAs.
-		minimizer.initializeMinimizer();
-		fsa1 = (FiniteStateAutomaton) minimizer.getMinimizeableAutomaton(fsa1);
-		javax.swing.tree.DefaultTreeModel tree = minimizer.getDistinguishableGroupsTree(fsa1);
-		fsa1 = minimizer.getMinimumDfa(fsa1, tree);
-
-		minimizer.initializeMinimizer();
-		fsa2 = (FiniteStateAutomaton) minimizer.getMinimizeableAutomaton(fsa2);
-		tree = minimizer.getDistinguishableGroupsTree(fsa2);
-		fsa2 = minimizer.getMinimumDfa(fsa2, tree);
-
-		// Check the minimized DFAs to see if they are the same.
+	public boolean equals(final FiniteStateAutomaton fsa1, final FiniteStateAutomaton fsa2) {
 		return checker.equals(fsa1, fsa2);
 	}
+
+	/**
+	 * Returns a shortest string accepted by one FSA and rejected by the other.
+	 *
+	 * @param fsa1
+	 *            the first finite state automaton
+	 * @param fsa2
+	 *            the second finite state automaton
+	 * @return a shortest string in exactly one of the languages, or
+	 *         <CODE>null</CODE> if <CODE>fsa1</CODE> and <CODE>fsa2</CODE>
+	 *         accept the same language
+	 */
+	public String getCounterexample(final FiniteStateAutomaton fsa1, final FiniteStateAutomaton fsa2) {
+		return checker.getCounterexample(fsa1, fsa2);
+	}
 }
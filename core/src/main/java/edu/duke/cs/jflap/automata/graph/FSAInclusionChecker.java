@@ -0,0 +1,400 @@
+/*
+*  JFLAP - Formal Languages and Automata Package
+*
+*
+*  Susan H. Rodger
+*  Computer Science Department
+*  Duke University
+*  August 27, 2009
+
+*  Copyright (c) 2002-2009
+*  All rights reserved.
+
+*  JFLAP is open source software. Please see the LICENSE for terms.
+*
+*/
+
+package edu.duke.cs.jflap.automata.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import edu.duke.cs.jflap.automata.fsa.CompiledNFA;
+import edu.duke.cs.jflap.automata.fsa.FiniteStateAutomaton;
+
+/**
+ * This determines if the language of one FSA is a subset of the language of
+ * another, without determinizing either. The search explores pairs of a state
+ * of the first automaton and a set of states of the second, reached on the
+ * same string, breadth first; a pair where the state is final and no state in
+ * the set is final gives a string in the first language but not the second,
+ * and the search stops there.
+ *
+ * Pairs are pruned with antichains and a forward simulation computed over
+ * both automata together. A pair is dropped if a state in its set simulates
+ * its state, since then every string the state accepts is accepted by the set,
+ * or if a pair already found has a state simulating this state and a set all
+ * of whose states are simulated by states in this set, since any
+ * counterexample from this pair would be one from that pair. The simulation
+ * is only computed for automata of at most {@link #SIMULATION_LIMIT} states in
+ * total; above that, pairs are only compared by equal states and set
+ * inclusion.
+ *
+ * The languages compared are those accepted by the simulators, as in
+ * <CODE>HopcroftKarpEqualityChecker</CODE>. The checker keeps nothing between
+ * calls, so one instance may be shared between threads.
+ *
+ * @see edu.duke.cs.jflap.automata.graph.FSAEqualityChecker
+ */
+public class FSAInclusionChecker {
+	/** The largest total number of states for which simulation is computed. */
+	public static final int SIMULATION_LIMIT = 2048;
+
+	/**
+	 * The pairs found by a search, in breadth first order, each with the pair
+	 * it was reached from and the symbol it was reached on. The sets kept for
+	 * each state of the first automaton form an antichain.
+	 */
+	private static final class Pairs {
+		/** The states of the first automaton simulating each of its states. */
+		private final int[][] stronger;
+
+		/** The states of the second automaton simulating each of the first. */
+		private final long[][] covering;
+
+		/** The states of the second automaton simulated by each of its states. */
+		private final long[][] weaker;
+
+		/** The sets of states of the second automaton, one per pair. */
+		private final List<long[]> sets = new ArrayList<>();
+
+		/** The antichain of sets for each state of the first automaton. */
+		private final List<List<long[]>> antichains = new ArrayList<>();
+
+		private int[] states = new int[16];
+
+		private int[] parents = new int[16];
+
+		private int[] symbols = new int[16];
+
+		private int size;
+
+		private Pairs(final int n1, final int[][] stronger, final long[][] covering, final long[][] weaker) {
+			this.stronger = stronger;
+			this.covering = covering;
+			this.weaker = weaker;
+			for (int p = 0; p < n1; p++) {
+				antichains.add(new ArrayList<long[]>());
+			}
+		}
+
+		/**
+		 * Adds a pair unless it is subsumed.
+		 *
+		 * @param state
+		 *            the state of the first automaton
+		 * @param set
+		 *            the set of states of the second automaton
+		 * @param parent
+		 *            the pair this one was reached from, or -1
+		 * @param symbol
+		 *            the symbol it was reached on
+		 */
+		private void offer(final int state, final long[] set, final int parent, final int symbol) {
+			if (intersects(covering[state], set)) {
+				return;
+			}
+			final long[] down = new long[set.length];
+			for (int w = 0; w < set.length; w++) {
+				long bits = set[w];
+				while (bits != 0) {
+					final long[] simulated = weaker[(w << 6) + Long.numberOfTrailingZeros(bits)];
+					bits &= bits - 1;
+					for (int v = 0; v < down.length; v++) {
+						down[v] |= simulated[v];
+					}
+				}
+			}
+			for (final int q : stronger[state]) {
+				for (final long[] found : antichains.get(q)) {
+					if (isSubset(found, down)) {
+						return;
+					}
+				}
+			}
+			final List<long[]> antichain = antichains.get(state);
+			antichain.removeIf(found -> isSubset(set, found));
+			antichain.add(set);
+
+			if (size == states.length) {
+				states = Arrays.copyOf(states, size * 2);
+				parents = Arrays.copyOf(parents, size * 2);
+				symbols = Arrays.copyOf(symbols, size * 2);
+			}
+			sets.add(set);
+			states[size] = state;
+			parents[size] = parent;
+			symbols[size++] = symbol;
+		}
+	}
+
+	/**
+	 * Creates an instance of <CODE>FSAInclusionChecker</CODE>.
+	 */
+	public FSAInclusionChecker() {
+	}
+
+	/**
+	 * Returns if every bit of one set is in another.
+	 */
+	private static boolean isSubset(final long[] set1, final long[] set2) {
+		for (int w = 0; w < set1.length; w++) {
+			if ((set1[w] & ~set2[w]) != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns if two sets share a bit.
+	 */
+	private static boolean intersects(final long[] set1, final long[] set2) {
+		for (int w = 0; w < set1.length; w++) {
+			if ((set1[w] & set2[w]) != 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the states of a compiled automaton reached from one state on a
+	 * symbol, or an empty set if the symbol is -1.
+	 */
+	private static long[] post(final CompiledNFA nfa, final int state, final int symbol) {
+		final long[] to = new long[nfa.getWordCount()];
+		if (symbol >= 0) {
+			final long[] from = new long[nfa.getWordCount()];
+			from[state >>> 6] = 1L << state;
+			nfa.step(from, symbol, to);
+		}
+		return to;
+	}
+
+	/**
+	 * Computes the largest forward simulation over the states of both
+	 * automata together, numbered with the states of the first automaton
+	 * before those of the second, over the alphabet of the first.
+	 *
+	 * @return for each state, the set of states that simulate it
+	 */
+	private static long[][] simulation(final CompiledNFA nfa1, final CompiledNFA nfa2, final int[] symbols2) {
+		final int n1 = nfa1.getStateCount();
+		final int n = n1 + nfa2.getStateCount();
+		final int words = (n + 63) >>> 6;
+		final int k = nfa1.getAlphabetSize();
+
+		// The successors of every state on every symbol, in the shared
+		// numbering.
+		final long[][] posts = new long[n * k][];
+		final boolean[] finals = new boolean[n];
+		for (int x = 0; x < n; x++) {
+			finals[x] = x < n1 ? nfa1.isFinalState(x) : nfa2.isFinalState(x - n1);
+			for (int a = 0; a < k; a++) {
+				final long[] post = new long[words];
+				final long[] own = x < n1 ? post(nfa1, x, a) : post(nfa2, x - n1, symbols2[a]);
+				final int offset = x < n1 ? 0 : n1;
+				for (int w = 0; w < own.length; w++) {
+					long bits = own[w];
+					while (bits != 0) {
+						final int y = (w << 6) + Long.numberOfTrailingZeros(bits) + offset;
+						bits &= bits - 1;
+						post[y >>> 6] |= 1L << y;
+					}
+				}
+				posts[x * k + a] = post;
+			}
+		}
+
+		final long[][] simulators = new long[n][words];
+		for (int x = 0; x < n; x++) {
+			for (int y = 0; y < n; y++) {
+				boolean possible = !finals[x] || finals[y];
+				for (int a = 0; possible && a < k; a++) {
+					possible = isEmpty(posts[x * k + a]) || !isEmpty(posts[y * k + a]);
+				}
+				if (possible) {
+					simulators[x][y >>> 6] |= 1L << y;
+				}
+			}
+		}
+
+		// Remove y from the simulators of x until every move of x on a symbol
+		// can be matched by a move of y to a state simulating it.
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			for (int x = 0; x < n; x++) {
+				for (int y = 0; y < n; y++) {
+					if (x == y || (simulators[x][y >>> 6] & (1L << y)) == 0) {
+						continue;
+					}
+					boolean simulates = true;
+					for (int a = 0; simulates && a < k; a++) {
+						final long[] post = posts[x * k + a];
+						for (int w = 0; simulates && w < words; w++) {
+							long bits = post[w];
+							while (simulates && bits != 0) {
+								final int x2 = (w << 6) + Long.numberOfTrailingZeros(bits);
+								bits &= bits - 1;
+								simulates = intersects(posts[y * k + a], simulators[x2]);
+							}
+						}
+					}
+					if (!simulates) {
+						simulators[x][y >>> 6] &= ~(1L << y);
+						changed = true;
+					}
+				}
+			}
+		}
+		return simulators;
+	}
+
+	/**
+	 * Returns if a set is empty.
+	 */
+	private static boolean isEmpty(final long[] set) {
+		for (final long word : set) {
+			if (word != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns a string accepted by the first FSA and rejected by the second.
+	 * Neither automaton is changed.
+	 *
+	 * @param fsa1
+	 *            the automaton whose language should be the subset
+	 * @param fsa2
+	 *            the automaton whose language should be the superset
+	 * @return a string in the language of <CODE>fsa1</CODE> but not in that of
+	 *         <CODE>fsa2</CODE>, or <CODE>null</CODE> if there is none
+	 */
+	public String getCounterexample(final FiniteStateAutomaton fsa1, final FiniteStateAutomaton fsa2) {
+		final CompiledNFA nfa1 = CompiledNFA.compile(fsa1);
+		if (nfa1 == null) {
+			return null;
+		}
+		final CompiledNFA nfa2 = CompiledNFA.compile(fsa2);
+		final int n1 = nfa1.getStateCount();
+		final int n2 = nfa2 == null ? 0 : nfa2.getStateCount();
+		final int words2 = (n2 + 63) >>> 6;
+		final int k = nfa1.getAlphabetSize();
+		final int[] symbols2 = new int[k];
+		for (int a = 0; a < k; a++) {
+			symbols2[a] = nfa2 == null ? -1 : nfa2.getSymbol(nfa1.getSymbolCharacter(a));
+		}
+
+		// From the simulation: the states of the first automaton simulating
+		// each of its states, the states of the second automaton simulating
+		// each state of the first, and the states of the second automaton
+		// simulated by each of its states.
+		final int[][] stronger = new int[n1][];
+		final long[][] covering = new long[n1][words2];
+		final long[][] weaker = new long[n2][words2];
+		if (nfa2 != null && n1 + n2 <= SIMULATION_LIMIT) {
+			final long[][] simulators = simulation(nfa1, nfa2, symbols2);
+			for (int p = 0; p < n1; p++) {
+				final List<Integer> list = new ArrayList<>();
+				for (int q = 0; q < n1; q++) {
+					if ((simulators[p][q >>> 6] & (1L << q)) != 0) {
+						list.add(q);
+					}
+				}
+				stronger[p] = new int[list.size()];
+				for (int i = 0; i < stronger[p].length; i++) {
+					stronger[p][i] = list.get(i);
+				}
+				for (int s = 0; s < n2; s++) {
+					final int y = n1 + s;
+					if ((simulators[p][y >>> 6] & (1L << y)) != 0) {
+						covering[p][s >>> 6] |= 1L << s;
+					}
+				}
+			}
+			for (int s = 0; s < n2; s++) {
+				final int y = n1 + s;
+				for (int t = 0; t < n2; t++) {
+					if ((simulators[n1 + t][y >>> 6] & (1L << y)) != 0) {
+						weaker[s][t >>> 6] |= 1L << t;
+					}
+				}
+			}
+		} else {
+			for (int p = 0; p < n1; p++) {
+				stronger[p] = new int[] { p };
+			}
+			for (int s = 0; s < n2; s++) {
+				weaker[s][s >>> 6] |= 1L << s;
+			}
+		}
+
+		final Pairs pairs = new Pairs(n1, stronger, covering, weaker);
+		final long[] initial = nfa1.getInitialSet();
+		final long[] initial2 = nfa2 == null ? new long[0] : nfa2.getInitialSet();
+		for (int w = 0; w < initial.length; w++) {
+			long bits = initial[w];
+			while (bits != 0) {
+				pairs.offer((w << 6) + Long.numberOfTrailingZeros(bits), initial2, -1, -1);
+				bits &= bits - 1;
+			}
+		}
+		for (int head = 0; head < pairs.size; head++) {
+			final int p = pairs.states[head];
+			final long[] set = pairs.sets.get(head);
+			if (nfa1.isFinalState(p) && (nfa2 == null || !nfa2.isAccepting(set))) {
+				final StringBuilder witness = new StringBuilder();
+				for (int pair = head; pairs.parents[pair] >= 0; pair = pairs.parents[pair]) {
+					witness.append(nfa1.getSymbolCharacter(pairs.symbols[pair]));
+				}
+				return witness.reverse().toString();
+			}
+			for (int a = 0; a < k; a++) {
+				final long[] post = post(nfa1, p, a);
+				final long[] set2 = new long[words2];
+				if (symbols2[a] >= 0) {
+					nfa2.step(set, symbols2[a], set2);
+				}
+				for (int w = 0; w < post.length; w++) {
+					long bits = post[w];
+					while (bits != 0) {
+						pairs.offer((w << 6) + Long.numberOfTrailingZeros(bits), set2, head, a);
+						bits &= bits - 1;
+					}
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Checks if the language of one FSA is a subset of the language of
+	 * another. Neither automaton is changed.
+	 *
+	 * @param fsa1
+	 *            the automaton whose language should be the subset
+	 * @param fsa2
+	 *            the automaton whose language should be the superset
+	 * @return <CODE>true</CODE> if every string <CODE>fsa1</CODE> accepts is
+	 *         accepted by <CODE>fsa2</CODE>
+	 */
+	public boolean isSubset(final FiniteStateAutomaton fsa1, final FiniteStateAutomaton fsa2) {
+		return getCounterexample(fsa1, fsa2) == null;
+	}
+}
@@ -0,0 +1,438 @@
+/*
+*  JFLAP - Formal Languages and Automata Package
+*
+*
+*  Susan H. Rodger
+*  Computer Science Department
+*  Duke University
+*  August 27, 2009
+
+*  Copyright (c) 2002-2009
+*  All rights reserved.
+
+*  JFLAP is open source software. Please see the LICENSE for terms.
+*
+*/
+
+package edu.duke.cs.jflap.automata.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.TreeSet;
+
+import edu.duke.cs.jflap.automata.AutomatonSnapshot;
+import edu.duke.cs.jflap.automata.fsa.CompactFSA;
+import edu.duke.cs.jflap.automata.fsa.CompiledDFA;
+import edu.duke.cs.jflap.automata.fsa.CompiledNFA;
+import edu.duke.cs.jflap.automata.fsa.FiniteStateAutomaton;
+import edu.duke.cs.jflap.automata.fsa.StateSet;
+
+/**
+ * This determines if two FSAs accept the same language with the algorithm of
+ * Hopcroft and Karp. Both automata are determinized on the fly, one set of
+ * states at a time, while pairs of sets are explored breadth first from the
+ * pair of initial sets. Sets that are assumed to be equivalent are merged in a
+ * union-find structure, so a pair is only explored if its sets are not already
+ * known to be equivalent, and the search stops at the first pair where one set
+ * accepts and the other does not. No minimal DFA is ever built, and nothing is
+ * recursive. An automaton that is already deterministic is run from its
+ * <CODE>CompiledDFA</CODE> without building any sets.
+ *
+ * The languages compared are those accepted by the simulators: labels longer
+ * than one character read their characters in turn, and a label containing
+ * <CODE>[</CODE> reads one character from a range.
+ *
+ * The checker keeps nothing between calls, so one instance may be shared
+ * between threads.
+ *
+ * @see edu.duke.cs.jflap.automata.fsa.CompactFSA
+ * @see edu.duke.cs.jflap.automata.fsa.CompiledDFA
+ * @see edu.duke.cs.jflap.automata.fsa.CompiledNFA
+ */
+public class HopcroftKarpEqualityChecker {
+	/** Marks a step that has not been computed yet. */
+	private static final int UNKNOWN = -1;
+
+	/**
+	 * Classes of sets assumed to be equivalent, as a union-find structure.
+	 */
+	private static final class UnionFind {
+		/** The parent of each node. */
+		private int[] parents = new int[32];
+
+		/** The number of nodes. */
+		private int count;
+
+		/**
+		 * Returns the representative of a node's class, halving the path to
+		 * it.
+		 */
+		private int find(final int node) {
+			int n = node;
+			while (parents[n] != n) {
+				parents[n] = parents[parents[n]];
+				n = parents[n];
+			}
+			return n;
+		}
+
+		/**
+		 * Creates a new node in a class of its own.
+		 */
+		private int makeNode() {
+			if (count == parents.length) {
+				parents = Arrays.copyOf(parents, count * 2);
+			}
+			parents[count] = count;
+			return count++;
+		}
+
+		/**
+		 * Merges the classes of two nodes.
+		 *
+		 * @return <CODE>true</CODE> if they were in different classes
+		 */
+		private boolean union(final int node1, final int node2) {
+			final int root1 = find(node1);
+			final int root2 = find(node2);
+			if (root1 == root2) {
+				return false;
+			}
+			parents[root1] = root2;
+			return true;
+		}
+	}
+
+	/**
+	 * One of the two automata, with the sets of its states found so far. Each
+	 * set is a state of the determinized automaton. If the automaton is
+	 * already deterministic, its states are used directly instead of sets, and
+	 * the state after the last one stands for the empty set.
+	 */
+	private static final class Subsets {
+		/** The compiled automaton if it is deterministic. */
+		private final CompiledDFA dfa;
+
+		/** The compiled automaton if it is not deterministic. */
+		private final CompiledNFA nfa;
+
+		/** The symbol of the automaton for each shared symbol, or -1. */
+		private int[] symbols;
+
+		/** The classes the sets are merged in. */
+		private final UnionFind classes;
+
+		/** The sets found so far. */
+		private final List<long[]> sets = new ArrayList<>();
+
+		/** Maps each set to its index in <CODE>sets</CODE>. */
+		private final HashMap<StateSet, Integer> index = new HashMap<>();
+
+		/** The union-find node of each set, or -1 if it has none yet. */
+		private int[] nodes = new int[0];
+
+		/** The cached steps, indexed by set * shared alphabet size + symbol. */
+		private int[] steps = new int[0];
+
+		private Subsets(final CompiledDFA dfa, final CompiledNFA nfa, final UnionFind classes) {
+			this.dfa = dfa;
+			this.nfa = nfa;
+			this.classes = classes;
+			symbols = new int[0];
+			if (dfa != null) {
+				grow(dfa.getStateCount() + 1);
+			}
+		}
+
+		/**
+		 * Adds the characters the automaton reads to an alphabet.
+		 */
+		private void addLetters(final TreeSet<Character> letters) {
+			if (dfa != null) {
+				for (int a = 0; a < dfa.getAlphabetSize(); a++) {
+					letters.add(dfa.getSymbolCharacter(a));
+				}
+			} else if (nfa != null) {
+				for (int a = 0; a < nfa.getAlphabetSize(); a++) {
+					letters.add(nfa.getSymbolCharacter(a));
+				}
+			}
+		}
+
+		/**
+		 * Returns the index of a set, adding it if it is new.
+		 */
+		private int add(final long[] set) {
+			final StateSet key = new StateSet(set);
+			final Integer known = index.get(key);
+			if (known != null) {
+				return known;
+			}
+			final int i = sets.size();
+			sets.add(set);
+			index.put(key, i);
+			grow(i + 1);
+			return i;
+		}
+
+		/**
+		 * Makes room for the nodes and steps of the given number of sets.
+		 */
+		private void grow(final int count) {
+			if (nodes.length < count) {
+				final int old = nodes.length;
+				nodes = Arrays.copyOf(nodes, Math.max(count, old * 2));
+				Arrays.fill(nodes, old, nodes.length, -1);
+			}
+			if (dfa == null && steps.length < count * symbols.length) {
+				final int old = steps.length;
+				steps = Arrays.copyOf(steps, Math.max(count * symbols.length, old * 2));
+				Arrays.fill(steps, old, steps.length, UNKNOWN);
+			}
+		}
+
+		/**
+		 * Returns the index of the initial set.
+		 */
+		private int initial() {
+			if (dfa != null) {
+				return dfa.getInitialState();
+			}
+			return add(nfa == null ? new long[0] : nfa.getInitialSet());
+		}
+
+		/**
+		 * Returns if a set contains a final state.
+		 */
+		private boolean isAccepting(final int set) {
+			if (dfa != null) {
+				return set < dfa.getStateCount() && dfa.isFinalState(set);
+			}
+			return nfa != null && nfa.isAccepting(sets.get(set));
+		}
+
+		/**
+		 * Returns the union-find node of a set.
+		 */
+		private int node(final int set) {
+			if (nodes[set] < 0) {
+				nodes[set] = classes.makeNode();
+			}
+			return nodes[set];
+		}
+
+		/**
+		 * Numbers the symbols of the automaton by the shared alphabet. This
+		 * must be called before stepping.
+		 */
+		private void setAlphabet(final char[] alphabet) {
+			symbols = new int[alphabet.length];
+			for (int a = 0; a < alphabet.length; a++) {
+				symbols[a] = dfa != null ? dfa.getSymbol(alphabet[a]) : nfa != null ? nfa.getSymbol(alphabet[a]) : -1;
+			}
+			grow(nodes.length);
+		}
+
+		/**
+		 * Returns the index of the set reached from a set on a shared symbol.
+		 */
+		private int step(final int set, final int symbol) {
+			if (dfa != null) {
+				final int dead = dfa.getStateCount();
+				if (set == dead || symbols[symbol] < 0) {
+					return dead;
+				}
+				final int next = dfa.next(set, symbols[symbol]);
+				return next == CompiledDFA.NO_STATE ? dead : next;
+			}
+			final int cell = set * symbols.length + symbol;
+			if (steps[cell] == UNKNOWN) {
+				final long[] next = new long[nfa == null ? 0 : nfa.getWordCount()];
+				if (symbols[symbol] >= 0) {
+					nfa.step(sets.get(set), symbols[symbol], next);
+				}
+				final int added = add(next);
+				steps[cell] = added;
+			}
+			return steps[cell];
+		}
+	}
+
+	/**
+	 * Creates an instance of <CODE>HopcroftKarpEqualityChecker</CODE>.
+	 */
+	public HopcroftKarpEqualityChecker() {
+	}
+
+	/**
+	 * Checks if two FSAs accept the same language. Neither automaton is
+	 * changed.
+	 *
+	 * @param fsa1
+	 *            the first finite state automaton
+	 * @param fsa2
+	 *            the second finite state automaton
+	 * @return <CODE>true</CODE> if <CODE>fsa1</CODE> and <CODE>fsa2</CODE>
+	 *         accept the same language, <CODE>false</CODE> if they do not
+	 */
+	public boolean equals(final FiniteStateAutomaton fsa1, final FiniteStateAutomaton fsa2) {
+		return getCounterexample(fsa1, fsa2) == null;
+	}
+
+	/**
+	 * Checks if the automata of two snapshots accept the same language.
+	 *
+	 * @param snapshot1
+	 *            the snapshot of the first finite state automaton
+	 * @param snapshot2
+	 *            the snapshot of the second finite state automaton
+	 * @return <CODE>true</CODE> if both automata accept the same language,
+	 *         <CODE>false</CODE> if they do not
+	 * @throws IllegalArgumentException
+	 *             if either snapshot is not of a finite state automaton
+	 */
+	public boolean equals(final AutomatonSnapshot snapshot1, final AutomatonSnapshot snapshot2) {
+		return getCounterexample(snapshot1, snapshot2) == null;
+	}
+
+	/**
+	 * Checks if two compact automata accept the same language.
+	 *
+	 * @param fsa1
+	 *            the first compact automaton
+	 * @param fsa2
+	 *            the second compact automaton
+	 * @return <CODE>true</CODE> if both automata accept the same language,
+	 *         <CODE>false</CODE> if they do not
+	 */
+	public boolean equals(final CompactFSA fsa1, final CompactFSA fsa2) {
+		return getCounterexample(fsa1, fsa2) == null;
+	}
+
+	/**
+	 * Returns a shortest string accepted by one compact automaton and rejected
+	 * by the other. A nondeterministic automaton is determinized into another
+	 * compact automaton first, rather than compiled into a
+	 * <CODE>CompiledNFA</CODE> whose lambda closures take memory in the square
+	 * of its number of states.
+	 *
+	 * @param fsa1
+	 *            the first compact automaton
+	 * @param fsa2
+	 *            the second compact automaton
+	 * @return a shortest string in exactly one of the languages, or
+	 *         <CODE>null</CODE> if they accept the same language
+	 */
+	public String getCounterexample(final CompactFSA fsa1, final CompactFSA fsa2) {
+		return getCounterexample(fsa1.determinize().toCompiledDFA(), null, fsa2.determinize().toCompiledDFA(), null);
+	}
+
+	/**
+	 * Returns a shortest string accepted by one FSA and rejected by the other.
+	 * Since pairs are explored breadth first, the first pair found whose
+	 * acceptance differs is reached by a shortest such string, which is read
+	 * back along the parent of each pair. Neither automaton is changed.
+	 *
+	 * @param fsa1
+	 *            the first finite state automaton
+	 * @param fsa2
+	 *            the second finite state automaton
+	 * @return a shortest string in exactly one of the languages, or
+	 *         <CODE>null</CODE> if they accept the same language
+	 */
+	public String getCounterexample(final FiniteStateAutomaton fsa1, final FiniteStateAutomaton fsa2) {
+		final CompiledDFA dfa1 = CompiledDFA.compile(fsa1);
+		final CompiledDFA dfa2 = CompiledDFA.compile(fsa2);
+		return getCounterexample(dfa1, dfa1 == null ? CompiledNFA.compile(fsa1) : null, dfa2,
+				dfa2 == null ? CompiledNFA.compile(fsa2) : null);
+	}
+
+	/**
+	 * Returns a shortest string accepted by the automaton of one snapshot and
+	 * rejected by the other, as
+	 * {@link #getCounterexample(FiniteStateAutomaton, FiniteStateAutomaton)}
+	 * does. Snapshots may be checked from many threads at once.
+	 *
+	 * @param snapshot1
+	 *            the snapshot of the first finite state automaton
+	 * @param snapshot2
+	 *            the snapshot of the second finite state automaton
+	 * @return a shortest string in exactly one of the languages, or
+	 *         <CODE>null</CODE> if they accept the same language
+	 * @throws IllegalArgumentException
+	 *             if either snapshot is not of a finite state automaton
+	 */
+	public String getCounterexample(final AutomatonSnapshot snapshot1, final AutomatonSnapshot snapshot2) {
+		final CompiledDFA dfa1 = CompiledDFA.compile(snapshot1);
+		final CompiledDFA dfa2 = CompiledDFA.compile(snapshot2);
+		return getCounterexample(dfa1, dfa1 == null ? CompiledNFA.compile(snapshot1) : null, dfa2,
+				dfa2 == null ? CompiledNFA.compile(snapshot2) : null);
+	}
+
+	/**
+	 * Returns a shortest string accepted by one compiled automaton and
+	 * rejected by the other. Each automaton is given by its
+	 * <CODE>CompiledDFA</CODE> if it has one, else by its
+	 * <CODE>CompiledNFA</CODE>; with neither it accepts nothing.
+	 */
+	private String getCounterexample(final CompiledDFA dfa1, final CompiledNFA nfa1, final CompiledDFA dfa2,
+			final CompiledNFA nfa2) {
+		final UnionFind classes = new UnionFind();
+		final Subsets left = new Subsets(dfa1, nfa1, classes);
+		final Subsets right = new Subsets(dfa2, nfa2, classes);
+		final TreeSet<Character> letters = new TreeSet<>();
+		left.addLetters(letters);
+		right.addLetters(letters);
+		final char[] alphabet = new char[letters.size()];
+		int k = 0;
+		for (final Character c : letters) {
+			alphabet[k++] = c;
+		}
+		left.setAlphabet(alphabet);
+		right.setAlphabet(alphabet);
+
+		// The pairs explored so far, in breadth first order, each with the
+		// pair it was reached from and the symbol it was reached on.
+		int[] lefts = new int[16];
+		int[] rights = new int[16];
+		int[] parents = new int[16];
+		int[] symbols = new int[16];
+		int head = 0;
+		int tail = 0;
+		lefts[tail] = left.initial();
+		rights[tail] = right.initial();
+		parents[tail++] = -1;
+		classes.union(left.node(lefts[0]), right.node(rights[0]));
+		while (head < tail) {
+			final int p = lefts[head];
+			final int q = rights[head];
+			if (left.isAccepting(p) != right.isAccepting(q)) {
+				final StringBuilder witness = new StringBuilder();
+				for (int pair = head; parents[pair] >= 0; pair = parents[pair]) {
+					witness.append(alphabet[symbols[pair]]);
+				}
+				return witness.reverse().toString();
+			}
+			for (int a = 0; a < k; a++) {
+				final int p2 = left.step(p, a);
+				final int q2 = right.step(q, a);
+				if (classes.union(left.node(p2), right.node(q2))) {
+					if (tail == lefts.length) {
+						lefts = Arrays.copyOf(lefts, tail * 2);
+						rights = Arrays.copyOf(rights, tail * 2);
+						parents = Arrays.copyOf(parents, tail * 2);
+						symbols = Arrays.copyOf(symbols, tail * 2);
+					}
+					lefts[tail] = p2;
+					rights[tail] = q2;
+					parents[tail] = head;
+					symbols[tail++] = a;
+				}
+			}
+			head++;
+		}
+		return null;
+	}
+}
@@ -0,0 +1,358 @@
+/*
+*  JFLAP - Formal Languages and Automata Package
+*
+*
+*  Susan H. Rodger
+*  Computer Science Department
+*  Duke University
+*  August 27, 2009
+
+*  Copyright (c) 2002-2009
+*  All rights reserved.
+
+*  JFLAP is open source software. Please see the LICENSE for terms.
+*
+*/
+
+package edu.duke.cs.jflap.automata.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import edu.duke.cs.jflap.automata.Automaton;
+import edu.duke.cs.jflap.automata.LambdaCheckerFactory;
+import edu.duke.cs.jflap.automata.LambdaTransitionChecker;
+import edu.duke.cs.jflap.automata.State;
+import edu.duke.cs.jflap.automata.Transition;
+
+/**
+ * A <CODE>TransitionGraph</CODE> is the directed graph of an automaton's
+ * transitions with its states numbered once, in the order of
+ * <CODE>getStates</CODE>, and its edges stored as forward and reverse
+ * adjacency arrays. Labels are ignored, and parallel transitions become
+ * parallel edges. Reachability, co-reachability and strongly connected
+ * components are all computed in time linear in the number of states and
+ * transitions, without recursion.
+ *
+ * A graph is a snapshot of the automaton when it was built, and does not
+ * follow later edits to it.
+ */
+public final class TransitionGraph {
+	/**
+	 * Builds the graph of only the lambda transitions of an automaton, as
+	 * recognized by the automaton's <CODE>LambdaTransitionChecker</CODE>.
+	 *
+	 * @param automaton
+	 *            the automaton
+	 * @return the graph of the lambda transitions, which has no edges if
+	 *         there is no lambda checker for this type of automaton
+	 */
+	public static TransitionGraph lambdaGraph(final Automaton automaton) {
+		final LambdaTransitionChecker checker = LambdaCheckerFactory.getLambdaChecker(automaton);
+		final List<Transition> lambdas = new ArrayList<>();
+		if (checker != null) {
+			for (final Transition transition : automaton.getTransitions()) {
+				if (checker.isLambdaTransition(transition)) {
+					lambdas.add(transition);
+				}
+			}
+		}
+		return new TransitionGraph(automaton, lambdas);
+	}
+
+	/** The states, indexed by number. */
+	private final State[] myStates;
+
+	/** Maps each state to its number. */
+	private final HashMap<State, Integer> myIndex;
+
+	/** Where the successors of each state start in the targets. */
+	private final int[] myOffsets;
+
+	/** The successors, grouped by state. */
+	private final int[] myTargets;
+
+	/** Where the predecessors of each state start in the sources. */
+	private final int[] myReverseOffsets;
+
+	/** The predecessors, grouped by state. */
+	private final int[] mySources;
+
+	/** The number of the initial state, or -1 if there is none. */
+	private final int myInitialState;
+
+	/** The numbers of the final states. */
+	private final int[] myFinalStates;
+
+	/**
+	 * Builds the graph of every transition of an automaton.
+	 *
+	 * @param automaton
+	 *            the automaton
+	 */
+	public TransitionGraph(final Automaton automaton) {
+		this(automaton, automaton.getTransitions());
+	}
+
+	private TransitionGraph(final Automaton automaton, final List<Transition> transitions) {
+		final List<State> states = automaton.getStates();
+		final int n = states.size();
+		myStates = states.toArray(new State[n]);
+		myIndex = new HashMap<>();
+		for (int i = 0; i < n; i++) {
+			myIndex.put(myStates[i], i);
+		}
+		final int[] from = new int[transitions.size()];
+		final int[] to = new int[transitions.size()];
+		myOffsets = new int[n + 1];
+		myReverseOffsets = new int[n + 1];
+		for (int i = 0; i < from.length; i++) {
+			final Transition transition = transitions.get(i);
+			from[i] = myIndex.get(transition.getFromState());
+			to[i] = myIndex.get(transition.getToState());
+			myOffsets[from[i] + 1]++;
+			myReverseOffsets[to[i] + 1]++;
+		}
+		for (int i = 1; i <= n; i++) {
+			myOffsets[i] += myOffsets[i - 1];
+			myReverseOffsets[i] += myReverseOffsets[i - 1];
+		}
+		myTargets = new int[from.length];
+		mySources = new int[from.length];
+		final int[] fill = Arrays.copyOf(myOffsets, n);
+		final int[] reverseFill = Arrays.copyOf(myReverseOffsets, n);
+		for (int i = 0; i < from.length; i++) {
+			myTargets[fill[from[i]]++] = to[i];
+			mySources[reverseFill[to[i]]++] = from[i];
+		}
+
+		final State initial = automaton.getInitialState();
+		final Integer number = initial == null ? null : myIndex.get(initial);
+		myInitialState = number == null ? -1 : number;
+		final List<State> finals = automaton.getFinalStates();
+		myFinalStates = new int[finals.size()];
+		for (int i = 0; i < myFinalStates.length; i++) {
+			myFinalStates[i] = myIndex.get(finals.get(i));
+		}
+	}
+
+	/**
+	 * Returns the states that can reach one of the given states, including
+	 * those states themselves.
+	 *
+	 * @param targets
+	 *            the state numbers to search back from
+	 * @return whether each numbered state can reach one of the targets
+	 */
+	public boolean[] backward(final int... targets) {
+		return search(targets, myReverseOffsets, mySources);
+	}
+
+	/**
+	 * Returns the states reachable from one of the given states, including
+	 * those states themselves.
+	 *
+	 * @param sources
+	 *            the state numbers to search from
+	 * @return whether each numbered state is reachable from one of the
+	 *         sources
+	 */
+	public boolean[] forward(final int... sources) {
+		return search(sources, myOffsets, myTargets);
+	}
+
+	/**
+	 * Numbers the strongly connected components of the graph with Tarjan's
+	 * algorithm. Components are numbered in reverse topological order: every
+	 * edge between two different components leads from a higher number to a
+	 * lower one.
+	 *
+	 * @return the component number of each numbered state
+	 */
+	public int[] getComponents() {
+		final int n = myStates.length;
+		final int[] component = new int[n];
+		Arrays.fill(component, -1);
+		final int[] order = new int[n];
+		final int[] low = new int[n];
+		Arrays.fill(order, -1);
+		// The explicit call stack holds each state being visited and the next
+		// of its edges to follow.
+		final int[] calls = new int[n];
+		final int[] edge = new int[n];
+		final int[] stack = new int[n];
+		int top = 0;
+		int counter = 0;
+		int components = 0;
+		for (int root = 0; root < n; root++) {
+			if (order[root] >= 0) {
+				continue;
+			}
+			int depth = 0;
+			calls[depth] = root;
+			edge[depth] = myOffsets[root];
+			order[root] = low[root] = counter++;
+			stack[top++] = root;
+			while (depth >= 0) {
+				final int s = calls[depth];
+				if (edge[depth] < myOffsets[s + 1]) {
+					final int t = myTargets[edge[depth]++];
+					if (order[t] < 0) {
+						order[t] = low[t] = counter++;
+						stack[top++] = t;
+						depth++;
+						calls[depth] = t;
+						edge[depth] = myOffsets[t];
+					} else if (component[t] < 0) {
+						low[s] = Math.min(low[s], order[t]);
+					}
+					continue;
+				}
+				if (low[s] == order[s]) {
+					int t;
+					do {
+						t = stack[--top];
+						component[t] = components;
+					} while (t != s);
+					components++;
+				}
+				depth--;
+				if (depth >= 0) {
+					final int parent = calls[depth];
+					low[parent] = Math.min(low[parent], low[s]);
+				}
+			}
+		}
+		return component;
+	}
+
+	/**
+	 * Returns the states that can reach a final state.
+	 *
+	 * @return whether each numbered state can reach a final state
+	 */
+	public boolean[] getCoreachable() {
+		return backward(myFinalStates);
+	}
+
+	/**
+	 * Returns the number of a state.
+	 *
+	 * @param state
+	 *            the state
+	 * @return the state number, or -1 if the state is not in the graph
+	 */
+	public int getIndex(final State state) {
+		final Integer number = myIndex.get(state);
+		return number == null ? -1 : number;
+	}
+
+	/**
+	 * Returns the number of the initial state.
+	 *
+	 * @return the number of the initial state, or -1 if there is none
+	 */
+	public int getInitialState() {
+		return myInitialState;
+	}
+
+	/**
+	 * Returns the states reachable from the initial state.
+	 *
+	 * @return whether each numbered state is reachable from the initial
+	 *         state; no state is if there is no initial state
+	 */
+	public boolean[] getReachable() {
+		return myInitialState < 0 ? new boolean[myStates.length] : forward(myInitialState);
+	}
+
+	/**
+	 * Returns the state with this number.
+	 *
+	 * @param state
+	 *            the state number
+	 * @return the state
+	 */
+	public State getState(final int state) {
+		return myStates[state];
+	}
+
+	/**
+	 * Returns the number of states.
+	 *
+	 * @return the number of states
+	 */
+	public int getStateCount() {
+		return myStates.length;
+	}
+
+	/**
+	 * Returns the strongly connected components of the graph that lie on a
+	 * cycle, that is, those with more than one state or with a state that has
+	 * an edge to itself.
+	 *
+	 * @return the states of each cyclic component, in reverse topological
+	 *         order
+	 */
+	public List<Set<State>> getCycles() {
+		final int[] component = getComponents();
+		final int[] size = new int[myStates.length];
+		final boolean[] cyclic = new boolean[myStates.length];
+		int count = 0;
+		for (int s = 0; s < myStates.length; s++) {
+			size[component[s]]++;
+			count = Math.max(count, component[s] + 1);
+			for (int i = myOffsets[s]; i < myOffsets[s + 1]; i++) {
+				if (myTargets[i] == s) {
+					cyclic[component[s]] = true;
+				}
+			}
+		}
+		final List<Set<State>> cycles = new ArrayList<>();
+		final int[] position = new int[count];
+		Arrays.fill(position, -1);
+		for (int c = 0; c < count; c++) {
+			if (cyclic[c] || size[c] > 1) {
+				position[c] = cycles.size();
+				cycles.add(new LinkedHashSet<>());
+			}
+		}
+		for (int s = 0; s < myStates.length; s++) {
+			if (position[component[s]] >= 0) {
+				cycles.get(position[component[s]]).add(myStates[s]);
+			}
+		}
+		return cycles;
+	}
+
+	/**
+	 * Runs a breadth first search from a set of states over one of the
+	 * adjacency arrays.
+	 */
+	private boolean[] search(final int[] starts, final int[] offsets, final int[] adjacent) {
+		final boolean[] seen = new boolean[myStates.length];
+		final int[] queue = new int[myStates.length];
+		int tail = 0;
+		for (final int s : starts) {
+			if (!seen[s]) {
+				seen[s] = true;
+				queue[tail++] = s;
+			}
+		}
+		for (int head = 0; head < tail; head++) {
+			final int s = queue[head];
+			for (int i = offsets[s]; i < offsets[s + 1]; i++) {
+				final int t = adjacent[i];
+				if (!seen[t]) {
+					seen[t] = true;
+					queue[tail++] = t;
+				}
+			}
+		}
+		return seen;
+	}
+}
@@ -26,7 +26,9 @@ import edu.duke.cs.jflap.automata.State;
  * constructor. All additional output appended to the output passed in. A
  * <code>MealyConfiguration</code> serves both the
  * {@link edu.duke.cs.jflap.automata.mealy.MealyMachine} and the
- * {@link edu.duke.cs.jflap.automata.mealy.MooreMachine}
+ * {@link edu.duke.cs.jflap.automata.mealy.MooreMachine}. The unprocessed input
+ * is kept as a position in the total input, which every configuration of a
+ * simulation shares.
  *
  * @author Jinghui Lim
  *
@@ -37,9 +39,9 @@ public class MealyConfiguration extends Configuration {
 	 */
 	private String myInput = "";
 	/**
-	 * The unprocesed input.
+	 * The number of input characters already processed.
 	 */
-	private String myUnprocessedInput = "";
+	private int myPosition = 0;
 	/**
 	 * The processed output.
 	 */
@@ -61,9 +63,28 @@ public class MealyConfiguration extends Configuration {
 	 */
 	public MealyConfiguration(final State state, final MealyConfiguration parent, final String input,
 			final String unprocessed, final String output) {
+		this(state, parent, input, input.length() - unprocessed.length(), output);
+	}
+
+	/**
+	 * Constructs a new <code>MealyConfiguration</code>.
+	 *
+	 * @param state
+	 *            the state that the MealyMachine is currently in
+	 * @param parent
+	 *            the configuration that is the parent of this configuration
+	 * @param input
+	 *            the entire test input
+	 * @param position
+	 *            the number of input characters already processed
+	 * @param output
+	 *            the ouput produced before this configuration
+	 */
+	public MealyConfiguration(final State state, final MealyConfiguration parent, final String input,
+			final int position, final String output) {
 		super(state, parent);
 		myInput = input;
-		myUnprocessedInput = unprocessed;
+		myPosition = position;
 		myOutput = output;
 	}
 
@@ -86,7 +107,8 @@ public class MealyConfiguration extends Configuration {
 		}
 		try {
 			final MealyConfiguration config = (MealyConfiguration) configuration;
-			return super.equals(config) && myUnprocessedInput.equals(config.myUnprocessedInput)
+			return super.equals(config) && myPosition == config.myPosition
+					&& (myInput == config.myInput || getUnprocessedInput().equals(config.getUnprocessedInput()))
 					&& myOutput.equals(config.myOutput);
 		} catch (final ClassCastException e) {
 			return false;
@@ -114,12 +136,22 @@ public class MealyConfiguration extends Configuration {
 	}
 
 	/**
-	 * Returns the unprocessed input.
+	 * Returns the number of input characters already processed.
+	 *
+	 * @return position of the unprocessed input in the total input
+	 */
+	public int getPosition() {
+		return myPosition;
+	}
+
+	/**
+	 * Returns the unprocessed input. This copies the rest of the input, so
+	 * simulators should use {@link #getPosition} instead.
 	 *
 	 * @return unprocessed input
 	 */
 	public String getUnprocessedInput() {
-		return myUnprocessedInput;
+		return myInput.substring(myPosition);
 	}
 
 	/**
@@ -129,7 +161,7 @@ public class MealyConfiguration extends Configuration {
 	 */
 	@Override
 	public int hashCode() {
-		return super.hashCode() ^ myUnprocessedInput.hashCode() ^ myOutput.hashCode();
+		return super.hashCode() ^ myPosition ^ myOutput.hashCode();
 	}
 
 	/**
@@ -141,7 +173,7 @@ public class MealyConfiguration extends Configuration {
 	 */
 	@Override
 	public boolean isAccept() {
-		return getUnprocessedInput().length() == 0;
+		return myPosition == myInput.length();
 	}
 
 	/**
@@ -151,7 +183,7 @@ public class MealyConfiguration extends Configuration {
 	 *            the string that will replace the unprocessed input
 	 */
 	public void setUnprocessedInput(final String input) {
-		myUnprocessedInput = input;
+		myPosition = myInput.length() - input.length();
 	}
 
 	/**
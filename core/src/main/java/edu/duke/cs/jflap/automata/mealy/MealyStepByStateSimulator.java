@@ -62,7 +62,7 @@ public class MealyStepByStateSimulator extends AutomatonSimulator {
 	 */
 	@Override
 	public List<Configuration> getInitialConfigurations(final String input) {
-		final Configuration config = new MealyConfiguration(myAutomaton.getInitialState(), null, input, input, "");
+		final Configuration config = new MealyConfiguration(myAutomaton.getInitialState(), null, input, 0, "");
 		final List<Configuration> configs = new ArrayList<>();
 		configs.add(config);
 		return configs;
@@ -132,23 +132,19 @@ public class MealyStepByStateSimulator extends AutomatonSimulator {
 		final List<MealyConfiguration> list = new ArrayList<>();
 		final MealyConfiguration config = (MealyConfiguration) configuration;
 
-		final String unprocessedInput = config.getUnprocessedInput();
 		final String totalInput = config.getInput();
+		final int position = config.getPosition();
 		final State currentState = config.getCurrentState();
 
-		final List<Transition> transitions = myAutomaton.getTransitionsFromState(currentState);
+		final List<Transition> transitions = getTransitionsFromState(currentState, totalInput, position);
 		for (int i = 0; i < transitions.size(); i++) {
 			final MealyTransition trans = (MealyTransition) transitions.get(i);
 			final String transLabel = trans.getLabel();
-			if (unprocessedInput.startsWith(transLabel)) {
-				String input = "";
-				if (transLabel.length() < unprocessedInput.length()) {
-					input = unprocessedInput.substring(transLabel.length());
-				}
+			if (totalInput.startsWith(transLabel, position)) {
 				final State toState = trans.getToState();
 				final String output = config.getOutput() + trans.getOutput();
-				final MealyConfiguration configToAdd = new MealyConfiguration(toState, config, totalInput, input,
-						output);
+				final MealyConfiguration configToAdd = new MealyConfiguration(toState, config, totalInput,
+						position + transLabel.length(), output);
 				list.add(configToAdd);
 			}
 		}
@@ -0,0 +1,323 @@
+/*
+*  JFLAP - Formal Languages and Automata Package
+*
+*
+*  Susan H. Rodger
+*  Computer Science Department
+*  Duke University
+*  August 27, 2009
+
+*  Copyright (c) 2002-2009
+*  All rights reserved.
+
+*  JFLAP is open source software. Please see the LICENSE for terms.
+*
+*/
+
+package edu.duke.cs.jflap.automata.mealy;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.TreeSet;
+
+import edu.duke.cs.jflap.automata.State;
+import edu.duke.cs.jflap.automata.Transition;
+
+/**
+ * The Mealy machine stream simulator runs a deterministic Mealy or Moore
+ * machine over input that is read in chunks, and writes the output to a sink
+ * as it is produced instead of building it up in a
+ * <code>MealyConfiguration</code>. Only the current state is kept between
+ * chunks, so the time taken is linear in the length of the input and output.
+ *
+ * <p>
+ * The transitions out of each state are compiled into a trie over their
+ * labels, so a label longer than one character may be split across chunks.
+ * The machine must have an initial state, no lambda transitions, and no state
+ * may have one label that is a prefix of another, as found by the
+ * {@link MealyNondeterminismDetector}.
+ *
+ * <p>
+ * Each stream starts with a call to {@link #reset(Appendable)}, which names
+ * the sink. The compiled form is built once when the simulator is created, so
+ * later edits to the machine are not followed. A simulator holds the state of
+ * one stream and must not be shared between threads.
+ *
+ * @see edu.duke.cs.jflap.automata.mealy.MealyStepByStateSimulator
+ */
+public class MealyStreamSimulator {
+	/** The number of characters read from a stream at a time. */
+	private static final int BUFFER_SIZE = 8192;
+
+	/** The value stored in the table for a missing transition. */
+	private static final int NO_NODE = -1;
+
+	/** The states of the machine, indexed by node number. */
+	private final State[] myStates;
+
+	/** The node of the initial state. */
+	private final int myInitialNode;
+
+	/** The output written before any input is read. */
+	private final String myInitialOutput;
+
+	/** Maps a character to its symbol number, or -1 if it is not interned. */
+	private final int[] mySymbols;
+
+	/** The number of interned characters. */
+	private final int myAlphabetSize;
+
+	/** The trie, indexed by node * alphabet size + symbol. */
+	private final int[] myTable;
+
+	/**
+	 * The output of the edge with the same index in the table, or
+	 * <code>null</code> if the edge is in the middle of a label.
+	 */
+	private final String[] myOutputs;
+
+	/** The sink the output is written to. */
+	private Appendable mySink;
+
+	/** The current node, or -1 once the machine is stuck. */
+	private int myNode;
+
+	/** The number of characters read since the last reset. */
+	private long myPosition;
+
+	/**
+	 * Creates a stream simulator for the given machine. If the machine is a
+	 * <code>MooreMachine</code>, the output of the initial state is written
+	 * when each stream starts.
+	 *
+	 * @param machine
+	 *            the machine to simulate
+	 * @throws IllegalArgumentException
+	 *             if the machine has no initial state, has a lambda
+	 *             transition, or is nondeterministic
+	 */
+	public MealyStreamSimulator(final MealyMachine machine) {
+		final State initial = machine.getInitialState();
+		if (initial == null) {
+			throw new IllegalArgumentException("The machine has no initial state");
+		}
+		final List<State> states = machine.getStates();
+		final HashMap<State, Integer> index = new HashMap<>();
+		for (int i = 0; i < states.size(); i++) {
+			index.put(states.get(i), i);
+		}
+
+		final TreeSet<Character> letters = new TreeSet<>();
+		for (final Transition transition : machine.getTransitions()) {
+			final String label = ((MealyTransition) transition).getLabel();
+			if (label.length() == 0) {
+				throw new IllegalArgumentException("Streaming simulation does not support lambda transitions");
+			}
+			for (int i = 0; i < label.length(); i++) {
+				letters.add(label.charAt(i));
+			}
+		}
+		int maxChar = -1;
+		for (final Character c : letters) {
+			maxChar = c;
+		}
+		final int[] symbols = new int[maxChar + 1];
+		Arrays.fill(symbols, NO_NODE);
+		int k = 0;
+		for (final Character c : letters) {
+			symbols[c] = k++;
+		}
+
+		// Insert every label into the trie of its from state. Nodes past the
+		// states of the machine are the middles of labels.
+		final HashMap<Long, Integer> edges = new HashMap<>();
+		final HashMap<Long, String> outputs = new HashMap<>();
+		int count = states.size();
+		for (final Transition transition : machine.getTransitions()) {
+			final MealyTransition mealy = (MealyTransition) transition;
+			final String label = mealy.getLabel();
+			int node = index.get(transition.getFromState());
+			for (int i = 0; i < label.length(); i++) {
+				final long key = (long) node * k + symbols[label.charAt(i)];
+				final Integer next = edges.get(key);
+				if (i == label.length() - 1) {
+					if (next != null) {
+						throw new IllegalArgumentException("The machine is nondeterministic at state "
+								+ transition.getFromState().getName());
+					}
+					edges.put(key, index.get(transition.getToState()));
+					outputs.put(key, mealy.getOutput());
+				} else if (next == null) {
+					edges.put(key, count);
+					node = count++;
+				} else if (outputs.containsKey(key)) {
+					throw new IllegalArgumentException("The machine is nondeterministic at state "
+							+ transition.getFromState().getName());
+				} else {
+					node = next;
+				}
+			}
+		}
+
+		final int[] table = new int[count * k];
+		Arrays.fill(table, NO_NODE);
+		final String[] edgeOutputs = new String[count * k];
+		for (final Long key : edges.keySet()) {
+			table[(int) (long) key] = edges.get(key);
+			edgeOutputs[(int) (long) key] = outputs.get(key);
+		}
+
+		myStates = states.toArray(new State[states.size()]);
+		myInitialNode = index.get(initial);
+		myInitialOutput = machine instanceof MooreMachine ? ((MooreMachine) machine).getOutput(initial) : "";
+		mySymbols = symbols;
+		myAlphabetSize = k;
+		myTable = table;
+		myOutputs = edgeOutputs;
+		myNode = NO_NODE;
+	}
+
+	/**
+	 * Returns the number of characters read since the last reset.
+	 *
+	 * @return the current position in the stream
+	 */
+	public long getPosition() {
+		return myPosition;
+	}
+
+	/**
+	 * Returns the state the machine is in, or <code>null</code> if it is
+	 * stuck or partway through reading a label.
+	 *
+	 * @return the current state
+	 */
+	public State getState() {
+		return myNode >= 0 && myNode < myStates.length ? myStates[myNode] : null;
+	}
+
+	/**
+	 * Returns <code>true</code> if all the input read since the last reset
+	 * has been processed, meaning the machine is not stuck and has not
+	 * stopped partway through a label. This matches what
+	 * {@link MealyStepByStateSimulator#simulateInput(String)} returns.
+	 *
+	 * @return <code>true</code> if the machine is in one of its states
+	 */
+	public boolean isFinished() {
+		return getState() != null;
+	}
+
+	/**
+	 * Returns if some character read had no transition. Once stuck, no
+	 * further input is processed.
+	 *
+	 * @return <code>true</code> if the machine is stuck
+	 */
+	public boolean isStuck() {
+		return myNode == NO_NODE;
+	}
+
+	/**
+	 * Feeds a chunk of input to the machine, writing any output produced to
+	 * the sink.
+	 *
+	 * @param chars
+	 *            the array holding the chunk
+	 * @param offset
+	 *            the index of the first character of the chunk
+	 * @param length
+	 *            the number of characters in the chunk
+	 * @return <code>false</code> if the machine is stuck
+	 * @throws IOException
+	 *             if the sink fails
+	 */
+	public boolean read(final char[] chars, final int offset, final int length) throws IOException {
+		if (myNode == NO_NODE) {
+			return false;
+		}
+		final int end = offset + length;
+		int node = myNode;
+		for (int i = offset; i < end; i++) {
+			final char c = chars[i];
+			final int symbol = c < mySymbols.length ? mySymbols[c] : NO_NODE;
+			final int cell = node * myAlphabetSize + symbol;
+			if (symbol == NO_NODE || myTable[cell] == NO_NODE) {
+				myPosition += i - offset;
+				myNode = NO_NODE;
+				return false;
+			}
+			if (myOutputs[cell] != null) {
+				mySink.append(myOutputs[cell]);
+			}
+			node = myTable[cell];
+		}
+		myNode = node;
+		myPosition += length;
+		return true;
+	}
+
+	/**
+	 * Puts the machine back in its initial state, ready for a new stream, and
+	 * writes the initial output to the sink.
+	 *
+	 * @param sink
+	 *            where the output of the new stream is written
+	 * @throws IOException
+	 *             if the sink fails
+	 */
+	public void reset(final Appendable sink) throws IOException {
+		mySink = sink;
+		myNode = myInitialNode;
+		myPosition = 0;
+		sink.append(myInitialOutput);
+	}
+
+	/**
+	 * Runs the machine over everything a reader produces. Reading stops as
+	 * soon as the machine is stuck. Neither the reader nor the sink is closed.
+	 *
+	 * @param reader
+	 *            the source of the input
+	 * @param sink
+	 *            where the output is written
+	 * @return <code>true</code> if all the input was processed
+	 * @throws IOException
+	 *             if the reader or the sink fails
+	 */
+	public boolean run(final Reader reader, final Appendable sink) throws IOException {
+		reset(sink);
+		final char[] buffer = new char[BUFFER_SIZE];
+		int count;
+		while (myNode != NO_NODE && (count = reader.read(buffer)) >= 0) {
+			read(buffer, 0, count);
+		}
+		return isFinished();
+	}
+
+	/**
+	 * Runs the machine over the characters decoded from a channel. Reading
+	 * stops as soon as the machine is stuck. Neither the channel nor the sink
+	 * is closed.
+	 *
+	 * @param channel
+	 *            the source of the input
+	 * @param charset
+	 *            the encoding of the bytes in the channel
+	 * @param sink
+	 *            where the output is written
+	 * @return <code>true</code> if all the input was processed
+	 * @throws IOException
+	 *             if reading or decoding the channel fails, or the sink fails
+	 */
+	public boolean run(final ReadableByteChannel channel, final Charset charset, final Appendable sink)
+			throws IOException {
+		return run(Channels.newReader(channel, charset.newDecoder(), -1), sink);
+	}
+}
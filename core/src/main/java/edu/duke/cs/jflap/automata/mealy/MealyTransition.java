@@ -118,6 +118,17 @@ public class MealyTransition extends Transition {
 		return label + " ; " + output;
 	}
 
+	/**
+	 * Returns the first character of the label.
+	 *
+	 * @return the first character of the label, or <code>NO_SYMBOL</code> if
+	 *         the transition reads no input
+	 */
+	@Override
+	public int getFirstSymbol() {
+		return myLabel == null || myLabel.length() == 0 ? NO_SYMBOL : myLabel.charAt(0);
+	}
+
 	/**
 	 * Returns the label for this transition.
 	 *
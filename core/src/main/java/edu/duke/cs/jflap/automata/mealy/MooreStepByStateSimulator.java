@@ -61,7 +61,7 @@ public class MooreStepByStateSimulator extends MealyStepByStateSimulator {
 	@Override
 	public List<Configuration> getInitialConfigurations(final String input) {
 		final List<Configuration> configs = new ArrayList<>();
-		configs.add(new MealyConfiguration(myAutomaton.getInitialState(), null, input, input,
+		configs.add(new MealyConfiguration(myAutomaton.getInitialState(), null, input, 0,
 				((MooreMachine) myAutomaton).getOutput(myAutomaton.getInitialState())));
 		return configs;
 	}
@@ -16,12 +16,19 @@
 
 package edu.duke.cs.jflap.automata.pda;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 
 /**
  * A character stack. Allows the pushing and popping of individual
- * <CODE>char</CODE>s.
+ * <CODE>char</CODE>s. This is a mutable view of a
+ * <CODE>PersistentCharacterStack</CODE>, so copying a character stack takes
+ * constant time and the copy shares its storage with the original.
  *
+ * @see edu.duke.cs.jflap.automata.pda.PersistentCharacterStack
  * @author Thomas Finley
  */
 public class CharacterStack implements Serializable {
@@ -30,11 +37,15 @@ public class CharacterStack implements Serializable {
 	 */
 	private static final long serialVersionUID = -4538402237923994837L;
 
-	/** The string buffer. */
-	private StringBuffer buffer = new StringBuffer();
+	/**
+	 * The serialized form is that of the earlier string buffer based stack,
+	 * with the top of the stack first, so that old streams still load.
+	 */
+	private static final ObjectStreamField[] serialPersistentFields = {
+			new ObjectStreamField("buffer", StringBuffer.class), new ObjectStreamField("cachedHash", int.class) };
 
-	/** The cached hash value. */
-	private int cachedHash = 0xdeadbeef;
+	/** The current contents of the stack. */
+	private PersistentCharacterStack stack = PersistentCharacterStack.EMPTY;
 
 	/**
 	 * Instantiates an empty character stack.
@@ -49,15 +60,24 @@ public class CharacterStack implements Serializable {
 	 *            the character stack to copy
 	 */
 	public CharacterStack(final CharacterStack stack) {
-		buffer = new StringBuffer(stack.buffer.toString());
+		this.stack = stack.stack;
+	}
+
+	/**
+	 * Instantiates a character stack holding the given contents.
+	 *
+	 * @param stack
+	 *            the contents of the stack
+	 */
+	public CharacterStack(final PersistentCharacterStack stack) {
+		this.stack = stack;
 	}
 
 	/**
 	 * Clears the stack.
 	 */
 	public void clear() {
-		buffer = new StringBuffer();
-		cachedHash = 0xdeadbeef;
+		stack = PersistentCharacterStack.EMPTY;
 	}
 
 	/**
@@ -72,12 +92,22 @@ public class CharacterStack implements Serializable {
 	@Override
 	public boolean equals(final Object stack) {
 		try {
-			return ((CharacterStack) stack).buffer.toString().equals(buffer.toString());
+			return ((CharacterStack) stack).stack.equals(this.stack);
 		} catch (final ClassCastException e) {
 			return false;
 		}
 	}
 
+	/**
+	 * Returns the current contents of this stack. Later changes to this stack
+	 * do not affect the returned contents.
+	 *
+	 * @return the contents of this stack
+	 */
+	public PersistentCharacterStack getContents() {
+		return stack;
+	}
+
 	/**
 	 * Returns a hash value for this character stack.
 	 *
@@ -85,10 +115,7 @@ public class CharacterStack implements Serializable {
 	 */
 	@Override
 	public int hashCode() {
-		if (cachedHash != 0xdeadbeef) {
-			return cachedHash;
-		}
-		return cachedHash = buffer.toString().hashCode();
+		return stack.hashCode();
 	}
 
 	/**
@@ -97,7 +124,7 @@ public class CharacterStack implements Serializable {
 	 * @return the number of characters on this stack
 	 */
 	public int height() {
-		return buffer.length();
+		return stack.height();
 	}
 
 	/**
@@ -108,10 +135,9 @@ public class CharacterStack implements Serializable {
 	 *         the stack
 	 */
 	public char pop() {
-		final char[] toReturn = new char[1];
-		buffer.getChars(0, 1, toReturn, 0);
-		buffer.deleteCharAt(0);
-		return toReturn[0];
+		final char top = stack.peek();
+		stack = stack.pop();
+		return top;
 	}
 
 	/**
@@ -125,13 +151,11 @@ public class CharacterStack implements Serializable {
 	 *         there are not <CODE>number</CODE> characters left on the stack
 	 */
 	public String pop(final int number) {
-		if (buffer.length() < number) {
-			return null;
+		final String popped = stack.top(number);
+		if (popped != null) {
+			stack = stack.pop(number);
 		}
-		final char[] c = new char[number];
-		buffer.getChars(0, number, c, 0);
-		buffer.delete(0, number);
-		return new String(c);
+		return popped;
 	}
 
 	/**
@@ -141,8 +165,7 @@ public class CharacterStack implements Serializable {
 	 *            the character to push onto the stack
 	 */
 	public void push(final char character) {
-		buffer.insert(0, character);
-		cachedHash = 0xdeadbeef;
+		stack = stack.push(character);
 	}
 
 	/**
@@ -153,8 +176,17 @@ public class CharacterStack implements Serializable {
 	 *            the strings characters which we push onto the stack
 	 */
 	public void push(final String string) {
-		buffer.insert(0, string);
-		cachedHash = 0xdeadbeef;
+		stack = stack.push(string);
+	}
+
+	/**
+	 * Reads the contents of the stack from the string buffer of the
+	 * serialized form.
+	 */
+	private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+		final ObjectInputStream.GetField fields = in.readFields();
+		final StringBuffer buffer = (StringBuffer) fields.get("buffer", null);
+		stack = buffer == null ? PersistentCharacterStack.EMPTY : PersistentCharacterStack.EMPTY.push(buffer.toString());
 	}
 
 	/**
@@ -164,6 +196,17 @@ public class CharacterStack implements Serializable {
 	 */
 	@Override
 	public String toString() {
-		return buffer.toString();
+		return stack.toString();
+	}
+
+	/**
+	 * Writes the contents of the stack as the string buffer of the serialized
+	 * form.
+	 */
+	private void writeObject(final ObjectOutputStream out) throws IOException {
+		final ObjectOutputStream.PutField fields = out.putFields();
+		fields.put("buffer", new StringBuffer(stack.toString()));
+		fields.put("cachedHash", 0xdeadbeef);
+		out.writeFields();
 	}
 }
@@ -24,7 +24,9 @@ import edu.duke.cs.jflap.automata.State;
  * A <CODE>PSAConfiguration</CODE> object is a <CODE>Configuration</CODE> object
  * with additional fields for the input string and the stack contents. The
  * current state of the automaton, the stack contents, and the unprocessed input
- * are the only necessary data for the simulation of a PDA.
+ * are the only necessary data for the simulation of a PDA. The unprocessed
+ * input is kept as a position in the original input, which every
+ * configuration of a simulation shares.
  *
  * @author Ryan Cavalcante
  */
@@ -42,11 +44,11 @@ public class PDAConfiguration extends Configuration {
 	/** The original input. */
 	protected String myInput;
 
-	/** The unprocessed input. */
-	protected String myUnprocessedInput;
+	/** The number of input characters already processed. */
+	protected int myPosition;
 
 	/** The stack of the PDA. */
-	protected CharacterStack myStack;
+	protected PersistentCharacterStack myStack;
 
 	/**
 	 * Instantiates a new PDAConfiguration.
@@ -64,9 +66,29 @@ public class PDAConfiguration extends Configuration {
 	 */
 	public PDAConfiguration(final State state, final PDAConfiguration parent, final String input,
 			final String unprocessed, final CharacterStack stack, final int acceptance) {
+		this(state, parent, input, input.length() - unprocessed.length(), stack.getContents(), acceptance);
+	}
+
+	/**
+	 * Instantiates a new PDAConfiguration whose stack shares its storage with
+	 * other configurations.
+	 *
+	 * @param state
+	 *            the state the automaton is currently in.
+	 * @param parent
+	 *            the immediate ancestor for this configuration
+	 * @param input
+	 *            the original input.
+	 * @param position
+	 *            the number of input characters already processed.
+	 * @param stack
+	 *            the stack contents
+	 */
+	public PDAConfiguration(final State state, final PDAConfiguration parent, final String input,
+			final int position, final PersistentCharacterStack stack, final int acceptance) {
 		super(state, parent);
 		myInput = input;
-		myUnprocessedInput = unprocessed;
+		myPosition = position;
 		myStack = stack;
 		myAcceptance = acceptance;
 	}
@@ -88,9 +110,10 @@ public class PDAConfiguration extends Configuration {
 			return true;
 		}
 		try {
-			return super.equals(configuration)
-					&& myUnprocessedInput.equals(((PDAConfiguration) configuration).myUnprocessedInput)
-					&& myStack.equals(((PDAConfiguration) configuration).myStack);
+			final PDAConfiguration config = (PDAConfiguration) configuration;
+			return super.equals(configuration) && myPosition == config.myPosition
+					&& (myInput == config.myInput || getUnprocessedInput().equals(config.getUnprocessedInput()))
+					&& myStack.equals(config.myStack);
 		} catch (final ClassCastException e) {
 			return false;
 		}
@@ -106,21 +129,41 @@ public class PDAConfiguration extends Configuration {
 	}
 
 	/**
-	 * Returns the stack.
+	 * Returns a copy of the stack. Changing the copy does not change this
+	 * configuration.
 	 *
 	 * @return the stack.
 	 */
 	public CharacterStack getStack() {
+		return new CharacterStack(myStack);
+	}
+
+	/**
+	 * Returns the contents of the stack.
+	 *
+	 * @return the stack contents.
+	 */
+	public PersistentCharacterStack getStackContents() {
 		return myStack;
 	}
 
 	/**
-	 * Returns the unprocessed input.
+	 * Returns the number of input characters already processed.
+	 *
+	 * @return the position of the unprocessed input in the original input.
+	 */
+	public int getPosition() {
+		return myPosition;
+	}
+
+	/**
+	 * Returns the unprocessed input. This copies the rest of the input, so
+	 * simulators should use {@link #getPosition} instead.
 	 *
 	 * @return the unprocessed input.
 	 */
 	public String getUnprocessedInput() {
-		return myUnprocessedInput;
+		return myInput.substring(myPosition);
 	}
 
 	/**
@@ -130,7 +173,7 @@ public class PDAConfiguration extends Configuration {
 	 */
 	@Override
 	public int hashCode() {
-		return super.hashCode() ^ myStack.hashCode() ^ myUnprocessedInput.hashCode();
+		return super.hashCode() ^ myStack.hashCode() ^ myPosition;
 	}
 
 	/**
@@ -144,15 +187,14 @@ public class PDAConfiguration extends Configuration {
 	@Override
 	public boolean isAccept() {
 		if (myAcceptance == FINAL_STATE) {
-			if (getUnprocessedInput().length() != 0) {
+			if (myPosition != myInput.length()) {
 				return false;
 			}
 			final State s = getCurrentState();
 			final Automaton a = s.getAutomaton();
 			return a.isFinalState(s);
 		} else if (myAcceptance == EMPTY_STACK) {
-			final CharacterStack stack = getStack();
-			if (getUnprocessedInput() == "" && stack.height() == 0) {
+			if (myPosition == myInput.length() && myStack.height() == 0) {
 				return true;
 			}
 		}
@@ -167,7 +209,7 @@ public class PDAConfiguration extends Configuration {
 	 *            PDA.
 	 */
 	public void setUnprocessedInput(final String input) {
-		myUnprocessedInput = input;
+		myPosition = myInput.length() - input.length();
 	}
 
 	/**
@@ -0,0 +1,232 @@
+/*
+*  JFLAP - Formal Languages and Automata Package
+*
+*
+*  Susan H. Rodger
+*  Computer Science Department
+*  Duke University
+*  August 27, 2009
+
+*  Copyright (c) 2002-2009
+*  All rights reserved.
+
+*  JFLAP is open source software. Please see the LICENSE for terms.
+*
+*/
+package edu.duke.cs.jflap.automata.pda;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import edu.duke.cs.jflap.automata.Automaton;
+import edu.duke.cs.jflap.automata.Configuration;
+import edu.duke.cs.jflap.automata.State;
+
+/**
+ * The PDA headless simulator simulates a pushdown automaton without ever
+ * asking the user anything. The mode of acceptance and the limits on the
+ * search come from a <CODE>PDASimulationOptions</CODE> object, and instead of
+ * offering to continue after many configurations the simulation stops with
+ * {@link PDASimulationResult#LIMIT_EXCEEDED} once a limit is hit.
+ *
+ * Optionally, the search can merge configurations that have the same state,
+ * input position and stack but were reached by different paths, which keeps
+ * the search polynomial on many ambiguous automata. Runs of lambda moves that
+ * keep growing the stack can also be cut off after a given growth, so that
+ * such cycles do not go on forever.
+ *
+ * @see edu.duke.cs.jflap.automata.pda.PDASimulationOptions
+ */
+public class PDAHeadlessSimulator extends PDAStepWithClosureSimulator {
+	/**
+	 * The parts of a configuration that decide its future: the state, how
+	 * much input is left, and the stack. The parent is left out.
+	 */
+	private static final class ConfigurationKey {
+		private final State state;
+
+		private final int remaining;
+
+		private final PersistentCharacterStack stack;
+
+		private ConfigurationKey(final PDAConfiguration configuration) {
+			state = configuration.getCurrentState();
+			remaining = configuration.getInput().length() - configuration.getPosition();
+			stack = configuration.getStackContents();
+		}
+
+		@Override
+		public boolean equals(final Object object) {
+			if (!(object instanceof ConfigurationKey)) {
+				return false;
+			}
+			final ConfigurationKey key = (ConfigurationKey) object;
+			return state == key.state && remaining == key.remaining && stack.equals(key.stack);
+		}
+
+		@Override
+		public int hashCode() {
+			return (state.hashCode() * 31 + remaining) * 31 + stack.hashCode();
+		}
+	}
+
+	/** The options for the simulation. */
+	private final PDASimulationOptions myOptions;
+
+	/** The number of configurations explored by the last simulation. */
+	private int myConfigurationCount;
+
+	/**
+	 * Creates a headless PDA simulator for the given automaton.
+	 *
+	 * @param automaton
+	 *            the machine to simulate
+	 * @param options
+	 *            the mode of acceptance and the limits of the simulation
+	 */
+	public PDAHeadlessSimulator(final Automaton automaton, final PDASimulationOptions options) {
+		super(automaton,
+				options.getAcceptance() == PDASimulationOptions.Acceptance.EMPTY_STACK ? EMPTY_STACK : FINAL_STATE);
+		myOptions = options;
+	}
+
+	/**
+	 * Returns the number of configurations explored by the last simulation.
+	 *
+	 * @return the number of configurations explored
+	 */
+	public int getConfigurationCount() {
+		return myConfigurationCount;
+	}
+
+	/**
+	 * Returns the options for the simulation.
+	 *
+	 * @return the options
+	 */
+	public PDASimulationOptions getOptions() {
+		return myOptions;
+	}
+
+	/**
+	 * Returns true if any current configuration has consumed all of its input
+	 * and is in a final state or has an empty stack, depending on the mode of
+	 * acceptance.
+	 *
+	 * @return true if the machine is in an accepting configuration
+	 */
+	@Override
+	public boolean isAccepted() {
+		for (final Configuration config : myConfigurations) {
+			final PDAConfiguration configuration = (PDAConfiguration) config;
+			if (configuration.getPosition() != configuration.getInput().length()) {
+				continue;
+			}
+			if (myAcceptance == FINAL_STATE && myAutomaton.isFinalState(configuration.getCurrentState())) {
+				return true;
+			}
+			if (myAcceptance == EMPTY_STACK && configuration.getStackContents().height() == 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Runs the automaton on the input string, stopping if a limit is hit.
+	 *
+	 * @param input
+	 *            the input string to be run on the automaton
+	 * @return {@link PDASimulationResult#ACCEPT} or
+	 *         {@link PDASimulationResult#REJECT} if the search finished, or
+	 *         {@link PDASimulationResult#LIMIT_EXCEEDED} if it was cut short
+	 */
+	public PDASimulationResult simulate(final String input) {
+		myConfigurations.clear();
+		myConfigurationCount = 0;
+		final int maxConfigurations = myOptions.getMaxConfigurations();
+		final int maxStackHeight = myOptions.getMaxStackHeight();
+		final long deadline = myOptions.getTimeLimit() > 0
+				? System.nanoTime() + myOptions.getTimeLimit() * 1000000L : 0;
+		final int maxGrowth = myOptions.getMaxLambdaStackGrowth();
+		final Set<ConfigurationKey> visited = myOptions.isDeduplicating() ? new HashSet<ConfigurationKey>() : null;
+		/** the stack height of each configuration when it last read input. */
+		final Map<Configuration, Integer> baseHeights = maxGrowth > 0 ? new IdentityHashMap<Configuration, Integer>()
+				: null;
+		/** set when a configuration was dropped for its stack height. */
+		boolean pruned = false;
+
+		for (final Configuration config : getInitialConfigurations(input)) {
+			final PDAConfiguration configuration = (PDAConfiguration) config;
+			if (visited != null && !visited.add(new ConfigurationKey(configuration))) {
+				continue;
+			}
+			if (baseHeights != null) {
+				baseHeights.put(configuration, configuration.getStackContents().height());
+			}
+			myConfigurations.add(configuration);
+		}
+		while (!myConfigurations.isEmpty()) {
+			if (isAccepted()) {
+				return PDASimulationResult.ACCEPT;
+			}
+			final List<Configuration> configurationsToAdd = new ArrayList<>();
+			final Iterator<Configuration> it = myConfigurations.iterator();
+			while (it.hasNext()) {
+				if (maxConfigurations > 0 && myConfigurationCount >= maxConfigurations) {
+					return PDASimulationResult.LIMIT_EXCEEDED;
+				}
+				if (deadline != 0 && System.nanoTime() - deadline > 0) {
+					return PDASimulationResult.LIMIT_EXCEEDED;
+				}
+				final PDAConfiguration configuration = (PDAConfiguration) it.next();
+				final Integer baseHeight = baseHeights == null ? null : baseHeights.remove(configuration);
+				for (final PDAConfiguration next : stepConfiguration(configuration)) {
+					final int height = next.getStackContents().height();
+					if (maxStackHeight > 0 && height > maxStackHeight) {
+						pruned = true;
+						continue;
+					}
+					int base = height;
+					if (baseHeight != null && next.getPosition() == configuration.getPosition()) {
+						/** a lambda move; see how far this run has grown. */
+						base = baseHeight;
+						if (height - base > maxGrowth) {
+							pruned = true;
+							continue;
+						}
+					}
+					if (visited != null && !visited.add(new ConfigurationKey(next))) {
+						continue;
+					}
+					if (baseHeights != null) {
+						baseHeights.put(next, base);
+					}
+					configurationsToAdd.add(next);
+				}
+				it.remove();
+				myConfigurationCount++;
+			}
+			myConfigurations.addAll(configurationsToAdd);
+		}
+		return pruned ? PDASimulationResult.LIMIT_EXCEEDED : PDASimulationResult.REJECT;
+	}
+
+	/**
+	 * Runs the automaton on the input string.
+	 *
+	 * @param input
+	 *            the input string to be run on the automaton
+	 * @return true if the automaton accepts the input; false if it rejects it
+	 *         or a limit was hit first
+	 */
+	@Override
+	public boolean simulateInput(final String input) {
+		return simulate(input) == PDASimulationResult.ACCEPT;
+	}
+}
@@ -0,0 +1,185 @@
+/*
+*  JFLAP - Formal Languages and Automata Package
+*
+*
+*  Susan H. Rodger
+*  Computer Science Department
+*  Duke University
+*  August 27, 2009
+
+*  Copyright (c) 2002-2009
+*  All rights reserved.
+
+*  JFLAP is open source software. Please see the LICENSE for terms.
+*
+*/
+package edu.duke.cs.jflap.automata.pda;
+
+/**
+ * The options for a headless PDA simulation: how the automaton accepts, and
+ * how much work the simulation may do before it gives up. A limit of zero
+ * means there is no limit.
+ *
+ * @see edu.duke.cs.jflap.automata.pda.PDAHeadlessSimulator
+ */
+public class PDASimulationOptions {
+	/**
+	 * The ways a pushdown automaton can accept its input.
+	 */
+	public enum Acceptance {
+		/** Accept when the input is consumed in a final state. */
+		FINAL_STATE,
+		/** Accept when the input is consumed with an empty stack. */
+		EMPTY_STACK
+	}
+
+	/** The default limit on the number of configurations. */
+	public static final int DEFAULT_MAX_CONFIGURATIONS = 1000000;
+
+	/** The mode of acceptance. */
+	private Acceptance myAcceptance = Acceptance.FINAL_STATE;
+
+	/** The maximum number of configurations to explore. */
+	private int myMaxConfigurations = DEFAULT_MAX_CONFIGURATIONS;
+
+	/** The maximum stack height of any configuration. */
+	private int myMaxStackHeight = 0;
+
+	/** The wall clock budget in milliseconds. */
+	private long myTimeLimit = 0;
+
+	/** Whether configurations reached by different paths are merged. */
+	private boolean myDeduplicating = false;
+
+	/** How far a run of lambda moves may grow the stack. */
+	private int myMaxLambdaStackGrowth = 0;
+
+	/**
+	 * Creates options that accept by final state, explore at most
+	 * {@link #DEFAULT_MAX_CONFIGURATIONS} configurations, have no stack height
+	 * or time limit, and do not deduplicate configurations.
+	 */
+	public PDASimulationOptions() {
+	}
+
+	/**
+	 * Returns the mode of acceptance.
+	 *
+	 * @return the mode of acceptance
+	 */
+	public Acceptance getAcceptance() {
+		return myAcceptance;
+	}
+
+	/**
+	 * Returns the maximum number of configurations to explore.
+	 *
+	 * @return the configuration limit, or 0 for no limit
+	 */
+	public int getMaxConfigurations() {
+		return myMaxConfigurations;
+	}
+
+	/**
+	 * Returns the maximum stack height of any configuration. Configurations
+	 * with higher stacks are not explored.
+	 *
+	 * @return the stack height limit, or 0 for no limit
+	 */
+	public int getMaxStackHeight() {
+		return myMaxStackHeight;
+	}
+
+	/**
+	 * Returns how many characters a run of moves that read no input may push
+	 * onto the stack, above its height when the last input symbol was read.
+	 * Runs that grow the stack further are treated as lambda cycles that only
+	 * grow the stack, and are not explored.
+	 *
+	 * @return the growth limit, or 0 for no limit
+	 */
+	public int getMaxLambdaStackGrowth() {
+		return myMaxLambdaStackGrowth;
+	}
+
+	/**
+	 * Returns the wall clock budget for one simulation.
+	 *
+	 * @return the time limit in milliseconds, or 0 for no limit
+	 */
+	public long getTimeLimit() {
+		return myTimeLimit;
+	}
+
+	/**
+	 * Returns if configurations with the same state, input position and stack
+	 * are explored only once, no matter how many paths reach them.
+	 *
+	 * @return <CODE>true</CODE> if configurations are deduplicated
+	 */
+	public boolean isDeduplicating() {
+		return myDeduplicating;
+	}
+
+	/**
+	 * Sets the mode of acceptance.
+	 *
+	 * @param acceptance
+	 *            the mode of acceptance
+	 */
+	public void setAcceptance(final Acceptance acceptance) {
+		myAcceptance = acceptance;
+	}
+
+	/**
+	 * Sets if configurations with the same state, input position and stack
+	 * are explored only once.
+	 *
+	 * @param deduplicating
+	 *            <CODE>true</CODE> to deduplicate configurations
+	 */
+	public void setDeduplicating(final boolean deduplicating) {
+		myDeduplicating = deduplicating;
+	}
+
+	/**
+	 * Sets the maximum number of configurations to explore.
+	 *
+	 * @param max
+	 *            the configuration limit, or 0 for no limit
+	 */
+	public void setMaxConfigurations(final int max) {
+		myMaxConfigurations = max;
+	}
+
+	/**
+	 * Sets how many characters a run of moves that read no input may push
+	 * onto the stack.
+	 *
+	 * @param max
+	 *            the growth limit, or 0 for no limit
+	 */
+	public void setMaxLambdaStackGrowth(final int max) {
+		myMaxLambdaStackGrowth = max;
+	}
+
+	/**
+	 * Sets the maximum stack height of any configuration.
+	 *
+	 * @param max
+	 *            the stack height limit, or 0 for no limit
+	 */
+	public void setMaxStackHeight(final int max) {
+		myMaxStackHeight = max;
+	}
+
+	/**
+	 * Sets the wall clock budget for one simulation.
+	 *
+	 * @param millis
+	 *            the time limit in milliseconds, or 0 for no limit
+	 */
+	public void setTimeLimit(final long millis) {
+		myTimeLimit = millis;
+	}
+}
@@ -0,0 +1,33 @@
+/*
+*  JFLAP - Formal Languages and Automata Package
+*
+*
+*  Susan H. Rodger
+*  Computer Science Department
+*  Duke University
+*  August 27, 2009
+
+*  Copyright (c) 2002-2009
+*  All rights reserved.
+
+*  JFLAP is open source software. Please see the LICENSE for terms.
+*
+*/
+package edu.duke.cs.jflap.automata.pda;
+
+/**
+ * The outcome of a headless PDA simulation.
+ *
+ * @see edu.duke.cs.jflap.automata.pda.PDAHeadlessSimulator
+ */
+public enum PDASimulationResult {
+	/** Some configuration accepted the input. */
+	ACCEPT,
+	/** Every configuration was explored and none accepted the input. */
+	REJECT,
+	/**
+	 * No configuration accepted the input before a limit was hit, so the
+	 * input may or may not be accepted.
+	 */
+	LIMIT_EXCEEDED
+}
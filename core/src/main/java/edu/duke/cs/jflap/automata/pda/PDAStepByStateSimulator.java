@@ -68,6 +68,20 @@ public class PDAStepByStateSimulator extends AutomatonSimulator {
 		// myAcceptance=selectedValue;
 	}
 
+	/**
+	 * Creates a PDA simulator for the given automaton with a known mode of
+	 * acceptance, without asking the user for one.
+	 *
+	 * @param automaton
+	 *            the machine to simulate
+	 * @param acceptance
+	 *            either <CODE>FINAL_STATE</CODE> or <CODE>EMPTY_STACK</CODE>
+	 */
+	protected PDAStepByStateSimulator(final Automaton automaton, final int acceptance) {
+		super(automaton);
+		myAcceptance = acceptance;
+	}
+
 	/**
 	 * Returns a PDAConfiguration array that represents the initial
 	 * configuration of the PDA, before any input has been processed. It returns
@@ -80,9 +94,8 @@ public class PDAStepByStateSimulator extends AutomatonSimulator {
 	public List<Configuration> getInitialConfigurations(final String input) {
 		/** The stack should contain the bottom of stack marker. */
 		final List<Configuration> configs = new ArrayList<>();
-		final CharacterStack stack = new CharacterStack();
-		stack.push("Z");
-		configs.add(new PDAConfiguration(myAutomaton.getInitialState(), null, input, input, stack, myAcceptance));
+		final PersistentCharacterStack stack = PersistentCharacterStack.EMPTY.push("Z");
+		configs.add(new PDAConfiguration(myAutomaton.getInitialState(), null, input, 0, stack, myAcceptance));
 		return configs;
 	}
 
@@ -101,12 +114,13 @@ public class PDAStepByStateSimulator extends AutomatonSimulator {
 			final PDAConfiguration configuration = (PDAConfiguration) it.next();
 			if (myAcceptance == FINAL_STATE) {
 				final State currentState = configuration.getCurrentState();
-				if (configuration.getUnprocessedInput() == "" && myAutomaton.isFinalState(currentState)) {
+				if (configuration.getPosition() == configuration.getInput().length()
+						&& myAutomaton.isFinalState(currentState)) {
 					return true;
 				}
 			} else if (myAcceptance == EMPTY_STACK) {
-				final CharacterStack stack = configuration.getStack();
-				if (configuration.getUnprocessedInput() == "" && stack.height() == 0) {
+				if (configuration.getPosition() == configuration.getInput().length()
+						&& configuration.getStackContents().height() == 0) {
 					return true;
 				}
 			}
@@ -188,26 +202,22 @@ public class PDAStepByStateSimulator extends AutomatonSimulator {
 		final List<Configuration> list = new ArrayList<>();
 		final PDAConfiguration configuration = (PDAConfiguration) config;
 		/** get all information from configuration. */
-		final String unprocessedInput = configuration.getUnprocessedInput();
 		final String totalInput = configuration.getInput();
+		final int position = configuration.getPosition();
 		final State currentState = configuration.getCurrentState();
-		final List<Transition> transitions = myAutomaton.getTransitionsFromState(currentState);
+		final List<Transition> transitions = getTransitionsFromState(currentState, totalInput, position);
 		for (int k = 0; k < transitions.size(); k++) {
 			final PDATransition transition = (PDATransition) transitions.get(k);
 			/** get all information from transition. */
 			final String inputToRead = transition.getInputToRead();
 			final String stringToPop = transition.getStringToPop();
-			final CharacterStack tempStack = configuration.getStack();
-			/** copy stack object so as to not alter original. */
-			final CharacterStack stack = new CharacterStack(tempStack);
-			final String stackContents = stack.pop(stringToPop.length());
-			if (unprocessedInput.startsWith(inputToRead) && stringToPop.equals(stackContents)) {
-				String input = "";
-				if (inputToRead.length() < unprocessedInput.length()) {
-					input = unprocessedInput.substring(inputToRead.length());
-				}
+			final PersistentCharacterStack tempStack = configuration.getStackContents();
+			if (totalInput.startsWith(inputToRead, position) && tempStack.startsWith(stringToPop)) {
+				final int input = position + inputToRead.length();
 				final State toState = transition.getToState();
-				stack.push(transition.getStringToPush());
+				/** the stack is shared, so pushing leaves the original alone. */
+				final PersistentCharacterStack stack = tempStack.pop(stringToPop.length())
+						.push(transition.getStringToPush());
 				final PDAConfiguration configurationToAdd = new PDAConfiguration(toState, configuration, totalInput,
 						input, stack, myAcceptance);
 				list.add(configurationToAdd);
@@ -31,6 +31,19 @@ public class PDAStepWithClosureSimulator extends PDAStepByStateSimulator {
 		super(automaton);
 	}
 
+	/**
+	 * Creates a PDA simulator for the given automaton with a known mode of
+	 * acceptance, without asking the user for one.
+	 *
+	 * @param automaton
+	 *            the machine to simulate
+	 * @param acceptance
+	 *            either <CODE>FINAL_STATE</CODE> or <CODE>EMPTY_STACK</CODE>
+	 */
+	protected PDAStepWithClosureSimulator(final Automaton automaton, final int acceptance) {
+		super(automaton, acceptance);
+	}
+
 	/**
 	 * Returns a PDAConfiguration array that represents the initial
 	 * configuration of the PDA, before any input has been processed. It returns
@@ -45,10 +58,9 @@ public class PDAStepWithClosureSimulator extends PDAStepByStateSimulator {
 		final State init = myAutomaton.getInitialState();
 		final List<State> closure = ClosureTaker.getClosure(init, myAutomaton);
 		final List<Configuration> configs = new ArrayList<>();
+		final PersistentCharacterStack stack = PersistentCharacterStack.EMPTY.push("Z");
 		for (int k = 0; k < closure.size(); k++) {
-			final CharacterStack stack = new CharacterStack();
-			stack.push("Z");
-			configs.add(new PDAConfiguration(closure.get(k), null, input, input, stack, myAcceptance));
+			configs.add(new PDAConfiguration(closure.get(k), null, input, 0, stack, myAcceptance));
 		}
 		return configs;
 	}
@@ -65,31 +77,26 @@ public class PDAStepWithClosureSimulator extends PDAStepByStateSimulator {
 		final ArrayList<PDAConfiguration> list = new ArrayList<>();
 		final PDAConfiguration configuration = (PDAConfiguration) config;
 		/** get all information from configuration. */
-		final String unprocessedInput = configuration.getUnprocessedInput();
 		final String totalInput = configuration.getInput();
+		final int position = configuration.getPosition();
 		final State currentState = configuration.getCurrentState();
-		final List<Transition> transitions = myAutomaton.getTransitionsFromState(currentState);
+		final List<Transition> transitions = getTransitionsFromState(currentState, totalInput, position);
 		for (int k = 0; k < transitions.size(); k++) {
 			final PDATransition transition = (PDATransition) transitions.get(k);
 			/** get all information from transition. */
 			final String inputToRead = transition.getInputToRead();
 			final String stringToPop = transition.getStringToPop();
-			final CharacterStack tempStack = configuration.getStack();
-			/** copy stack object so as to not alter original. */
-			final CharacterStack stack = new CharacterStack(tempStack);
-			final String stackContents = stack.pop(stringToPop.length());
-			if (unprocessedInput.startsWith(inputToRead) && stringToPop.equals(stackContents)) {
-				String input = "";
-				if (inputToRead.length() < unprocessedInput.length()) {
-					input = unprocessedInput.substring(inputToRead.length());
-				}
+			final PersistentCharacterStack tempStack = configuration.getStackContents();
+			if (totalInput.startsWith(inputToRead, position) && tempStack.startsWith(stringToPop)) {
+				final int input = position + inputToRead.length();
 				final State toState = transition.getToState();
-				stack.push(transition.getStringToPush());
+				/** the stack is shared, so pushing leaves the original alone. */
+				final PersistentCharacterStack stack = tempStack.pop(stringToPop.length())
+						.push(transition.getStringToPush());
 				final List<State> closure = ClosureTaker.getClosure(toState, myAutomaton);
 				for (int i = 0; i < closure.size(); i++) {
-					final CharacterStack cstack = new CharacterStack(stack);
 					final PDAConfiguration configurationToAdd = new PDAConfiguration(closure.get(i), configuration,
-							totalInput, input, cstack, myAcceptance);
+							totalInput, input, stack, myAcceptance);
 					list.add(configurationToAdd);
 				}
 			}
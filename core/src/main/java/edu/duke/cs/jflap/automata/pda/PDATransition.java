@@ -123,6 +123,17 @@ public class PDATransition extends Transition {
 		return input + " , " + toPop + " ; " + toPush;
 	}
 
+	/**
+	 * Returns the first character of the input to read.
+	 *
+	 * @return the first character of the input to read, or
+	 *         <CODE>NO_SYMBOL</CODE> if the transition reads no input
+	 */
+	@Override
+	public int getFirstSymbol() {
+		return myInputToRead.length() == 0 ? NO_SYMBOL : myInputToRead.charAt(0);
+	}
+
 	/**
 	 * Returns the input to read portion of the transition label for this
 	 * transition.
@@ -0,0 +1,238 @@
+/*
+*  JFLAP - Formal Languages and Automata Package
+*
+*
+*  Susan H. Rodger
+*  Computer Science Department
+*  Duke University
+*  August 27, 2009
+
+*  Copyright (c) 2002-2009
+*  All rights reserved.
+
+*  JFLAP is open source software. Please see the LICENSE for terms.
+*
+*/
+package edu.duke.cs.jflap.automata.pda;
+
+import java.io.Serializable;
+
+/**
+ * An immutable character stack, stored as a linked list from the top down.
+ * Pushing and popping return new stacks that share the rest of the list with
+ * the old one, so both are O(1) per character, and configurations that branch
+ * from the same parent share their stack tails instead of copying them. The
+ * hash of every stack is computed once, when it is created.
+ *
+ * @see edu.duke.cs.jflap.automata.pda.CharacterStack
+ */
+public final class PersistentCharacterStack implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	/** The empty stack. */
+	public static final PersistentCharacterStack EMPTY = new PersistentCharacterStack();
+
+	/** The character on top of the stack. */
+	private final char top;
+
+	/** The stack below the top character, or <CODE>null</CODE> if empty. */
+	private final PersistentCharacterStack rest;
+
+	/** The number of characters on the stack. */
+	private final int height;
+
+	/** The hash value, computed from the bottom of the stack up. */
+	private final int hash;
+
+	private PersistentCharacterStack() {
+		top = 0;
+		rest = null;
+		height = 0;
+		hash = 0;
+	}
+
+	private PersistentCharacterStack(final char top, final PersistentCharacterStack rest) {
+		this.top = top;
+		this.rest = rest;
+		height = rest.height + 1;
+		hash = 31 * rest.hash + top;
+	}
+
+	/**
+	 * Two stacks are equal if they have the same characters in the same order.
+	 * Stacks that share their storage are compared in constant time.
+	 *
+	 * @param object
+	 *            the object to check against for equality
+	 * @return <CODE>true</CODE> if the stacks are equal, <CODE>false</CODE>
+	 *         otherwise
+	 */
+	@Override
+	public boolean equals(final Object object) {
+		if (!(object instanceof PersistentCharacterStack)) {
+			return false;
+		}
+		PersistentCharacterStack a = this;
+		PersistentCharacterStack b = (PersistentCharacterStack) object;
+		if (a.height != b.height || a.hash != b.hash) {
+			return false;
+		}
+		while (a != b) {
+			if (a.top != b.top) {
+				return false;
+			}
+			a = a.rest;
+			b = b.rest;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns a hash value for this stack.
+	 *
+	 * @return a hash value for this stack
+	 */
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	/**
+	 * Returns the number of characters on this stack.
+	 *
+	 * @return the number of characters on this stack
+	 */
+	public int height() {
+		return height;
+	}
+
+	/**
+	 * Returns if this stack has no characters.
+	 *
+	 * @return <CODE>true</CODE> if this stack is empty
+	 */
+	public boolean isEmpty() {
+		return height == 0;
+	}
+
+	/**
+	 * Returns the top character of this stack.
+	 *
+	 * @return the top character, or 0 if the stack is empty
+	 */
+	public char peek() {
+		return top;
+	}
+
+	/**
+	 * Returns this stack without its top character.
+	 *
+	 * @return the stack below the top character, or the empty stack if this
+	 *         stack is empty
+	 */
+	public PersistentCharacterStack pop() {
+		return height == 0 ? this : rest;
+	}
+
+	/**
+	 * Returns this stack without its top <CODE>number</CODE> characters.
+	 *
+	 * @param number
+	 *            the number of characters to pop
+	 * @return the remaining stack, or <CODE>null</CODE> if there are not
+	 *         <CODE>number</CODE> characters on the stack
+	 */
+	public PersistentCharacterStack pop(final int number) {
+		if (height < number) {
+			return null;
+		}
+		PersistentCharacterStack stack = this;
+		for (int i = 0; i < number; i++) {
+			stack = stack.rest;
+		}
+		return stack;
+	}
+
+	/**
+	 * Returns this stack with a character pushed on top.
+	 *
+	 * @param character
+	 *            the character to push
+	 * @return the new stack
+	 */
+	public PersistentCharacterStack push(final char character) {
+		return new PersistentCharacterStack(character, this);
+	}
+
+	/**
+	 * Returns this stack with a string pushed on top. The first character in
+	 * the string ends up on top of the stack.
+	 *
+	 * @param string
+	 *            the characters to push
+	 * @return the new stack
+	 */
+	public PersistentCharacterStack push(final String string) {
+		PersistentCharacterStack stack = this;
+		for (int i = string.length() - 1; i >= 0; i--) {
+			stack = new PersistentCharacterStack(string.charAt(i), stack);
+		}
+		return stack;
+	}
+
+	/**
+	 * Returns if the top of this stack reads <CODE>string</CODE>, with the
+	 * first character of the string on top.
+	 *
+	 * @param string
+	 *            the characters to look for
+	 * @return <CODE>true</CODE> if popping <CODE>string.length()</CODE>
+	 *         characters would return <CODE>string</CODE>
+	 */
+	public boolean startsWith(final String string) {
+		if (height < string.length()) {
+			return false;
+		}
+		PersistentCharacterStack stack = this;
+		for (int i = 0; i < string.length(); i++) {
+			if (stack.top != string.charAt(i)) {
+				return false;
+			}
+			stack = stack.rest;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the top <CODE>number</CODE> characters as a string, with the top
+	 * character first.
+	 *
+	 * @param number
+	 *            the number of characters to read
+	 * @return the characters, or <CODE>null</CODE> if there are not
+	 *         <CODE>number</CODE> characters on the stack
+	 */
+	public String top(final int number) {
+		if (height < number) {
+			return null;
+		}
+		final char[] c = new char[number];
+		PersistentCharacterStack stack = this;
+		for (int i = 0; i < number; i++) {
+			c[i] = stack.top;
+			stack = stack.rest;
+		}
+		return new String(c);
+	}
+
+	/**
+	 * Returns a string representation of this object, with the top character
+	 * first.
+	 *
+	 * @return a string representation of this object
+	 */
+	@Override
+	public String toString() {
+		return top(height);
+	}
+}
@@ -329,7 +329,7 @@ public class LambdaProductionRemover {
 			if (lambdaSet.contains(v)) {
 				final List<String> s = new ArrayList<>(Collections.nCopies(2 * start.size(), null));
 				for (int j = 0; j < start.size(); j++) {
-					s.add(start.get(j) + v);
+					s.set(j, start.get(j) + v);
 					s.set(j + start.size(), start.get(j));
 				}
 				start = s;
@@ -23,12 +23,8 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 
-import edu.duke.cs.jflap.grammar.CNFConverter;
 import edu.duke.cs.jflap.grammar.Grammar;
-import edu.duke.cs.jflap.grammar.LambdaProductionRemover;
 import edu.duke.cs.jflap.grammar.Production;
-import edu.duke.cs.jflap.grammar.UnitProductionRemover;
-import edu.duke.cs.jflap.grammar.UselessProductionRemover;
 
 /**
  * CYK Parser It parses grammar that is in CNF form and returns whether the
@@ -39,38 +35,21 @@ import edu.duke.cs.jflap.grammar.UselessProductionRemover;
  */
 public class CYKParser {
 
-	/** Start variable of the grammar */
-	private static String START_VARIABLE;
-
-	private static Grammar convert(Grammar grammar) {
-		if (grammar.isConverted()) {
-			return grammar;
-		}
-
-		grammar = UselessProductionRemover.getUselessProductionlessGrammar(grammar);
-		grammar = LambdaProductionRemover.getLambdaProductionlessGrammar(grammar);
-		grammar = UnitProductionRemover.getUnitProductionlessGrammar(grammar);
-		return CNFConverter.convert(grammar);
-	}
-
 	/**
-	 * Thread safe, hopefully.
+	 * Returns whether <CODE>grammar</CODE> derives <CODE>target</CODE>. This
+	 * compiles the grammar on every call; to test many strings against one
+	 * grammar, compile it once with {@link CompiledCFG#compile(Grammar)}.
 	 */
-	public static boolean convertAndSolve(Grammar grammar, final String target) {
-		// may not be thread safe
-		grammar = convert(grammar);
-		// CYKParser doesn't handle empty string.
-		if (target.equals("")) {
-			return BruteParser.get(grammar, target).start();
-		}
-		// lots of repeated work to construct a new CYKParser for the same
-		// grammars
-		return new CYKParser(grammar).solve(target);
+	public static boolean convertAndSolve(final Grammar grammar, final String target) {
+		return CompiledCFG.compile(grammar).accepts(target);
 	}
 
 	/** Production array that will contain all the productions of grammar */
 	private final List<Production> myProductions;
 
+	/** Start variable of the grammar */
+	private final String myStartVariable;
+
 	/** Length of the input String */
 	private int myTargetLength;
 
@@ -94,7 +73,7 @@ public class CYKParser {
 	 */
 	public CYKParser(final Grammar grammar) {
 		myProductions = grammar.getProductions();
-		START_VARIABLE = grammar.getStartVariable();
+		myStartVariable = grammar.getStartVariable();
 	}
 
 	/**
@@ -228,7 +207,7 @@ public class CYKParser {
 
 		// System.out.println("WHOLE MAP = "+myMap);
 
-		getMoreProductions(START_VARIABLE, "0," + (myTargetLength - 1));
+		getMoreProductions(myStartVariable, "0," + (myTargetLength - 1));
 
 		// System.out.println(myAnswerProductions);
 
@@ -284,10 +263,10 @@ public class CYKParser {
 		}
 
 		if (increment == 2) {
-			return myMap.get("0," + (targetLength - 1)).contains(START_VARIABLE);
+			return myMap.get("0," + (targetLength - 1)).contains(myStartVariable);
 		}
 
-		if (myMap.get("0," + (targetLength - 1)).contains(START_VARIABLE)) {
+		if (myMap.get("0," + (targetLength - 1)).contains(myStartVariable)) {
 			return true;
 		} else {
 			return false;
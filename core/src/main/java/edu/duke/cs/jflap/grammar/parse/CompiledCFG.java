@@ -0,0 +1,150 @@
+/*
+*  JFLAP - Formal Languages and Automata Package
+*
+*
+*  Susan H. Rodger
+*  Computer Science Department
+*  Duke University
+*  August 27, 2009
+
+*  Copyright (c) 2002-2009
+*  All rights reserved.
+
+*  JFLAP is open source software. Please see the LICENSE for terms.
+*
+*/
+
+package edu.duke.cs.jflap.grammar.parse;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import edu.duke.cs.jflap.grammar.CNFConverter;
+import edu.duke.cs.jflap.grammar.Grammar;
+import edu.duke.cs.jflap.grammar.LambdaProductionRemover;
+import edu.duke.cs.jflap.grammar.Production;
+import edu.duke.cs.jflap.grammar.UnitProductionRemover;
+import edu.duke.cs.jflap.grammar.UnrestrictedGrammar;
+import edu.duke.cs.jflap.grammar.UselessProductionRemover;
+
+/**
+ * A <CODE>CompiledCFG</CODE> is a context free grammar converted once into
+ * Chomsky normal form, together with an {@link IndexedCYKParser} over the
+ * converted grammar. Useless, lambda and unit productions are removed and the
+ * remaining productions are broken up by the {@link CNFConverter} when the
+ * grammar is compiled, so that any number of membership tests afterwards
+ * only pay for the parse.
+ *
+ * Whether the empty string is in the language is decided from the lambda
+ * deriving variables of the original grammar, since the converted grammar
+ * cannot derive it.
+ *
+ * Instances are immutable and may be shared between threads. They are a
+ * snapshot of the grammar at the time of compilation, and do not follow later
+ * edits to it.
+ */
+public final class CompiledCFG {
+	/**
+	 * Compiles a context free grammar.
+	 *
+	 * @param grammar
+	 *            the grammar to compile
+	 * @return the compiled grammar
+	 * @throws IllegalArgumentException
+	 *             if the grammar uses the reserved characters
+	 *             <CODE>(</CODE> or <CODE>)</CODE>
+	 */
+	public static CompiledCFG compile(Grammar grammar) {
+		final String start = grammar.getStartVariable();
+		final boolean lambda = LambdaProductionRemover.getCompleteLambdaSet(grammar).contains(start);
+
+		grammar = UselessProductionRemover.getUselessProductionlessGrammar(grammar);
+		grammar = LambdaProductionRemover.getLambdaProductionlessGrammar(grammar);
+		grammar = UnitProductionRemover.getUnitProductionlessGrammar(grammar);
+
+		// One converter for all productions, so that the variables it
+		// introduces are shared rather than renumbered per production.
+		final CNFConverter converter = new CNFConverter(grammar);
+		final List<Production> productions = new ArrayList<>();
+		final Deque<Production> pending = new ArrayDeque<>(grammar.getProductions());
+		while (!pending.isEmpty()) {
+			final Production production = pending.pop();
+			if (converter.isChomsky(production)) {
+				productions.add(production);
+				continue;
+			}
+			final List<Production> replacements = converter.replacements(production);
+			for (int i = replacements.size() - 1; i >= 0; i--) {
+				pending.push(replacements.get(i));
+			}
+		}
+
+		// The variables introduced by the converter, like B(a) and D(1), are
+		// kept as they are: CNFConverter.convert would rename them to single
+		// letters, but there may be more than 26 of them.
+		final Grammar converted = new UnrestrictedGrammar();
+		converted.addProductions(productions);
+		converted.setStartVariable(start);
+		return new CompiledCFG(converted, lambda);
+	}
+
+	/** The grammar in Chomsky normal form. */
+	private final Grammar myGrammar;
+
+	/** The parser over the converted grammar. */
+	private final IndexedCYKParser myParser;
+
+	/** If the original grammar derives the empty string. */
+	private final boolean myLambdaAccepted;
+
+	private CompiledCFG(final Grammar grammar, final boolean lambdaAccepted) {
+		myGrammar = grammar;
+		myParser = new IndexedCYKParser(grammar);
+		myLambdaAccepted = lambdaAccepted;
+	}
+
+	/**
+	 * Returns true if the grammar derives <CODE>target</CODE>.
+	 *
+	 * @param target
+	 *            the input string
+	 * @return <CODE>true</CODE> if the grammar derives <CODE>target</CODE>
+	 */
+	public boolean accepts(final String target) {
+		if (target.length() == 0) {
+			return myLambdaAccepted;
+		}
+		return myParser.solve(target);
+	}
+
+	/**
+	 * Returns the grammar in Chomsky normal form. The grammar must not be
+	 * modified.
+	 *
+	 * @return the converted grammar
+	 */
+	public Grammar getGrammar() {
+		return myGrammar;
+	}
+
+	/**
+	 * Returns the parser over the converted grammar, for derivations and for
+	 * the contents of individual chart cells.
+	 *
+	 * @return the parser over the converted grammar
+	 */
+	public IndexedCYKParser getParser() {
+		return myParser;
+	}
+
+	/**
+	 * Returns true if the grammar derives the empty string.
+	 *
+	 * @return <CODE>true</CODE> if the grammar derives the empty string
+	 */
+	public boolean isLambdaAccepted() {
+		return myLambdaAccepted;
+	}
+}
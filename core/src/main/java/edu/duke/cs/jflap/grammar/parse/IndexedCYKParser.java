@@ -0,0 +1,444 @@
+/*
+*  JFLAP - Formal Languages and Automata Package
+*
+*
+*  Susan H. Rodger
+*  Computer Science Department
+*  Duke University
+*  August 27, 2009
+
+*  Copyright (c) 2002-2009
+*  All rights reserved.
+
+*  JFLAP is open source software. Please see the LICENSE for terms.
+*
+*/
+
+package edu.duke.cs.jflap.grammar.parse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.duke.cs.jflap.grammar.Grammar;
+import edu.duke.cs.jflap.grammar.Production;
+import edu.duke.cs.jflap.grammar.ProductionChecker;
+
+/**
+ * A CYK parser over an integer-indexed form of a grammar in Chomsky normal
+ * form. Variables are numbered once when the parser is built, each cell of
+ * the chart is a bitset of variables, and the binary productions are indexed
+ * by the pair of variables on their right hand side, so that combining two
+ * cells is a join over the set bits of the left cell. Unlike
+ * {@link CYKParser}, every parse keeps its chart in local arrays, so one
+ * parser may be shared by any number of threads.
+ */
+public final class IndexedCYKParser {
+	/** The productions of the grammar, indexed by production number. */
+	private final Production[] myProductions;
+
+	/** The variable names, indexed by variable number. */
+	private final String[] myVariables;
+
+	/** Map of variable name to variable number. */
+	private final Map<String, Integer> myVariableNumbers;
+
+	/** The number of the start variable, or -1 if it appears nowhere. */
+	private final int myStartVariable;
+
+	/** The number of longs in the bitset of one chart cell. */
+	private final int myWords;
+
+	/** Map of terminal character to the variables that derive it. */
+	private final Map<Character, long[]> myTerminalVariables;
+
+	/** Map of terminal character to the production numbers that derive it. */
+	private final Map<Character, int[]> myTerminalProductions;
+
+	/**
+	 * For each variable B, the variables C such that some production has the
+	 * right hand side BC.
+	 */
+	private final int[][] myPartners;
+
+	/**
+	 * For each variable B and each index j into its partners, the bitset of
+	 * the left hand sides of the productions with right hand side BC.
+	 */
+	private final long[][][] myPairVariables;
+
+	/**
+	 * For each variable B and each index j into its partners, the production
+	 * numbers with right hand side BC.
+	 */
+	private final int[][][] myPairProductions;
+
+	/** The left hand side variable of each production. */
+	private final int[] myProductionVariables;
+
+	/**
+	 * Instantiates a parser for a grammar.
+	 *
+	 * @param grammar
+	 *            a grammar in Chomsky normal form
+	 * @throws IllegalArgumentException
+	 *             if some production is neither of the form A->BC nor A->a
+	 */
+	public IndexedCYKParser(final Grammar grammar) {
+		final List<Production> productions = grammar.getProductions();
+		final Map<String, Integer> variables = new HashMap<>();
+		final List<String> names = new ArrayList<>();
+		final int[][] shapes = new int[productions.size()][];
+		for (int p = 0; p < productions.size(); p++) {
+			final Production production = productions.get(p);
+			final List<String> rhs = tokenize(production.getRHS());
+			if (rhs.size() == 1 && !isVariable(rhs.get(0))) {
+				shapes[p] = new int[] { intern(production.getLHS(), variables, names), -1 };
+			} else if (rhs.size() == 2 && isVariable(rhs.get(0)) && isVariable(rhs.get(1))) {
+				shapes[p] = new int[] { intern(production.getLHS(), variables, names),
+						intern(rhs.get(0), variables, names), intern(rhs.get(1), variables, names) };
+			} else {
+				throw new IllegalArgumentException("Production " + production + " is not in Chomsky normal form.");
+			}
+		}
+		final Integer start = variables.get(grammar.getStartVariable());
+		myStartVariable = start == null ? -1 : start;
+		myVariables = names.toArray(new String[names.size()]);
+		myVariableNumbers = variables;
+		myWords = Math.max(1, (myVariables.length + 63) >>> 6);
+		myProductions = productions.toArray(new Production[productions.size()]);
+		myProductionVariables = new int[shapes.length];
+
+		final Map<Character, List<Integer>> terminals = new HashMap<>();
+		final List<Map<Integer, List<Integer>>> pairs = new ArrayList<>();
+		for (int v = 0; v < myVariables.length; v++) {
+			pairs.add(new HashMap<Integer, List<Integer>>());
+		}
+		for (int p = 0; p < shapes.length; p++) {
+			myProductionVariables[p] = shapes[p][0];
+			if (shapes[p][1] < 0) {
+				final Character a = myProductions[p].getRHS().charAt(0);
+				if (!terminals.containsKey(a)) {
+					terminals.put(a, new ArrayList<Integer>());
+				}
+				terminals.get(a).add(p);
+			} else {
+				final Map<Integer, List<Integer>> partners = pairs.get(shapes[p][1]);
+				if (!partners.containsKey(shapes[p][2])) {
+					partners.put(shapes[p][2], new ArrayList<Integer>());
+				}
+				partners.get(shapes[p][2]).add(p);
+			}
+		}
+
+		myTerminalVariables = new HashMap<>();
+		myTerminalProductions = new HashMap<>();
+		for (final Map.Entry<Character, List<Integer>> entry : terminals.entrySet()) {
+			final int[] numbers = toArray(entry.getValue());
+			myTerminalProductions.put(entry.getKey(), numbers);
+			myTerminalVariables.put(entry.getKey(), toBitset(numbers));
+		}
+		myPartners = new int[myVariables.length][];
+		myPairVariables = new long[myVariables.length][][];
+		myPairProductions = new int[myVariables.length][][];
+		for (int b = 0; b < myVariables.length; b++) {
+			final Map<Integer, List<Integer>> partners = pairs.get(b);
+			myPartners[b] = new int[partners.size()];
+			myPairVariables[b] = new long[partners.size()][];
+			myPairProductions[b] = new int[partners.size()][];
+			int j = 0;
+			for (final Map.Entry<Integer, List<Integer>> entry : partners.entrySet()) {
+				myPartners[b][j] = entry.getKey();
+				myPairProductions[b][j] = toArray(entry.getValue());
+				myPairVariables[b][j] = toBitset(myPairProductions[b][j]);
+				j++;
+			}
+		}
+	}
+
+	/**
+	 * Returns the index of the cell for the substring of length
+	 * <CODE>length</CODE> starting at <CODE>start</CODE>. Cells are laid out
+	 * by length, so that all cells of one length are contiguous.
+	 */
+	private static int cell(final int n, final int start, final int length) {
+		return (length - 1) * (2 * n - length + 2) / 2 + start;
+	}
+
+	/**
+	 * Returns true if the cell at <CODE>at</CODE> contains variable
+	 * <CODE>v</CODE>.
+	 */
+	private boolean contains(final long[] chart, final int at, final int v) {
+		return (chart[at * myWords + (v >>> 6)] & (1L << v)) != 0;
+	}
+
+	/**
+	 * Fills the chart for <CODE>target</CODE>.
+	 *
+	 * @param target
+	 *            the nonempty input string
+	 * @param splits
+	 *            if not <CODE>null</CODE>, receives for each cell and
+	 *            variable the length of the left part of the first split
+	 *            that derived it
+	 * @param rules
+	 *            if not <CODE>null</CODE>, receives for each cell and
+	 *            variable the number of the production that derived it
+	 * @return the chart, or <CODE>null</CODE> if some character of the
+	 *         target is derived by no variable
+	 */
+	private long[] fill(final String target, final int[] splits, final int[] rules) {
+		final int n = target.length();
+		final int words = myWords;
+		final int vars = myVariables.length;
+		final long[] chart = new long[cell(n, 0, n + 1) * words];
+		for (int i = 0; i < n; i++) {
+			final Character a = target.charAt(i);
+			final long[] set = myTerminalVariables.get(a);
+			if (set == null) {
+				return null;
+			}
+			System.arraycopy(set, 0, chart, i * words, words);
+			if (rules != null) {
+				for (final int p : myTerminalProductions.get(a)) {
+					final int slot = i * vars + myProductionVariables[p];
+					if (rules[slot] < 0) {
+						rules[slot] = p;
+					}
+				}
+			}
+		}
+		for (int length = 2; length <= n; length++) {
+			for (int i = 0; i + length <= n; i++) {
+				final int to = cell(n, i, length) * words;
+				for (int k = 1; k < length; k++) {
+					final int left = cell(n, i, k) * words;
+					final int right = cell(n, i + k, length - k) * words;
+					if (isEmpty(chart, right, words)) {
+						continue;
+					}
+					for (int w = 0; w < words; w++) {
+						long bits = chart[left + w];
+						while (bits != 0) {
+							final int b = (w << 6) + Long.numberOfTrailingZeros(bits);
+							bits &= bits - 1;
+							final int[] partners = myPartners[b];
+							for (int j = 0; j < partners.length; j++) {
+								final int c = partners[j];
+								if ((chart[right + (c >>> 6)] & (1L << c)) == 0) {
+									continue;
+								}
+								if (rules == null) {
+									final long[] set = myPairVariables[b][j];
+									for (int x = 0; x < words; x++) {
+										chart[to + x] |= set[x];
+									}
+									continue;
+								}
+								for (final int p : myPairProductions[b][j]) {
+									final int v = myProductionVariables[p];
+									if ((chart[to + (v >>> 6)] & (1L << v)) == 0) {
+										chart[to + (v >>> 6)] |= 1L << v;
+										final int slot = to / words * vars + v;
+										splits[slot] = k;
+										rules[slot] = p;
+									}
+								}
+							}
+						}
+					}
+				}
+			}
+		}
+		return chart;
+	}
+
+	/**
+	 * Returns a leftmost derivation of <CODE>target</CODE>, as the list of
+	 * productions applied in order, in the same form as
+	 * {@link CYKParser#getTrace()}.
+	 *
+	 * @param target
+	 *            the input string
+	 * @return the productions of the derivation, or <CODE>null</CODE> if the
+	 *         grammar does not derive <CODE>target</CODE>
+	 */
+	public List<Production> getDerivation(final String target) {
+		final int n = target.length();
+		if (n == 0 || myStartVariable < 0) {
+			return null;
+		}
+		final int cells = cell(n, 0, n + 1);
+		final int[] splits = new int[cells * myVariables.length];
+		final int[] rules = new int[cells * myVariables.length];
+		Arrays.fill(rules, -1);
+		final long[] chart = fill(target, splits, rules);
+		if (chart == null || !contains(chart, cell(n, 0, n), myStartVariable)) {
+			return null;
+		}
+		final List<Production> derivation = new ArrayList<>();
+		// Preorder walk of the parse tree with an explicit stack of
+		// (start, length, variable) triples.
+		final int[] stack = new int[3 * (2 * n)];
+		int top = 0;
+		stack[top++] = 0;
+		stack[top++] = n;
+		stack[top++] = myStartVariable;
+		while (top > 0) {
+			final int v = stack[--top];
+			final int length = stack[--top];
+			final int start = stack[--top];
+			final int slot = cell(n, start, length) * myVariables.length + v;
+			final Production production = myProductions[rules[slot]];
+			derivation.add(production);
+			if (length == 1) {
+				continue;
+			}
+			final int k = splits[slot];
+			final List<String> rhs = tokenize(production.getRHS());
+			stack[top++] = start + k;
+			stack[top++] = length - k;
+			stack[top++] = myVariableNumbers.get(rhs.get(1));
+			stack[top++] = start;
+			stack[top++] = k;
+			stack[top++] = myVariableNumbers.get(rhs.get(0));
+		}
+		return derivation;
+	}
+
+	/**
+	 * Returns the number of distinct variables in the grammar.
+	 *
+	 * @return the number of distinct variables in the grammar
+	 */
+	public int getVariableCount() {
+		return myVariables.length;
+	}
+
+	/**
+	 * Returns the variables that derive the substring of <CODE>target</CODE>
+	 * of length <CODE>length</CODE> starting at <CODE>start</CODE>, like
+	 * one cell of the table shown by the CYK parse pane.
+	 *
+	 * @param target
+	 *            the input string
+	 * @param start
+	 *            the start of the substring
+	 * @param length
+	 *            the length of the substring, at least 1
+	 * @return the variables deriving that substring
+	 */
+	public List<String> getVariables(final String target, final int start, final int length) {
+		final int n = target.length();
+		if (start < 0 || length < 1 || start + length > n) {
+			throw new IndexOutOfBoundsException("No substring of length " + length + " at " + start + ".");
+		}
+		final List<String> list = new ArrayList<>();
+		final long[] chart = fill(target, null, null);
+		if (chart == null) {
+			return list;
+		}
+		final int at = cell(n, start, length);
+		for (int v = 0; v < myVariables.length; v++) {
+			if (contains(chart, at, v)) {
+				list.add(myVariables[v]);
+			}
+		}
+		return list;
+	}
+
+	/**
+	 * Returns the number of <CODE>variable</CODE>, numbering it if it is new.
+	 */
+	private static int intern(final String variable, final Map<String, Integer> numbers, final List<String> names) {
+		Integer number = numbers.get(variable);
+		if (number == null) {
+			number = names.size();
+			numbers.put(variable, number);
+			names.add(variable);
+		}
+		return number;
+	}
+
+	/**
+	 * Returns true if the <CODE>words</CODE> longs at <CODE>from</CODE> are
+	 * all zero.
+	 */
+	private static boolean isEmpty(final long[] chart, final int from, final int words) {
+		for (int w = 0; w < words; w++) {
+			if (chart[from + w] != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns true if <CODE>symbol</CODE>, as returned by
+	 * {@link #tokenize(String)}, is a variable.
+	 */
+	private static boolean isVariable(final String symbol) {
+		return ProductionChecker.isVariable(symbol.charAt(0));
+	}
+
+	/**
+	 * Returns true if the grammar derives <CODE>target</CODE>. The empty
+	 * string is never derived, since a grammar in Chomsky normal form has no
+	 * lambda productions.
+	 *
+	 * @param target
+	 *            the input string
+	 * @return true if the grammar derives <CODE>target</CODE>
+	 */
+	public boolean solve(final String target) {
+		final int n = target.length();
+		if (n == 0 || myStartVariable < 0) {
+			return false;
+		}
+		final long[] chart = fill(target, null, null);
+		return chart != null && contains(chart, cell(n, 0, n), myStartVariable);
+	}
+
+	/**
+	 * Returns the bitset of the left hand sides of the given productions.
+	 */
+	private long[] toBitset(final int[] productions) {
+		final long[] set = new long[myWords];
+		for (final int p : productions) {
+			final int v = myProductionVariables[p];
+			set[v >>> 6] |= 1L << v;
+		}
+		return set;
+	}
+
+	private static int[] toArray(final List<Integer> list) {
+		final int[] array = new int[list.size()];
+		for (int i = 0; i < array.length; i++) {
+			array[i] = list.get(i);
+		}
+		return array;
+	}
+
+	/**
+	 * Splits a right hand side into symbols. Variables introduced by the
+	 * {@link edu.duke.cs.jflap.grammar.CNFConverter}, like <CODE>B(a)</CODE>
+	 * and <CODE>D(1)</CODE>, are read as single symbols.
+	 */
+	private static List<String> tokenize(final String rhs) {
+		final List<String> symbols = new ArrayList<>();
+		int i = 0;
+		while (i < rhs.length()) {
+			int end = i + 1;
+			if (ProductionChecker.isVariable(rhs.charAt(i)) && end < rhs.length() && rhs.charAt(end) == '(') {
+				final int close = rhs.indexOf(')', end);
+				end = close < 0 ? rhs.length() : close + 1;
+			}
+			symbols.add(rhs.substring(i, end));
+			i = end;
+		}
+		return symbols;
+	}
+}
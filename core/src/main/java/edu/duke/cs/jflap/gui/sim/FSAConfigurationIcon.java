@@ -60,6 +60,6 @@ public class FSAConfigurationIcon extends ConfigurationIcon {
 		// Draw the torn tape with the rest of the input.
 		Torn.paintString(g, config.getInput(), RIGHT_STATE.x + 5.0f, (height) * 0.5f, Torn.MIDDLE,
 				width - RIGHT_STATE.x - 5.0f, false, true,
-				config.getInput().length() - config.getUnprocessedInput().length());
+				config.getPosition());
 	}
 }
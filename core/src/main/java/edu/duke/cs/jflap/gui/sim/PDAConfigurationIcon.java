@@ -71,7 +71,7 @@ public class PDAConfigurationIcon extends ConfigurationIcon {
 		// Draw the torn tape with the rest of the input.
 		Torn.paintString(g, config.getInput(), RIGHT_STATE.x + 5.0f, (super.getIconHeight()) * 0.5f, Torn.MIDDLE,
 				width - RIGHT_STATE.x - 5.0f, false, true,
-				config.getInput().length() - config.getUnprocessedInput().length());
+				config.getPosition());
 		// Draw the stack.
 		Torn.paintString(g, config.getStack().toString(), BELOW_STATE.x, BELOW_STATE.y + 5.0f, Torn.TOP, getIconWidth(),
 				false, true, -1);
@@ -0,0 +1,367 @@
+/*
+*  JFLAP - Formal Languages and Automata Package
+*
+*
+*  Susan H. Rodger
+*  Computer Science Department
+*  Duke University
+*  August 27, 2009
+
+*  Copyright (c) 2002-2009
+*  All rights reserved.
+
+*  JFLAP is open source software. Please see the LICENSE for terms.
+*
+*/
+
+
+package edu.duke.cs.jflap.regular;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * The derivative matcher decides if strings match a regular expression by
+ * Brzozowski derivatives, without building an automaton first. The
+ * derivative of an expression by a symbol matches the rest of every string
+ * the expression matches that starts with that symbol, so a string matches if
+ * taking the derivative by each of its symbols in turn leaves an expression
+ * that matches the empty string.
+ *
+ * Every expression the matcher creates is hash-consed: structurally equal
+ * expressions are the same object with the same number. Unions are kept
+ * flat, without the empty set or repeated terms, and in order of those
+ * numbers, so an expression has only finitely many different derivatives.
+ * Each derivative taken is remembered in a table indexed by expression
+ * number and symbol, so the table grows into a DFA for the expression as
+ * more strings are matched, and a string made of steps already taken is
+ * matched by table lookups alone.
+ *
+ * The empty string symbol and the empty set symbol are read by the
+ * <CODE>RegularExpressionParser</CODE>, exactly as the other headless
+ * conversions read them. Because of its tables, a matcher must not be shared
+ * between threads.
+ *
+ * @see edu.duke.cs.jflap.regular.RegularExpressionParser
+ */
+public class DerivativeMatcher {
+	/** Marks a derivative that has not been taken yet. */
+	private static final int UNKNOWN = -1;
+
+	/** The characters of the expression, indexed by symbol number. */
+	private final char[] myAlphabet;
+
+	/** Maps a character to its symbol number, or -1 if it is not used. */
+	private final int[] mySymbolOf;
+
+	/** Maps every expression created to its number. */
+	private final HashMap<ExpressionNode, Integer> myNumbers = new HashMap<>();
+
+	/** The expressions created, indexed by number. */
+	private final List<ExpressionNode> myNodes = new ArrayList<>();
+
+	/** Which numbered expressions match the empty string. */
+	private final BitSet myNullable = new BitSet();
+
+	/** The derivatives taken, indexed by number * alphabet size + symbol. */
+	private int[] myDerivatives = new int[0];
+
+	/** The number of the expression being matched. */
+	private final int myStart;
+
+	/** The number of the empty set. */
+	private final int myEmpty;
+
+	private long myHits;
+
+	private long myMisses;
+
+	/**
+	 * Creates a matcher for a regular expression.
+	 *
+	 * @param expression
+	 *            the regular expression
+	 * @throws UnsupportedOperationException
+	 *             if the expression is not properly formed
+	 */
+	public DerivativeMatcher(final RegularExpression expression) {
+		this(RegularExpressionParser.parse(expression));
+	}
+
+	/**
+	 * Creates a matcher for the syntax tree of a regular expression.
+	 *
+	 * @param node
+	 *            the syntax tree
+	 */
+	public DerivativeMatcher(final ExpressionNode node) {
+		final TreeSet<Character> letters = new TreeSet<>();
+		addSymbols(node, letters);
+		myAlphabet = new char[letters.size()];
+		int k = 0;
+		for (final Character c : letters) {
+			myAlphabet[k++] = c;
+		}
+		mySymbolOf = new int[myAlphabet.length == 0 ? 0 : myAlphabet[myAlphabet.length - 1] + 1];
+		Arrays.fill(mySymbolOf, -1);
+		for (int a = 0; a < myAlphabet.length; a++) {
+			mySymbolOf[myAlphabet[a]] = a;
+		}
+		myEmpty = number(ExpressionNode.empty());
+		myStart = number(normalize(node));
+	}
+
+	/**
+	 * Adds the symbols of an expression to a set.
+	 */
+	private static void addSymbols(final ExpressionNode node, final TreeSet<Character> letters) {
+		if (node.getKind() == ExpressionNode.Kind.SYMBOL) {
+			letters.add(node.getSymbol());
+		}
+		for (final ExpressionNode child : node.getChildren()) {
+			addSymbols(child, letters);
+		}
+	}
+
+	/**
+	 * Returns the hash-consed concatenation of some expressions, which is the
+	 * empty set if any of them is, and leaves out the empty string.
+	 */
+	private ExpressionNode concatenation(final List<ExpressionNode> factors) {
+		final List<ExpressionNode> kept = new ArrayList<>();
+		for (final ExpressionNode factor : factors) {
+			if (factor.getKind() == ExpressionNode.Kind.EMPTY) {
+				return myNodes.get(myEmpty);
+			}
+			if (factor.getKind() == ExpressionNode.Kind.CONCATENATION) {
+				kept.addAll(factor.getChildren());
+			} else if (factor.getKind() != ExpressionNode.Kind.LAMBDA) {
+				kept.add(factor);
+			}
+		}
+		return kept.isEmpty() ? intern(ExpressionNode.lambda()) : intern(ExpressionNode.concatenation(kept));
+	}
+
+	/**
+	 * Takes the derivative of a hash-consed expression by a symbol.
+	 */
+	private ExpressionNode derivative(final ExpressionNode node, final char c) {
+		switch (node.getKind()) {
+		case SYMBOL:
+			return node.getSymbol() == c ? intern(ExpressionNode.lambda()) : myNodes.get(myEmpty);
+		case UNION: {
+			final List<ExpressionNode> terms = new ArrayList<>();
+			for (final ExpressionNode child : node.getChildren()) {
+				terms.add(derivative(child, c));
+			}
+			return union(terms);
+		}
+		case CONCATENATION: {
+			// d(r1 r2 ... rn) = d(r1) r2 ... rn + d(r2 ... rn) if r1 is
+			// nullable, and so on while the prefix stays nullable.
+			final List<ExpressionNode> children = node.getChildren();
+			final List<ExpressionNode> terms = new ArrayList<>();
+			for (int i = 0; i < children.size(); i++) {
+				final List<ExpressionNode> factors = new ArrayList<>();
+				factors.add(derivative(children.get(i), c));
+				factors.addAll(children.subList(i + 1, children.size()));
+				terms.add(concatenation(factors));
+				if (!isNullable(children.get(i))) {
+					break;
+				}
+			}
+			return union(terms);
+		}
+		case STAR: {
+			final List<ExpressionNode> factors = new ArrayList<>();
+			factors.add(derivative(node.getChild(), c));
+			factors.add(node);
+			return concatenation(factors);
+		}
+		default:
+			return myNodes.get(myEmpty);
+		}
+	}
+
+	/**
+	 * Returns the number of different expressions created so far, which
+	 * includes every state of the DFA explored so far.
+	 *
+	 * @return the number of expressions
+	 */
+	public int getExpressionCount() {
+		return myNodes.size();
+	}
+
+	/**
+	 * Returns how many steps were answered from the derivative table.
+	 *
+	 * @return the number of table hits
+	 */
+	public long getHits() {
+		return myHits;
+	}
+
+	/**
+	 * Returns how many derivatives had to be taken.
+	 *
+	 * @return the number of table misses
+	 */
+	public long getMisses() {
+		return myMisses;
+	}
+
+	/**
+	 * Returns the hash-consed copy of an expression whose subexpressions are
+	 * already hash-consed, numbering it if it is new.
+	 */
+	private ExpressionNode intern(final ExpressionNode node) {
+		return myNodes.get(number(node));
+	}
+
+	/**
+	 * Returns if a hash-consed expression matches the empty string.
+	 */
+	private boolean isNullable(final ExpressionNode node) {
+		return myNullable.get(myNumbers.get(node));
+	}
+
+	/**
+	 * Checks if a string matches the expression.
+	 *
+	 * @param input
+	 *            the string to match
+	 * @return <CODE>true</CODE> if the whole string matches
+	 */
+	public boolean matches(final CharSequence input) {
+		final int k = myAlphabet.length;
+		int state = myStart;
+		for (int i = 0, n = input.length(); i < n && state != myEmpty; i++) {
+			final char c = input.charAt(i);
+			if (c >= mySymbolOf.length || mySymbolOf[c] < 0) {
+				return false;
+			}
+			final int cell = state * k + mySymbolOf[c];
+			if (myDerivatives[cell] == UNKNOWN) {
+				myMisses++;
+				// Numbering new expressions may grow the table, so it is
+				// only indexed afterwards.
+				final int next = number(derivative(myNodes.get(state), c));
+				myDerivatives[cell] = next;
+			} else {
+				myHits++;
+			}
+			state = myDerivatives[cell];
+		}
+		return myNullable.get(state);
+	}
+
+	/**
+	 * Rebuilds an expression bottom up from hash-consed parts.
+	 */
+	private ExpressionNode normalize(final ExpressionNode node) {
+		final List<ExpressionNode> children = new ArrayList<>();
+		for (final ExpressionNode child : node.getChildren()) {
+			children.add(normalize(child));
+		}
+		switch (node.getKind()) {
+		case UNION:
+			return union(children);
+		case CONCATENATION:
+			return concatenation(children);
+		case STAR:
+			return star(children.get(0));
+		default:
+			return intern(node);
+		}
+	}
+
+	/**
+	 * Returns the number of an expression whose subexpressions are already
+	 * hash-consed, numbering it if it is new.
+	 */
+	private int number(final ExpressionNode node) {
+		final Integer known = myNumbers.get(node);
+		if (known != null) {
+			return known;
+		}
+		final int number = myNodes.size();
+		myNodes.add(node);
+		myNumbers.put(node, number);
+		boolean nullable;
+		switch (node.getKind()) {
+		case LAMBDA:
+		case STAR:
+			nullable = true;
+			break;
+		case UNION:
+			nullable = false;
+			for (final ExpressionNode child : node.getChildren()) {
+				nullable |= isNullable(child);
+			}
+			break;
+		case CONCATENATION:
+			nullable = true;
+			for (final ExpressionNode child : node.getChildren()) {
+				nullable &= isNullable(child);
+			}
+			break;
+		default:
+			nullable = false;
+		}
+		myNullable.set(number, nullable);
+		final int k = myAlphabet.length;
+		if (myDerivatives.length < (number + 1) * k) {
+			final int old = myDerivatives.length;
+			myDerivatives = Arrays.copyOf(myDerivatives, Math.max((number + 1) * k, old * 2));
+			Arrays.fill(myDerivatives, old, myDerivatives.length, UNKNOWN);
+		}
+		return number;
+	}
+
+	/**
+	 * Returns the hash-consed star of an expression, which is the empty
+	 * string for the empty set and the empty string, and the expression
+	 * itself if it is already a star.
+	 */
+	private ExpressionNode star(final ExpressionNode child) {
+		switch (child.getKind()) {
+		case EMPTY:
+		case LAMBDA:
+			return intern(ExpressionNode.lambda());
+		case STAR:
+			return child;
+		default:
+			return intern(ExpressionNode.star(child));
+		}
+	}
+
+	/**
+	 * Returns the hash-consed union of some expressions, flattened, without
+	 * the empty set or repeated terms, and sorted by number.
+	 */
+	private ExpressionNode union(final List<ExpressionNode> terms) {
+		final TreeSet<Integer> kept = new TreeSet<>();
+		for (final ExpressionNode term : terms) {
+			if (term.getKind() == ExpressionNode.Kind.UNION) {
+				for (final ExpressionNode child : term.getChildren()) {
+					kept.add(myNumbers.get(child));
+				}
+			} else if (term.getKind() != ExpressionNode.Kind.EMPTY) {
+				kept.add(myNumbers.get(term));
+			}
+		}
+		if (kept.isEmpty()) {
+			return myNodes.get(myEmpty);
+		}
+		final List<ExpressionNode> sorted = new ArrayList<>();
+		for (final Integer number : kept) {
+			sorted.add(myNodes.get(number));
+		}
+		return intern(ExpressionNode.union(sorted));
+	}
+}
@@ -0,0 +1,355 @@
+/*
+*  JFLAP - Formal Languages and Automata Package
+*
+*
+*  Susan H. Rodger
+*  Computer Science Department
+*  Duke University
+*  August 27, 2009
+
+*  Copyright (c) 2002-2009
+*  All rights reserved.
+
+*  JFLAP is open source software. Please see the LICENSE for terms.
+*
+*/
+
+
+package edu.duke.cs.jflap.regular;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import edu.duke.cs.jflap.automata.fsa.FSAToRegularExpressionConverter;
+import edu.duke.cs.jflap.gui.environment.Universe;
+
+/**
+ * An <CODE>ExpressionNode</CODE> is a node of the syntax tree of a regular
+ * expression. A node is the empty set, the empty string, a single symbol, the
+ * union or concatenation of two or more subexpressions, or the Kleene star of
+ * one. Unions and concatenations are kept flat, so <CODE>a+b+c</CODE> is one
+ * union of three symbols, and the depth of a tree is the nesting depth of its
+ * parentheses and stars rather than its length.
+ *
+ * Nodes are immutable, and two nodes are equal if they have the same
+ * structure; the hash code is computed once when a node is created.
+ *
+ * @see edu.duke.cs.jflap.regular.RegularExpressionParser
+ */
+public final class ExpressionNode {
+	/**
+	 * The kinds of node.
+	 */
+	public enum Kind {
+		/** The empty set, which matches nothing. */
+		EMPTY,
+		/** The empty string. */
+		LAMBDA,
+		/** A single symbol. */
+		SYMBOL,
+		/** The union of two or more subexpressions. */
+		UNION,
+		/** The concatenation of two or more subexpressions. */
+		CONCATENATION,
+		/** The Kleene star of a subexpression. */
+		STAR
+	}
+
+	/** The one empty set node. */
+	private static final ExpressionNode EMPTY = new ExpressionNode(Kind.EMPTY, '\0',
+			Collections.<ExpressionNode> emptyList());
+
+	/** The one empty string node. */
+	private static final ExpressionNode LAMBDA = new ExpressionNode(Kind.LAMBDA, '\0',
+			Collections.<ExpressionNode> emptyList());
+
+	/**
+	 * Returns the concatenation of some subexpressions. Subexpressions that
+	 * are themselves concatenations are flattened into this one.
+	 *
+	 * @param children
+	 *            the subexpressions, in order
+	 * @return the concatenation, or the only subexpression if there is one
+	 * @throws IllegalArgumentException
+	 *             if there are no subexpressions
+	 */
+	public static ExpressionNode concatenation(final ExpressionNode... children) {
+		return create(Kind.CONCATENATION, Arrays.asList(children));
+	}
+
+	/**
+	 * Returns the concatenation of a list of subexpressions, as
+	 * {@link #concatenation(ExpressionNode...)} does.
+	 *
+	 * @param children
+	 *            the subexpressions, in order
+	 * @return the concatenation, or the only subexpression if there is one
+	 * @throws IllegalArgumentException
+	 *             if there are no subexpressions
+	 */
+	public static ExpressionNode concatenation(final List<ExpressionNode> children) {
+		return create(Kind.CONCATENATION, children);
+	}
+
+	/**
+	 * Creates a union or concatenation, flattening children of the same kind.
+	 */
+	private static ExpressionNode create(final Kind kind, final List<ExpressionNode> children) {
+		if (children.isEmpty()) {
+			throw new IllegalArgumentException("A " + kind.toString().toLowerCase() + " needs a subexpression");
+		}
+		if (children.size() == 1) {
+			return children.get(0);
+		}
+		final List<ExpressionNode> flat = new ArrayList<>();
+		for (final ExpressionNode child : children) {
+			if (child.kind == kind) {
+				flat.addAll(child.children);
+			} else {
+				flat.add(child);
+			}
+		}
+		return new ExpressionNode(kind, '\0', Collections.unmodifiableList(flat));
+	}
+
+	/**
+	 * Returns the node for the empty set.
+	 *
+	 * @return the empty set
+	 */
+	public static ExpressionNode empty() {
+		return EMPTY;
+	}
+
+	/**
+	 * Returns the node for the empty string.
+	 *
+	 * @return the empty string
+	 */
+	public static ExpressionNode lambda() {
+		return LAMBDA;
+	}
+
+	/**
+	 * Returns the Kleene star of a subexpression.
+	 *
+	 * @param child
+	 *            the subexpression
+	 * @return the star
+	 */
+	public static ExpressionNode star(final ExpressionNode child) {
+		return new ExpressionNode(Kind.STAR, '\0', Collections.singletonList(child));
+	}
+
+	/**
+	 * Returns the node for a single symbol.
+	 *
+	 * @param symbol
+	 *            the symbol
+	 * @return the symbol
+	 */
+	public static ExpressionNode symbol(final char symbol) {
+		return new ExpressionNode(Kind.SYMBOL, symbol, Collections.<ExpressionNode> emptyList());
+	}
+
+	/**
+	 * Returns the union of some subexpressions. Subexpressions that are
+	 * themselves unions are flattened into this one.
+	 *
+	 * @param children
+	 *            the subexpressions, in order
+	 * @return the union, or the only subexpression if there is one
+	 * @throws IllegalArgumentException
+	 *             if there are no subexpressions
+	 */
+	public static ExpressionNode union(final ExpressionNode... children) {
+		return create(Kind.UNION, Arrays.asList(children));
+	}
+
+	/**
+	 * Returns the union of a list of subexpressions, as
+	 * {@link #union(ExpressionNode...)} does.
+	 *
+	 * @param children
+	 *            the subexpressions, in order
+	 * @return the union, or the only subexpression if there is one
+	 * @throws IllegalArgumentException
+	 *             if there are no subexpressions
+	 */
+	public static ExpressionNode union(final List<ExpressionNode> children) {
+		return create(Kind.UNION, children);
+	}
+
+	/** The kind of this node. */
+	private final Kind kind;
+
+	/** The symbol, if this is a symbol node. */
+	private final char symbol;
+
+	/** The subexpressions. */
+	private final List<ExpressionNode> children;
+
+	/** The structural hash code. */
+	private final int hash;
+
+	/** The number of nodes in this tree. */
+	private final int size;
+
+	private ExpressionNode(final Kind kind, final char symbol, final List<ExpressionNode> children) {
+		this.kind = kind;
+		this.symbol = symbol;
+		this.children = children;
+		int h = kind.ordinal() * 31 + symbol;
+		long s = 1;
+		for (final ExpressionNode child : children) {
+			h = h * 31 + child.hash;
+			s += child.size;
+		}
+		hash = h;
+		size = (int) Math.min(s, Integer.MAX_VALUE);
+	}
+
+	@Override
+	public boolean equals(final Object object) {
+		if (object == this) {
+			return true;
+		}
+		if (!(object instanceof ExpressionNode)) {
+			return false;
+		}
+		final ExpressionNode other = (ExpressionNode) object;
+		return hash == other.hash && kind == other.kind && symbol == other.symbol && size == other.size
+				&& children.equals(other.children);
+	}
+
+	/**
+	 * Returns the only subexpression of a star.
+	 *
+	 * @return the subexpression
+	 * @throws IllegalStateException
+	 *             if this is not a star
+	 */
+	public ExpressionNode getChild() {
+		if (kind != Kind.STAR) {
+			throw new IllegalStateException("Only a star has a single subexpression, not a " + kind);
+		}
+		return children.get(0);
+	}
+
+	/**
+	 * Returns the subexpressions of this node, which are empty for the empty
+	 * set, the empty string and symbols.
+	 *
+	 * @return the unmodifiable list of subexpressions
+	 */
+	public List<ExpressionNode> getChildren() {
+		return children;
+	}
+
+	/**
+	 * Returns the kind of this node.
+	 *
+	 * @return the kind
+	 */
+	public Kind getKind() {
+		return kind;
+	}
+
+	/**
+	 * Returns the number of nodes in this tree, counting this one. Nodes that
+	 * are shared between several parents are counted once for each, so this
+	 * is the size of the expression when written out, up to
+	 * <CODE>Integer.MAX_VALUE</CODE>.
+	 *
+	 * @return the size of the tree
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Returns the symbol of a symbol node.
+	 *
+	 * @return the symbol
+	 * @throws IllegalStateException
+	 *             if this is not a symbol node
+	 */
+	public char getSymbol() {
+		if (kind != Kind.SYMBOL) {
+			throw new IllegalStateException("Only a symbol node has a symbol, not a " + kind);
+		}
+		return symbol;
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	/**
+	 * Returns the expression in JFLAP's syntax, with only the parentheses
+	 * needed: <CODE>+</CODE> for union, juxtaposition for concatenation,
+	 * <CODE>*</CODE> for star, the profile's empty string symbol for the empty
+	 * string, and <CODE>{@value FSAToRegularExpressionConverter#EMPTY}</CODE>
+	 * for the empty set. The result parses back into an equal tree.
+	 *
+	 * @return the expression as a string
+	 */
+	@Override
+	public String toString() {
+		final StringBuilder builder = new StringBuilder();
+		write(builder);
+		return builder.toString();
+	}
+
+	/**
+	 * Writes the expression, parenthesizing subexpressions that bind less
+	 * tightly than their parent.
+	 */
+	private void write(final StringBuilder builder) {
+		switch (kind) {
+		case EMPTY:
+			builder.append(FSAToRegularExpressionConverter.EMPTY);
+			break;
+		case LAMBDA:
+			builder.append(Universe.curProfile.getEmptyString());
+			break;
+		case SYMBOL:
+			builder.append(symbol);
+			break;
+		case UNION:
+			for (int i = 0; i < children.size(); i++) {
+				if (i > 0) {
+					builder.append('+');
+				}
+				children.get(i).write(builder);
+			}
+			break;
+		case CONCATENATION:
+			for (final ExpressionNode child : children) {
+				writeGrouped(builder, child, child.kind == Kind.UNION);
+			}
+			break;
+		case STAR:
+			final ExpressionNode child = children.get(0);
+			writeGrouped(builder, child, child.kind == Kind.UNION || child.kind == Kind.CONCATENATION);
+			builder.append('*');
+			break;
+		}
+	}
+
+	/**
+	 * Writes a subexpression, in parentheses if needed.
+	 */
+	private static void writeGrouped(final StringBuilder builder, final ExpressionNode child, final boolean group) {
+		if (group) {
+			builder.append('(');
+		}
+		child.write(builder);
+		if (group) {
+			builder.append(')');
+		}
+	}
+}
@@ -0,0 +1,346 @@
+/*
+*  JFLAP - Formal Languages and Automata Package
+*
+*
+*  Susan H. Rodger
+*  Computer Science Department
+*  Duke University
+*  August 27, 2009
+
+*  Copyright (c) 2002-2009
+*  All rights reserved.
+
+*  JFLAP is open source software. Please see the LICENSE for terms.
+*
+*/
+
+
+package edu.duke.cs.jflap.regular;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * The expression simplifier rewrites regular expressions into a simpler,
+ * canonical form that matches the same strings. The tree is rewritten bottom
+ * up, and each node is rebuilt from its simplified children by these rules:
+ *
+ * <UL>
+ * <LI>unions and concatenations are flattened;</LI>
+ * <LI>the empty set is dropped from unions and makes a concatenation empty,
+ * and lambda is dropped from concatenations;</LI>
+ * <LI>the terms of a union are sorted and repeated terms removed, lambda is
+ * dropped if another term matches the empty string, and <CODE>r</CODE> is
+ * dropped next to <CODE>r*</CODE>;</LI>
+ * <LI>terms of a union that start with the same factor have it factored out,
+ * so <CODE>ab+ac</CODE> becomes <CODE>a(b+c)</CODE>;</LI>
+ * <LI><CODE>r*r*</CODE> becomes <CODE>r*</CODE>;</LI>
+ * <LI>the star of lambda or the empty set is lambda, <CODE>(r*)*</CODE> is
+ * <CODE>r*</CODE>, lambda and inner stars are dropped from a starred union,
+ * and a starred concatenation of stars becomes the star of a union.</LI>
+ * </UL>
+ *
+ * Terms are sorted by a total order on the structure of the trees, so
+ * expressions that differ only in the order or grouping of their unions
+ * simplify to the same tree, and the string of a simplified expression can be
+ * used as a key to cache results about its language. Equal subtrees are
+ * shared, and every simplification is remembered, so subexpressions repeated
+ * within or between expressions are only simplified once. Because of its
+ * tables, a simplifier must not be shared between threads.
+ *
+ * @see edu.duke.cs.jflap.regular.ExpressionNode
+ */
+public class ExpressionSimplifier {
+	/**
+	 * Orders trees by kind, then symbol, then children in turn, then number of
+	 * children.
+	 */
+	private static final Comparator<ExpressionNode> ORDER = new Comparator<ExpressionNode>() {
+		@Override
+		public int compare(final ExpressionNode a, final ExpressionNode b) {
+			if (a == b) {
+				return 0;
+			}
+			if (a.getKind() != b.getKind()) {
+				return a.getKind().compareTo(b.getKind());
+			}
+			if (a.getKind() == ExpressionNode.Kind.SYMBOL) {
+				return Character.compare(a.getSymbol(), b.getSymbol());
+			}
+			final List<ExpressionNode> as = a.getChildren();
+			final List<ExpressionNode> bs = b.getChildren();
+			for (int i = 0; i < as.size() && i < bs.size(); i++) {
+				final int c = compare(as.get(i), bs.get(i));
+				if (c != 0) {
+					return c;
+				}
+			}
+			return Integer.compare(as.size(), bs.size());
+		}
+	};
+
+	/** The shared copy of every simplified tree. */
+	private final HashMap<ExpressionNode, ExpressionNode> myShared = new HashMap<>();
+
+	/** The simplified form of every tree simplified so far. */
+	private final HashMap<ExpressionNode, ExpressionNode> mySimplified = new HashMap<>();
+
+	/** Whether each shared tree matches the empty string. */
+	private final HashMap<ExpressionNode, Boolean> myNullable = new HashMap<>();
+
+	/**
+	 * Creates an instance of <CODE>ExpressionSimplifier</CODE>.
+	 */
+	public ExpressionSimplifier() {
+	}
+
+	/**
+	 * Returns the simplified concatenation of simplified factors.
+	 */
+	private ExpressionNode concatenation(final List<ExpressionNode> factors) {
+		final List<ExpressionNode> kept = new ArrayList<>();
+		for (final ExpressionNode factor : factors) {
+			if (factor.getKind() == ExpressionNode.Kind.EMPTY) {
+				return ExpressionNode.empty();
+			}
+			final List<ExpressionNode> parts = factor.getKind() == ExpressionNode.Kind.CONCATENATION
+					? factor.getChildren() : Collections.singletonList(factor);
+			for (final ExpressionNode part : parts) {
+				if (part.getKind() == ExpressionNode.Kind.LAMBDA) {
+					continue;
+				}
+				final int last = kept.size() - 1;
+				if (part.getKind() == ExpressionNode.Kind.STAR && last >= 0 && kept.get(last).equals(part)) {
+					continue;
+				}
+				kept.add(part);
+			}
+		}
+		if (kept.isEmpty()) {
+			return ExpressionNode.lambda();
+		}
+		return share(ExpressionNode.concatenation(kept));
+	}
+
+	/**
+	 * Returns the canonical string of a regular expression: two expressions
+	 * with the same canonical string match the same strings.
+	 *
+	 * @param expression
+	 *            the regular expression
+	 * @return the string of the simplified expression
+	 * @throws UnsupportedOperationException
+	 *             if the expression is not properly formed
+	 */
+	public String getCanonicalKey(final RegularExpression expression) {
+		return simplify(expression).toString();
+	}
+
+	/**
+	 * Returns the first factor of a term, which is the term itself unless it
+	 * is a concatenation.
+	 */
+	private static ExpressionNode head(final ExpressionNode term) {
+		return term.getKind() == ExpressionNode.Kind.CONCATENATION ? term.getChildren().get(0) : term;
+	}
+
+	/**
+	 * Returns if a shared tree matches the empty string.
+	 */
+	private boolean isNullable(final ExpressionNode node) {
+		final Boolean known = myNullable.get(node);
+		if (known != null) {
+			return known;
+		}
+		boolean nullable;
+		switch (node.getKind()) {
+		case LAMBDA:
+		case STAR:
+			nullable = true;
+			break;
+		case UNION:
+			nullable = false;
+			for (final ExpressionNode child : node.getChildren()) {
+				nullable |= isNullable(child);
+			}
+			break;
+		case CONCATENATION:
+			nullable = true;
+			for (final ExpressionNode child : node.getChildren()) {
+				nullable &= isNullable(child);
+			}
+			break;
+		default:
+			nullable = false;
+		}
+		myNullable.put(node, nullable);
+		return nullable;
+	}
+
+	/**
+	 * Returns the rest of a term after its first factor.
+	 */
+	private ExpressionNode rest(final ExpressionNode term) {
+		if (term.getKind() != ExpressionNode.Kind.CONCATENATION) {
+			return ExpressionNode.lambda();
+		}
+		final List<ExpressionNode> children = term.getChildren();
+		return concatenation(children.subList(1, children.size()));
+	}
+
+	/**
+	 * Returns the shared copy of a tree.
+	 */
+	private ExpressionNode share(final ExpressionNode node) {
+		final ExpressionNode shared = myShared.putIfAbsent(node, node);
+		return shared == null ? node : shared;
+	}
+
+	/**
+	 * Simplifies the syntax tree of a regular expression.
+	 *
+	 * @param node
+	 *            the syntax tree
+	 * @return the simplified tree, which matches the same strings
+	 */
+	public ExpressionNode simplify(final ExpressionNode node) {
+		final ExpressionNode known = mySimplified.get(node);
+		if (known != null) {
+			return known;
+		}
+		final List<ExpressionNode> children = new ArrayList<>();
+		for (final ExpressionNode child : node.getChildren()) {
+			children.add(simplify(child));
+		}
+		ExpressionNode simplified;
+		switch (node.getKind()) {
+		case UNION:
+			simplified = union(children);
+			break;
+		case CONCATENATION:
+			simplified = concatenation(children);
+			break;
+		case STAR:
+			simplified = star(children.get(0));
+			break;
+		default:
+			simplified = share(node);
+		}
+		mySimplified.put(node, simplified);
+		mySimplified.put(simplified, simplified);
+		return simplified;
+	}
+
+	/**
+	 * Parses and simplifies a regular expression.
+	 *
+	 * @param expression
+	 *            the regular expression
+	 * @return the simplified syntax tree
+	 * @throws UnsupportedOperationException
+	 *             if the expression is not properly formed
+	 */
+	public ExpressionNode simplify(final RegularExpression expression) {
+		return simplify(RegularExpressionParser.parse(expression));
+	}
+
+	/**
+	 * Returns the simplified star of a simplified expression.
+	 */
+	private ExpressionNode star(final ExpressionNode child) {
+		switch (child.getKind()) {
+		case EMPTY:
+		case LAMBDA:
+			return ExpressionNode.lambda();
+		case STAR:
+			return child;
+		case UNION:
+		case CONCATENATION: {
+			// (r* + s + lambda)* is (r + s)*, and (r* s*)* is (r + s)*.
+			final boolean union = child.getKind() == ExpressionNode.Kind.UNION;
+			final List<ExpressionNode> terms = new ArrayList<>();
+			boolean changed = false;
+			for (final ExpressionNode term : child.getChildren()) {
+				if (term.getKind() == ExpressionNode.Kind.STAR) {
+					terms.add(term.getChild());
+					changed = true;
+				} else if (union && term.getKind() != ExpressionNode.Kind.LAMBDA) {
+					terms.add(term);
+				} else if (union) {
+					changed = true;
+				} else {
+					return share(ExpressionNode.star(child));
+				}
+			}
+			return changed ? star(union(terms)) : share(ExpressionNode.star(child));
+		}
+		default:
+			return share(ExpressionNode.star(child));
+		}
+	}
+
+	/**
+	 * Returns the simplified union of simplified terms.
+	 */
+	private ExpressionNode union(final List<ExpressionNode> terms) {
+		final TreeSet<ExpressionNode> kept = new TreeSet<>(ORDER);
+		for (final ExpressionNode term : terms) {
+			if (term.getKind() == ExpressionNode.Kind.UNION) {
+				kept.addAll(term.getChildren());
+			} else if (term.getKind() != ExpressionNode.Kind.EMPTY) {
+				kept.add(term);
+			}
+		}
+		final List<ExpressionNode> sorted = new ArrayList<>();
+		boolean nullable = false;
+		for (final ExpressionNode term : kept) {
+			if (term.getKind() != ExpressionNode.Kind.LAMBDA && isNullable(term)) {
+				nullable = true;
+			}
+		}
+		for (final ExpressionNode term : kept) {
+			if (term.getKind() == ExpressionNode.Kind.LAMBDA && nullable) {
+				continue;
+			}
+			if (kept.contains(ExpressionNode.star(term))) {
+				continue;
+			}
+			sorted.add(term);
+		}
+
+		// Factor out first factors shared by several terms.
+		final Map<ExpressionNode, List<ExpressionNode>> groups = new LinkedHashMap<>();
+		for (final ExpressionNode term : sorted) {
+			groups.computeIfAbsent(head(term), h -> new ArrayList<ExpressionNode>()).add(term);
+		}
+		if (groups.size() < sorted.size()) {
+			final List<ExpressionNode> factored = new ArrayList<>();
+			for (final Map.Entry<ExpressionNode, List<ExpressionNode>> group : groups.entrySet()) {
+				if (group.getValue().size() == 1) {
+					factored.add(group.getValue().get(0));
+					continue;
+				}
+				final List<ExpressionNode> rests = new ArrayList<>();
+				for (final ExpressionNode term : group.getValue()) {
+					rests.add(rest(term));
+				}
+				final List<ExpressionNode> factors = new ArrayList<>();
+				factors.add(group.getKey());
+				factors.add(union(rests));
+				factored.add(concatenation(factors));
+			}
+			return union(factored);
+		}
+
+		if (sorted.isEmpty()) {
+			return ExpressionNode.empty();
+		}
+		return share(ExpressionNode.union(sorted));
+	}
+}
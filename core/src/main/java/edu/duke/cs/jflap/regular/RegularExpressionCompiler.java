@@ -0,0 +1,387 @@
+/*
+*  JFLAP - Formal Languages and Automata Package
+*
+*
+*  Susan H. Rodger
+*  Computer Science Department
+*  Duke University
+*  August 27, 2009
+
+*  Copyright (c) 2002-2009
+*  All rights reserved.
+
+*  JFLAP is open source software. Please see the LICENSE for terms.
+*
+*/
+
+
+package edu.duke.cs.jflap.regular;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.TreeSet;
+
+import edu.duke.cs.jflap.automata.fsa.CompactFSA;
+import edu.duke.cs.jflap.automata.fsa.FiniteStateAutomaton;
+
+/**
+ * The regular expression compiler turns the syntax tree of a regular
+ * expression into a nondeterministic finite automaton without any GUI, in a
+ * single walk over the tree. Two constructions are offered:
+ *
+ * <UL>
+ * <LI>{@link #thompson}, which makes at most two states per node and uses
+ * lambda transitions to glue subautomata together, so its size is linear in
+ * the size of the expression;</LI>
+ * <LI>{@link #glushkov}, which makes one state per symbol of the expression
+ * plus an initial state, and has no lambda transitions. It may have a
+ * transition for every pair of symbols, and takes time proportional to its
+ * own size.</LI>
+ * </UL>
+ *
+ * Both return a <CODE>CompactFSA</CODE>, which can be compared with reference
+ * automata by <CODE>HopcroftKarpEqualityChecker</CODE> or turned into a
+ * <CODE>FiniteStateAutomaton</CODE>.
+ *
+ * @see edu.duke.cs.jflap.regular.RegularExpressionParser
+ * @see edu.duke.cs.jflap.automata.fsa.CompactFSA
+ */
+public class RegularExpressionCompiler {
+	/**
+	 * The states and transitions of an automaton under construction.
+	 */
+	private static final class Builder {
+		/** The symbol number of each character, or -1. */
+		private final int[] symbolOf;
+
+		/** The characters, indexed by symbol number. */
+		private final char[] alphabet;
+
+		private int states;
+
+		private int[] from = new int[16];
+
+		private int[] symbol = new int[16];
+
+		private int[] to = new int[16];
+
+		private int size;
+
+		private Builder(final ExpressionNode node) {
+			final TreeSet<Character> letters = new TreeSet<>();
+			addSymbols(node, letters);
+			alphabet = new char[letters.size()];
+			int k = 0;
+			for (final Character c : letters) {
+				alphabet[k++] = c;
+			}
+			symbolOf = new int[alphabet.length == 0 ? 0 : alphabet[alphabet.length - 1] + 1];
+			for (int a = 0; a < alphabet.length; a++) {
+				symbolOf[alphabet[a]] = a;
+			}
+		}
+
+		/**
+		 * Adds a transition on a character, or a lambda transition if the
+		 * character is <CODE>null</CODE>.
+		 */
+		private void add(final int s, final Character c, final int t) {
+			if (size == from.length) {
+				from = Arrays.copyOf(from, size * 2);
+				symbol = Arrays.copyOf(symbol, size * 2);
+				to = Arrays.copyOf(to, size * 2);
+			}
+			from[size] = s;
+			symbol[size] = c == null ? CompactFSA.LAMBDA : symbolOf[c];
+			to[size++] = t;
+		}
+
+		/**
+		 * Packs the transitions, grouped by state, into a compact automaton.
+		 */
+		private CompactFSA build(final int initial, final BitSet finals) {
+			final int[] offsets = new int[states + 1];
+			for (int i = 0; i < size; i++) {
+				offsets[from[i] + 1]++;
+			}
+			for (int s = 0; s < states; s++) {
+				offsets[s + 1] += offsets[s];
+			}
+			final int[] symbols = new int[size];
+			final int[] targets = new int[size];
+			final int[] fill = Arrays.copyOf(offsets, states);
+			for (int i = 0; i < size; i++) {
+				final int j = fill[from[i]]++;
+				symbols[j] = symbol[i];
+				targets[j] = to[i];
+			}
+			return CompactFSA.create(initial, finals, alphabet, offsets, symbols, targets);
+		}
+
+		private int newState() {
+			return states++;
+		}
+	}
+
+	/**
+	 * The nullability and the first and last positions of a subexpression in
+	 * the Glushkov construction. The positions are linked lists threaded
+	 * through the <CODE>next</CODE> arrays of a {@link Glushkov}, so that
+	 * joining two of them takes constant time; -1 ends a list.
+	 */
+	private static final class Positions {
+		private boolean nullable;
+
+		private int firstHead = -1;
+
+		private int firstTail = -1;
+
+		private int lastHead = -1;
+
+		private int lastTail = -1;
+	}
+
+	/**
+	 * The state shared by one run of the Glushkov construction: the symbol of
+	 * each position and the links of the first and last position lists. A
+	 * position starts in the lists of its own symbol and only ever moves into
+	 * the lists of enclosing subexpressions, so it is in at most one live
+	 * list of each kind and one link per position suffices.
+	 */
+	private static final class Glushkov {
+		private final Builder builder;
+
+		private final char[] symbols;
+
+		private final int[] nextFirst;
+
+		private final int[] nextLast;
+
+		private Glushkov(final ExpressionNode node) {
+			builder = new Builder(node);
+			symbols = new char[node.getSize() + 1];
+			nextFirst = new int[symbols.length];
+			nextLast = new int[symbols.length];
+		}
+	}
+
+	/**
+	 * Adds the symbols of an expression to a set.
+	 */
+	private static void addSymbols(final ExpressionNode node, final TreeSet<Character> letters) {
+		if (node.getKind() == ExpressionNode.Kind.SYMBOL) {
+			letters.add(node.getSymbol());
+		}
+		for (final ExpressionNode child : node.getChildren()) {
+			addSymbols(child, letters);
+		}
+	}
+
+	/**
+	 * Appends the first positions of <CODE>c</CODE> to those of
+	 * <CODE>positions</CODE>.
+	 */
+	private static void appendFirst(final Glushkov g, final Positions positions, final Positions c) {
+		if (c.firstHead < 0) {
+			return;
+		}
+		if (positions.firstHead < 0) {
+			positions.firstHead = c.firstHead;
+		} else {
+			g.nextFirst[positions.firstTail] = c.firstHead;
+		}
+		positions.firstTail = c.firstTail;
+	}
+
+	/**
+	 * Appends the last positions of <CODE>c</CODE> to those of
+	 * <CODE>positions</CODE>.
+	 */
+	private static void appendLast(final Glushkov g, final Positions positions, final Positions c) {
+		if (c.lastHead < 0) {
+			return;
+		}
+		if (positions.lastHead < 0) {
+			positions.lastHead = c.lastHead;
+		} else {
+			g.nextLast[positions.lastTail] = c.lastHead;
+		}
+		positions.lastTail = c.lastTail;
+	}
+
+	/**
+	 * Compiles a regular expression into a finite state automaton by the
+	 * Glushkov construction.
+	 *
+	 * @param expression
+	 *            the regular expression
+	 * @return a new automaton accepting the language of the expression
+	 * @throws UnsupportedOperationException
+	 *             if the expression is not properly formed
+	 */
+	public static FiniteStateAutomaton convertToAutomaton(final RegularExpression expression) {
+		return glushkov(RegularExpressionParser.parse(expression)).toAutomaton();
+	}
+
+	/**
+	 * Builds the Glushkov automaton of an expression. State 0 is the initial
+	 * state, and every other state is the position of one symbol in the
+	 * expression, entered only by reading that symbol.
+	 *
+	 * @param node
+	 *            the syntax tree of the expression
+	 * @return a lambda-free automaton accepting the language of the expression
+	 */
+	public static CompactFSA glushkov(final ExpressionNode node) {
+		final Glushkov g = new Glushkov(node);
+		final Builder builder = g.builder;
+		final int initial = builder.newState();
+		final Positions root = glushkov(node, g);
+		for (int q = root.firstHead; q >= 0; q = g.nextFirst[q]) {
+			builder.add(initial, g.symbols[q], q);
+		}
+		final BitSet finals = new BitSet(builder.states);
+		for (int p = root.lastHead; p >= 0; p = g.nextLast[p]) {
+			finals.set(p);
+		}
+		finals.set(initial, root.nullable);
+		return builder.build(initial, finals);
+	}
+
+	/**
+	 * Numbers the symbols of a subexpression as states, adds the transitions
+	 * between positions that may follow each other, and returns the positions
+	 * that may start and end a match. Apart from the transitions added, this
+	 * takes constant time per node.
+	 */
+	private static Positions glushkov(final ExpressionNode node, final Glushkov g) {
+		final Positions positions = new Positions();
+		switch (node.getKind()) {
+		case EMPTY:
+			break;
+		case LAMBDA:
+			positions.nullable = true;
+			break;
+		case SYMBOL: {
+			final int p = g.builder.newState();
+			g.symbols[p] = node.getSymbol();
+			g.nextFirst[p] = -1;
+			g.nextLast[p] = -1;
+			positions.firstHead = positions.firstTail = p;
+			positions.lastHead = positions.lastTail = p;
+			break;
+		}
+		case UNION:
+			for (final ExpressionNode child : node.getChildren()) {
+				final Positions c = glushkov(child, g);
+				positions.nullable |= c.nullable;
+				appendFirst(g, positions, c);
+				appendLast(g, positions, c);
+			}
+			break;
+		case CONCATENATION:
+			positions.nullable = true;
+			for (final ExpressionNode child : node.getChildren()) {
+				final Positions c = glushkov(child, g);
+				link(g, positions.lastHead, c.firstHead);
+				if (positions.nullable) {
+					appendFirst(g, positions, c);
+				}
+				if (!c.nullable) {
+					positions.lastHead = positions.lastTail = -1;
+				}
+				appendLast(g, positions, c);
+				positions.nullable &= c.nullable;
+			}
+			break;
+		case STAR: {
+			final Positions c = glushkov(node.getChild(), g);
+			link(g, c.lastHead, c.firstHead);
+			c.nullable = true;
+			return c;
+		}
+		}
+		return positions;
+	}
+
+	/**
+	 * Adds a transition from every position that may end a match of one part
+	 * to every position that may start the next, on the latter's symbol.
+	 */
+	private static void link(final Glushkov g, final int lastHead, final int firstHead) {
+		for (int p = lastHead; p >= 0; p = g.nextLast[p]) {
+			for (int q = firstHead; q >= 0; q = g.nextFirst[q]) {
+				g.builder.add(p, g.symbols[q], q);
+			}
+		}
+	}
+
+	/**
+	 * Builds the Thompson automaton of an expression, which has one initial
+	 * and one final state.
+	 *
+	 * @param node
+	 *            the syntax tree of the expression
+	 * @return an automaton accepting the language of the expression
+	 */
+	public static CompactFSA thompson(final ExpressionNode node) {
+		final Builder builder = new Builder(node);
+		final int[] ends = thompson(node, builder);
+		final BitSet finals = new BitSet(builder.states);
+		finals.set(ends[1]);
+		return builder.build(ends[0], finals);
+	}
+
+	/**
+	 * Builds the subautomaton of a subexpression, returning its start and end
+	 * states.
+	 */
+	private static int[] thompson(final ExpressionNode node, final Builder builder) {
+		switch (node.getKind()) {
+		case CONCATENATION: {
+			int[] whole = null;
+			for (final ExpressionNode child : node.getChildren()) {
+				final int[] part = thompson(child, builder);
+				if (whole == null) {
+					whole = part;
+				} else {
+					builder.add(whole[1], null, part[0]);
+					whole[1] = part[1];
+				}
+			}
+			return whole;
+		}
+		case STAR: {
+			final int start = builder.newState();
+			final int end = builder.newState();
+			final int[] part = thompson(node.getChild(), builder);
+			builder.add(start, null, part[0]);
+			builder.add(part[1], null, end);
+			builder.add(part[1], null, part[0]);
+			builder.add(start, null, end);
+			return new int[] { start, end };
+		}
+		default:
+			final int start = builder.newState();
+			final int end = builder.newState();
+			if (node.getKind() == ExpressionNode.Kind.LAMBDA) {
+				builder.add(start, null, end);
+			} else if (node.getKind() == ExpressionNode.Kind.SYMBOL) {
+				builder.add(start, node.getSymbol(), end);
+			} else if (node.getKind() == ExpressionNode.Kind.UNION) {
+				for (final ExpressionNode child : node.getChildren()) {
+					final int[] part = thompson(child, builder);
+					builder.add(start, null, part[0]);
+					builder.add(part[1], null, end);
+				}
+			}
+			return new int[] { start, end };
+		}
+	}
+
+	/**
+	 * There is no reason for this class to ever be constructed.
+	 */
+	private RegularExpressionCompiler() {
+	}
+}
@@ -0,0 +1,158 @@
+/*
+*  JFLAP - Formal Languages and Automata Package
+*
+*
+*  Susan H. Rodger
+*  Computer Science Department
+*  Duke University
+*  August 27, 2009
+
+*  Copyright (c) 2002-2009
+*  All rights reserved.
+
+*  JFLAP is open source software. Please see the LICENSE for terms.
+*
+*/
+
+
+package edu.duke.cs.jflap.regular;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.duke.cs.jflap.automata.fsa.FSAToRegularExpressionConverter;
+import edu.duke.cs.jflap.gui.environment.Universe;
+
+/**
+ * The regular expression parser reads a regular expression in JFLAP's syntax
+ * into a tree of <CODE>ExpressionNode</CODE>s in one left to right pass.
+ * <CODE>+</CODE> is union, juxtaposition is concatenation and <CODE>*</CODE>
+ * is the Kleene star, binding in increasing order of tightness, and
+ * parentheses group. <CODE>!</CODE>, the profile's empty string symbol and
+ * the empty expression stand for the empty string, and
+ * <CODE>{@value FSAToRegularExpressionConverter#EMPTY}</CODE> for the empty
+ * set, so the output of <CODE>FSAToRegularExpressionConverter</CODE> can be
+ * parsed back. Every other character is a symbol.
+ *
+ * Unlike the conversion in the GUI, nothing here needs a Swing environment,
+ * and no transition labels are rewritten: the tree is built once and then
+ * compiled or inspected as needed.
+ *
+ * @see edu.duke.cs.jflap.regular.ExpressionNode
+ * @see edu.duke.cs.jflap.regular.RegularExpressionCompiler
+ */
+public class RegularExpressionParser {
+	/** The character JFLAP uses for the empty string when typing. */
+	private static final char LAMBDA = '!';
+
+	/**
+	 * Parses a regular expression.
+	 *
+	 * @param expression
+	 *            the regular expression
+	 * @return the syntax tree of the expression
+	 * @throws UnsupportedOperationException
+	 *             if the expression is not properly formed
+	 */
+	public static ExpressionNode parse(final RegularExpression expression) {
+		return parse(expression.asString());
+	}
+
+	/**
+	 * Parses a string as a regular expression.
+	 *
+	 * @param expression
+	 *            the string of the regular expression
+	 * @return the syntax tree of the expression
+	 * @throws UnsupportedOperationException
+	 *             if the expression is not properly formed
+	 */
+	public static ExpressionNode parse(final String expression) {
+		if (expression.length() == 0) {
+			return ExpressionNode.lambda();
+		}
+		final RegularExpressionParser parser = new RegularExpressionParser(expression);
+		final ExpressionNode node = parser.parseUnion();
+		if (parser.position < expression.length()) {
+			throw new UnsupportedOperationException("The parentheses are unbalanced!");
+		}
+		return node;
+	}
+
+	/** The expression being parsed. */
+	private final String expression;
+
+	/** The position of the next character to read. */
+	private int position;
+
+	/** The profile's empty string symbol. */
+	private final String emptyString = Universe.curProfile.getEmptyString();
+
+	/**
+	 * There is no reason to construct a parser except to parse one string.
+	 */
+	private RegularExpressionParser(final String expression) {
+		this.expression = expression;
+	}
+
+	/**
+	 * Parses a symbol, the empty string, the empty set or a parenthesized
+	 * expression, followed by any number of stars.
+	 */
+	private ExpressionNode parseAtom() {
+		final char c = expression.charAt(position++);
+		ExpressionNode node;
+		if (c == '(') {
+			node = parseUnion();
+			if (position == expression.length() || expression.charAt(position) != ')') {
+				throw new UnsupportedOperationException("The parentheses are unbalanced!");
+			}
+			position++;
+		} else if (c == LAMBDA || emptyString.length() == 1 && c == emptyString.charAt(0)) {
+			node = ExpressionNode.lambda();
+		} else if (c == FSAToRegularExpressionConverter.EMPTY.charAt(0)) {
+			node = ExpressionNode.empty();
+		} else {
+			node = ExpressionNode.symbol(c);
+		}
+		while (position < expression.length() && expression.charAt(position) == '*') {
+			position++;
+			node = ExpressionNode.star(node);
+		}
+		return node;
+	}
+
+	/**
+	 * Parses one or more atoms in a row.
+	 */
+	private ExpressionNode parseConcatenation() {
+		final List<ExpressionNode> factors = new ArrayList<>();
+		while (position < expression.length()) {
+			final char c = expression.charAt(position);
+			if (c == '+' || c == ')') {
+				break;
+			}
+			if (c == '*') {
+				throw new UnsupportedOperationException("Operators are poorly formatted.");
+			}
+			factors.add(parseAtom());
+		}
+		if (factors.isEmpty()) {
+			throw new UnsupportedOperationException("Operators are poorly formatted.");
+		}
+		return ExpressionNode.concatenation(factors);
+	}
+
+	/**
+	 * Parses one or more concatenations separated by <CODE>+</CODE>.
+	 */
+	private ExpressionNode parseUnion() {
+		final List<ExpressionNode> terms = new ArrayList<>();
+		terms.add(parseConcatenation());
+		while (position < expression.length() && expression.charAt(position) == '+') {
+			position++;
+			terms.add(parseConcatenation());
+		}
+		return ExpressionNode.union(terms);
+	}
+}